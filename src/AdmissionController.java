@@ -0,0 +1,208 @@
+// AdmissionController.java
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Class AdmissionController - Kiểm soát việc nhận người chơi mới khi server quá tải
+ * Mục tiêu là giữ các bàn đang chơi trong ngưỡng độ trễ, thay vì để mọi bàn cùng chậm đi.
+ *
+ * Hai tín hiệu được đo mỗi PROBE_INTERVAL_MS:
+ * - Độ trễ event loop: thời gian một tác vụ thăm dò phải chờ trong hàng đợi của loop
+ * - Độ trễ lệnh: thời gian từ lúc luồng I/O đưa lệnh vào mailbox tới khi bàn xử lý xong
+ *
+ * Theo mức tải:
+ * - NORMAL: người chơi mới vào thẳng hàng chờ ghép cặp
+ * - QUEUEING: người chơi mới vào sảnh chờ, nhận "LOBBY_WAIT:vị_trí:số_giây_ước_tính"
+ * - SHEDDING: người chơi mới (hoặc khi sảnh đầy) nhận "SERVER_BUSY" và bị ngắt ngay
+ * Người chơi resume luôn được nhận vì ghế của họ đã tồn tại.
+ *
+ * Khóa của controller chỉ bảo vệ sảnh chờ: việc xếp bàn và gửi message cho người chơi được làm sau khi
+ * nhả khóa. Gửi chỉ mã hóa và xếp message vào hàng đợi của kết nối (ClientHandler.sendObject), nên luồng
+ * hẹn giờ chạy onTick không bao giờ ghi socket.
+ */
+public class AdmissionController {
+    public enum Level { NORMAL, QUEUEING, SHEDDING }
+
+    private static final long PROBE_INTERVAL_MS = 250;
+    private static final double LAG_QUEUE_MS = 50;
+    private static final double LAG_SHED_MS = 250;
+    private static final double LATENCY_QUEUE_MS = 100;
+    private static final double LATENCY_SHED_MS = 500;
+    private static final double SMOOTHING = 0.3;
+    private static final int MAX_LOBBY = 100;
+    private static final int ADMIT_PER_TICK = 4;
+    private static final int POSITION_UPDATE_TICKS = 4; // Gửi lại vị trí trong sảnh mỗi giây
+
+    private final EventLoops loops;
+    private final Consumer<PlayerConnection> seatPlayer;
+    private final AtomicLongArray probeSentNanos; // 0 = không có tác vụ thăm dò đang chờ
+    private final AtomicLong lagWindowMaxNanos = new AtomicLong();
+    private final AtomicLong latencyWindowMaxNanos = new AtomicLong();
+    private final ArrayDeque<PlayerConnection> lobby = new ArrayDeque<>();
+
+    private volatile Level level = Level.NORMAL;
+    private double loopLagMs = 0;
+    private double commandLatencyMs = 0;
+    private int tick = 0;
+
+    /**
+     * Constructor
+     * @param loops Các event loop cần theo dõi
+     * @param seatPlayer Hàm đưa người chơi đã được nhận vào hàng chờ ghép cặp
+     */
+    public AdmissionController(EventLoops loops, Consumer<PlayerConnection> seatPlayer) {
+        this.loops = loops;
+        this.seatPlayer = seatPlayer;
+        this.probeSentNanos = new AtomicLongArray(loops.size());
+    }
+
+    /** Bắt đầu đo định kỳ trên bánh xe hẹn giờ của server */
+    public void start() {
+        Server.timers.schedule(this::onTick, PROBE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ghi nhận độ trễ của một lệnh (gọi trên event loop sau khi bàn xử lý xong)
+     * @param nanos Thời gian từ lúc xếp vào mailbox tới lúc xử lý xong
+     */
+    public void recordCommandLatency(long nanos) {
+        latencyWindowMaxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Quyết định cho một người chơi mới vừa hoàn tất handshake
+     * @param player Người chơi mới (không phải resume)
+     */
+    public void admit(PlayerConnection player) {
+        Level current = level;
+        int position; // 0 = vào thẳng hàng chờ ghép cặp, -1 = từ chối
+        synchronized (this) {
+            if (current == Level.NORMAL && lobby.isEmpty()) {
+                position = 0;
+            } else if (current != Level.SHEDDING && lobby.size() < MAX_LOBBY) {
+                lobby.add(player);
+                position = lobby.size();
+            } else {
+                position = -1;
+            }
+        }
+        if (position == 0) {
+            seatPlayer.accept(player);
+            return;
+        }
+        if (position > 0) {
+            System.out.println("⏳ Server đang tải cao, " + player.getPlayerName()
+                + " vào sảnh chờ ở vị trí " + position);
+            player.sendObject("LOBBY_WAIT:" + position + ":" + estimateWaitSeconds(position));
+            return;
+        }
+        System.out.println("🚫 Server quá tải, từ chối " + player.getPlayerName() + " (" + player.getClientIP() + ")");
+        player.sendObject("SERVER_BUSY");
+        player.closeConnection();
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    private void onTick() {
+        try {
+            measure();
+            updateLevel();
+            drainLobby();
+        } finally {
+            start(); // Hẹn lượt đo tiếp theo
+        }
+    }
+
+    // Gửi tác vụ thăm dò vào từng loop; loop chưa chạy xong lượt trước thì tính độ trễ tới hiện tại
+    private void measure() {
+        long now = System.nanoTime();
+        for (int i = 0; i < loops.size(); i++) {
+            long sent = probeSentNanos.get(i);
+            if (sent != 0) {
+                lagWindowMaxNanos.accumulateAndGet(now - sent, Math::max);
+                continue;
+            }
+            probeSentNanos.set(i, now);
+            int index = i;
+            loops.get(i).execute(() -> {
+                lagWindowMaxNanos.accumulateAndGet(System.nanoTime() - probeSentNanos.get(index), Math::max);
+                probeSentNanos.set(index, 0);
+            });
+        }
+        double lag = lagWindowMaxNanos.getAndSet(0) / 1_000_000.0;
+        double latency = latencyWindowMaxNanos.getAndSet(0) / 1_000_000.0;
+        loopLagMs = SMOOTHING * lag + (1 - SMOOTHING) * loopLagMs;
+        commandLatencyMs = SMOOTHING * latency + (1 - SMOOTHING) * commandLatencyMs;
+    }
+
+    // Chuyển mức tải có trễ (hysteresis): chỉ về NORMAL khi cả hai tín hiệu dưới một nửa ngưỡng
+    private void updateLevel() {
+        Level previous = level;
+        Level next;
+        if (loopLagMs > LAG_SHED_MS || commandLatencyMs > LATENCY_SHED_MS) {
+            next = Level.SHEDDING;
+        } else if (loopLagMs > LAG_QUEUE_MS || commandLatencyMs > LATENCY_QUEUE_MS) {
+            next = Level.QUEUEING;
+        } else if (loopLagMs < LAG_QUEUE_MS / 2 && commandLatencyMs < LATENCY_QUEUE_MS / 2) {
+            next = Level.NORMAL;
+        } else {
+            next = (previous == Level.SHEDDING) ? Level.QUEUEING : previous;
+        }
+        if (next != previous) {
+            level = next;
+            System.out.println(String.format("📈 Mức tải: %s -> %s (độ trễ loop %.1f ms, độ trễ lệnh %.1f ms)",
+                previous, next, loopLagMs, commandLatencyMs));
+        }
+    }
+
+    // Khi tải bình thường trở lại, nhận dần người chơi từ sảnh theo thứ tự đến
+    // Chọn người trong khóa, xếp bàn và gửi vị trí mới sau khi nhả khóa
+    private void drainLobby() {
+        List<PlayerConnection> admitted = new ArrayList<>();
+        List<PlayerConnection> waiting = new ArrayList<>();
+        synchronized (this) {
+            if (lobby.isEmpty()) return;
+            if (level == Level.NORMAL) {
+                for (int i = 0; i < ADMIT_PER_TICK && !lobby.isEmpty(); i++) {
+                    PlayerConnection player = lobby.poll();
+                    if (player.isConnected()) {
+                        admitted.add(player);
+                    }
+                }
+            }
+            boolean dequeued = level == Level.NORMAL;
+            if (dequeued || ++tick % POSITION_UPDATE_TICKS == 0) {
+                for (Iterator<PlayerConnection> iterator = lobby.iterator(); iterator.hasNext(); ) {
+                    PlayerConnection player = iterator.next();
+                    if (!player.isConnected()) {
+                        iterator.remove();
+                        continue;
+                    }
+                    waiting.add(player);
+                }
+            }
+        }
+
+        for (PlayerConnection player : admitted) {
+            seatPlayer.accept(player);
+        }
+        for (int i = 0; i < waiting.size(); i++) {
+            int position = i + 1;
+            waiting.get(i).sendObject("LOBBY_WAIT:" + position + ":" + estimateWaitSeconds(position));
+        }
+    }
+
+    // Ước tính theo tốc độ nhận từ sảnh khi tải bình thường
+    private static long estimateWaitSeconds(int position) {
+        double admittedPerSecond = ADMIT_PER_TICK * (1000.0 / PROBE_INTERVAL_MS);
+        return Math.max(1, (long) Math.ceil(position / admittedPerSecond));
+    }
+}
@@ -0,0 +1,202 @@
+// AssetBundle.java
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class AssetBundle - Đọc tài nguyên (ảnh lá bài, âm thanh) của client
+ * Ưu tiên gói assets.pak do AssetPacker tạo ra: cả gói được đọc một lần (hoặc map vào bộ nhớ
+ * nếu là file trên đĩa), sau đó mọi tài nguyên chỉ là một lát cắt của buffer đó.
+ * Nếu không có gói thì đọc từng file lẻ: trước từ classpath, sau đó từ thư mục làm việc.
+ *
+ * Định dạng assets.pak:
+ * - Header: MAGIC (int), VERSION (int), số tài nguyên (int)
+ * - Bảng chỉ mục: mỗi mục gồm độ dài tên (short), tên UTF-8, offset (int), độ dài (int)
+ * - Dữ liệu các tài nguyên nối tiếp nhau; offset tính từ đầu file
+ *
+ * Tên tài nguyên là đường dẫn trong thư mục resource, ví dụ "cards/A-S.png".
+ * Có thể truyền cả đường dẫn cũ dạng "resource/cards/A-S.png".
+ */
+public class AssetBundle {
+    static final String BUNDLE_NAME = "assets.pak";
+    static final int MAGIC = 0x58444B50;
+    static final int VERSION = 1;
+    private static final String RESOURCE_PREFIX = "resource/";
+
+    private static AssetBundle instance;
+    private final ByteBuffer data;
+    private final Map<String, int[]> index = new HashMap<>(); // tên -> {offset, độ dài}
+
+    private AssetBundle() {
+        long start = System.nanoTime();
+        this.data = loadBundle();
+        if (data != null) {
+            readIndex();
+            System.out.println("📦 Đã nạp " + index.size() + " tài nguyên từ " + BUNDLE_NAME
+                + " trong " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } else {
+            System.out.println("📦 Không tìm thấy " + BUNDLE_NAME + ", đọc tài nguyên từ file lẻ");
+        }
+    }
+
+    /**
+     * Lấy bundle dùng chung (nạp gói ở lần gọi đầu tiên)
+     * @return Instance của AssetBundle
+     */
+    public static synchronized AssetBundle getInstance() {
+        if (instance == null) {
+            instance = new AssetBundle();
+        }
+        return instance;
+    }
+
+    /**
+     * Mở một tài nguyên để đọc
+     * Stream trả về luôn hỗ trợ mark/reset (cần cho AudioSystem)
+     * @param path Tên tài nguyên
+     * @return InputStream, hoặc null nếu không tìm thấy
+     */
+    public InputStream open(String path) {
+        String name = normalize(path);
+        int[] entry = index.get(name);
+        if (entry != null) {
+            ByteBuffer slice = data.duplicate();
+            slice.position(entry[0]).limit(entry[0] + entry[1]);
+            return new ByteBufferInputStream(slice.slice());
+        }
+
+        InputStream classpathStream = AssetBundle.class.getResourceAsStream("/" + name);
+        if (classpathStream != null) {
+            return new BufferedInputStream(classpathStream);
+        }
+        try {
+            return new BufferedInputStream(new FileInputStream(RESOURCE_PREFIX + name));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Kiểm tra tài nguyên có tồn tại không
+     * @param path Tên tài nguyên
+     * @return true nếu open(path) sẽ thành công
+     */
+    public boolean exists(String path) {
+        String name = normalize(path);
+        return index.containsKey(name)
+            || AssetBundle.class.getResource("/" + name) != null
+            || new File(RESOURCE_PREFIX + name).isFile();
+    }
+
+    private static String normalize(String path) {
+        String name = path.replace('\\', '/');
+        return name.startsWith(RESOURCE_PREFIX) ? name.substring(RESOURCE_PREFIX.length()) : name;
+    }
+
+    // Tìm gói trên classpath rồi tới thư mục resource; file trên đĩa được map, trong jar thì đọc một lần
+    private static ByteBuffer loadBundle() {
+        URL url = AssetBundle.class.getResource("/" + BUNDLE_NAME);
+        try {
+            Path file = null;
+            if (url != null && "file".equals(url.getProtocol())) {
+                file = Paths.get(url.toURI());
+            } else if (url == null && new File(RESOURCE_PREFIX + BUNDLE_NAME).isFile()) {
+                file = Paths.get(RESOURCE_PREFIX + BUNDLE_NAME);
+            }
+            if (file != null) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            }
+            if (url != null) {
+                try (InputStream in = url.openStream()) {
+                    return ByteBuffer.wrap(in.readAllBytes());
+                }
+            }
+        } catch (IOException | URISyntaxException e) {
+            System.err.println("Không thể đọc " + BUNDLE_NAME + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    private void readIndex() {
+        ByteBuffer header = data.duplicate();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            System.err.println(BUNDLE_NAME + " không đúng định dạng, bỏ qua");
+            return;
+        }
+        int count = header.getInt();
+        for (int i = 0; i < count; i++) {
+            byte[] nameBytes = new byte[header.getShort()];
+            header.get(nameBytes);
+            int offset = header.getInt();
+            int length = header.getInt();
+            index.put(new String(nameBytes, StandardCharsets.UTF_8), new int[] {offset, length});
+        }
+    }
+
+    /**
+     * InputStream đọc từ một lát cắt ByteBuffer (không sao chép dữ liệu)
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+        private int mark = 0;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            mark = buffer.position();
+        }
+
+        @Override
+        public synchronized void reset() {
+            buffer.position(mark);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+// AssetPacker.java
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Class AssetPacker - Công cụ đóng gói thư mục resource thành một file assets.pak
+ * Định dạng file được mô tả trong AssetBundle. Tài nguyên được sắp theo đường dẫn
+ * nên các ảnh lá bài nằm liền nhau trong gói.
+ *
+ * Cách dùng: java AssetPacker [thư_mục_resource] [file_đầu_ra]
+ * Mặc định: resource -> resource/assets.pak
+ */
+public class AssetPacker {
+
+    public static void main(String[] args) throws IOException {
+        Path resourceDirectory = Paths.get(args.length > 0 ? args[0] : "resource");
+        Path output = args.length > 1 ? Paths.get(args[1]) : resourceDirectory.resolve(AssetBundle.BUNDLE_NAME);
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(resourceDirectory)) {
+            files = walk.filter(Files::isRegularFile)
+                .filter(path -> !path.getFileName().toString().endsWith(".pak"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+
+        // Tính kích thước header + chỉ mục để biết offset của tài nguyên đầu tiên
+        String[] names = new String[files.size()];
+        int offset = 12;
+        for (int i = 0; i < files.size(); i++) {
+            names[i] = resourceDirectory.relativize(files.get(i)).toString().replace('\\', '/');
+            offset += 2 + names[i].getBytes(StandardCharsets.UTF_8).length + 8;
+        }
+
+        Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        long totalBytes = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(AssetBundle.MAGIC);
+            out.writeInt(AssetBundle.VERSION);
+            out.writeInt(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                byte[] nameBytes = names[i].getBytes(StandardCharsets.UTF_8);
+                int length = (int) Files.size(files.get(i));
+                out.writeShort(nameBytes.length);
+                out.write(nameBytes);
+                out.writeInt(offset);
+                out.writeInt(length);
+                offset += length;
+            }
+            for (Path file : files) {
+                totalBytes += Files.copy(file, out);
+            }
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        System.out.println("📦 Đã đóng gói " + files.size() + " tài nguyên (" + totalBytes / 1024 + " KB) vào " + output);
+    }
+}
@@ -0,0 +1,36 @@
+// AssetWarmup.java
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class AssetWarmup - Nạp trước tài nguyên của client ở nền trong lúc người dùng ở màn hình chính
+ * Ảnh lá bài và âm thanh được nạp song song trên các luồng riêng, nên khi vào bàn chơi
+ * frame đầu tiên không phải chờ giải mã PNG/WAV trên EDT.
+ */
+public class AssetWarmup {
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "asset-warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static boolean started = false;
+
+    private AssetWarmup() {}
+
+    /**
+     * Bắt đầu nạp trước tài nguyên (chỉ chạy lần đầu tiên được gọi)
+     */
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
+
+        executor.execute(() -> {
+            CardSpriteAtlas.getInstance();
+            StartupTimer.mark("Đã nạp xong ảnh lá bài");
+        });
+        executor.execute(() -> {
+            SoundManager.getInstance().preloadSoundEffects(SoundManager.SOUND_EFFECTS);
+            StartupTimer.mark("Đã nạp xong âm thanh");
+        });
+    }
+}
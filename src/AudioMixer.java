@@ -0,0 +1,223 @@
+// AudioMixer.java
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Class AudioMixer - Bộ trộn âm thanh bằng phần mềm
+ * Cộng PCM 16-bit của nhạc nền và mọi hiệu ứng đang phát vào một buffer rồi ghi ra
+ * một AudioSink duy nhất, nên chỉ cần đúng một line phần cứng dù bao nhiêu âm thanh chồng lên nhau.
+ *
+ * Định dạng trộn cố định: 44.1 kHz, 16-bit, stereo, little-endian.
+ * Mỗi voice có gain riêng (tuyến tính 0-1, cùng ý nghĩa với SoundManager.setVolume)
+ * và được nhân thêm master gain.
+ */
+public class AudioMixer implements AutoCloseable {
+    public static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+    private static final int PERIOD_FRAMES = 512;   // ~11.6 ms mỗi lần trộn
+    private static final int BUFFERED_PERIODS = 4;  // Độ sâu buffer của line - quyết định độ trễ
+    private static final int MAX_VOICES = 16;
+
+    /**
+     * Một nguồn âm thanh đang được trộn
+     */
+    public abstract static class Voice {
+        private volatile float gain = 1.0f;
+
+        public void setGain(float gain) {
+            this.gain = Math.max(0.0f, Math.min(1.0f, gain));
+        }
+
+        public float getGain() {
+            return gain;
+        }
+
+        /**
+         * Đọc tối đa frames frame vào buffer (mẫu stereo xen kẽ)
+         * @return Số frame đã đọc; nhỏ hơn frames nghĩa là voice đã phát xong
+         */
+        protected abstract int read(short[] buffer, int frames);
+
+        /** @return true nếu voice lặp vô hạn (nhạc nền) - không bị bỏ khi bộ trộn đầy */
+        protected boolean isLooping() {
+            return false;
+        }
+
+        /** Giải phóng tài nguyên khi voice bị gỡ khỏi bộ trộn */
+        protected void release() {
+        }
+    }
+
+    /**
+     * Voice phát từ mảng PCM đã giải mã sẵn trong bộ nhớ (dùng chung, không sao chép)
+     */
+    public static class PcmVoice extends Voice {
+        private final short[] samples;
+        private final boolean loop;
+        private int position = 0; // Vị trí mẫu (không phải frame)
+
+        public PcmVoice(short[] samples, boolean loop) {
+            this.samples = samples;
+            this.loop = loop;
+        }
+
+        @Override
+        protected boolean isLooping() {
+            return loop;
+        }
+
+        @Override
+        protected int read(short[] buffer, int frames) {
+            int wanted = frames * 2;
+            int copied = 0;
+            while (copied < wanted && samples.length > 0) {
+                int n = Math.min(wanted - copied, samples.length - position);
+                System.arraycopy(samples, position, buffer, copied, n);
+                copied += n;
+                position += n;
+                if (position >= samples.length) {
+                    if (!loop) break;
+                    position = 0;
+                }
+            }
+            return copied / 2;
+        }
+    }
+
+    private final AudioSink sink;
+    private final List<Voice> voices = new ArrayList<>();
+    private volatile float masterGain = 1.0f;
+    private volatile boolean closed = false;
+    private final Thread mixerThread;
+
+    /**
+     * Tạo bộ trộn ghi ra line âm thanh của hệ thống (hoặc null sink nếu không có)
+     */
+    public AudioMixer() {
+        this(AudioSink.open(FORMAT, PERIOD_FRAMES * FORMAT.getFrameSize() * BUFFERED_PERIODS));
+    }
+
+    /**
+     * Tạo bộ trộn ghi ra một AudioSink chỉ định
+     * @param sink Đầu ra PCM
+     */
+    public AudioMixer(AudioSink sink) {
+        this.sink = sink;
+        this.mixerThread = new Thread(this::mixLoop, "audio-mixer");
+        this.mixerThread.setDaemon(true);
+        this.mixerThread.start();
+    }
+
+    /**
+     * Thêm voice vào bộ trộn; nếu đã đủ MAX_VOICES thì bỏ voice không lặp cũ nhất,
+     * để một loạt hiệu ứng dồn dập không cắt mất nhạc nền
+     * @param voice Voice cần phát
+     * @return Chính voice đó để có thể chỉnh gain hoặc dừng
+     */
+    public Voice play(Voice voice) {
+        Voice evicted = null;
+        synchronized (voices) {
+            if (voices.size() >= MAX_VOICES) {
+                int victim = 0; // Mọi voice đều lặp thì đành bỏ voice cũ nhất
+                for (int i = 0; i < voices.size(); i++) {
+                    if (!voices.get(i).isLooping()) {
+                        victim = i;
+                        break;
+                    }
+                }
+                evicted = voices.remove(victim);
+            }
+            voices.add(voice);
+        }
+        if (evicted != null) evicted.release();
+        return voice;
+    }
+
+    /**
+     * @param voice Voice cần kiểm tra
+     * @return true nếu voice vẫn đang được trộn
+     */
+    boolean isPlaying(Voice voice) {
+        synchronized (voices) {
+            return voices.contains(voice);
+        }
+    }
+
+    /**
+     * Dừng và gỡ một voice
+     * @param voice Voice cần dừng
+     */
+    public void stop(Voice voice) {
+        boolean removed;
+        synchronized (voices) {
+            removed = voices.remove(voice);
+        }
+        if (removed) voice.release();
+    }
+
+    public void setMasterGain(float gain) {
+        this.masterGain = Math.max(0.0f, Math.min(1.0f, gain));
+    }
+
+    private void mixLoop() {
+        short[] voiceBuffer = new short[PERIOD_FRAMES * 2];
+        int[] accumulator = new int[PERIOD_FRAMES * 2];
+        byte[] output = new byte[PERIOD_FRAMES * FORMAT.getFrameSize()];
+        List<Voice> active = new ArrayList<>();
+        List<Voice> finished = new ArrayList<>();
+
+        while (!closed) {
+            synchronized (voices) {
+                active.clear();
+                active.addAll(voices);
+            }
+            Arrays.fill(accumulator, 0);
+            float master = masterGain;
+
+            for (Voice voice : active) {
+                int frames = voice.read(voiceBuffer, PERIOD_FRAMES);
+                // Gain tính theo fixed-point 16.16 để vòng lặp trộn chỉ có phép nhân số nguyên
+                int gain = (int) (voice.getGain() * master * 65536);
+                for (int i = 0; i < frames * 2; i++) {
+                    accumulator[i] += (voiceBuffer[i] * gain) >> 16;
+                }
+                if (frames < PERIOD_FRAMES) {
+                    finished.add(voice);
+                }
+            }
+
+            for (int i = 0; i < accumulator.length; i++) {
+                int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, accumulator[i]));
+                output[i * 2] = (byte) sample;
+                output[i * 2 + 1] = (byte) (sample >> 8);
+            }
+            sink.write(output, 0, output.length);
+
+            if (!finished.isEmpty()) {
+                for (Voice voice : finished) {
+                    stop(voice); // Bỏ qua nếu voice đã bị stop() từ luồng khác
+                }
+                finished.clear();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            mixerThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (voices) {
+            for (Iterator<Voice> iterator = voices.iterator(); iterator.hasNext(); ) {
+                iterator.next().release();
+                iterator.remove();
+            }
+        }
+        sink.close();
+    }
+}
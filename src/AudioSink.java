@@ -0,0 +1,96 @@
+// AudioSink.java
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Interface AudioSink - Đầu ra PCM của bộ trộn âm thanh
+ * write() chặn cho đến khi đầu ra nhận hết dữ liệu, nhờ đó bộ trộn chạy đúng nhịp thời gian thực.
+ *
+ * Hai cài đặt:
+ * - Line: ghi ra một SourceDataLine duy nhất của hệ thống
+ * - Null: bỏ dữ liệu nhưng vẫn giữ nhịp - dùng khi không có thiết bị âm thanh (headless, kiểm thử)
+ */
+public interface AudioSink extends AutoCloseable {
+
+    /**
+     * Ghi dữ liệu PCM ra đầu ra
+     * @param buffer Dữ liệu PCM theo định dạng của bộ trộn
+     * @param offset Vị trí bắt đầu
+     * @param length Số byte cần ghi
+     */
+    void write(byte[] buffer, int offset, int length);
+
+    @Override
+    void close();
+
+    /**
+     * Mở đầu ra phù hợp: line hệ thống nếu có, ngược lại là null sink
+     * @param format Định dạng PCM của bộ trộn
+     * @param bufferBytes Kích thước buffer của line (quyết định độ trễ)
+     * @return AudioSink đã sẵn sàng ghi
+     */
+    static AudioSink open(AudioFormat format, int bufferBytes) {
+        try {
+            SourceDataLine line = AudioSystem.getSourceDataLine(format);
+            line.open(format, bufferBytes);
+            line.start();
+            return new Line(line);
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            System.err.println("Không mở được đầu ra âm thanh, chạy không tiếng: " + e.getMessage());
+            return new Null(format);
+        }
+    }
+
+    /**
+     * Ghi ra SourceDataLine của hệ thống
+     */
+    class Line implements AudioSink {
+        private final SourceDataLine line;
+
+        Line(SourceDataLine line) {
+            this.line = line;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            line.write(buffer, offset, length);
+        }
+
+        @Override
+        public void close() {
+            line.drain();
+            line.close();
+        }
+    }
+
+    /**
+     * Bỏ dữ liệu, chỉ ngủ đúng khoảng thời gian mà dữ liệu đó lẽ ra được phát
+     */
+    class Null implements AudioSink {
+        private final long nanosPerByte;
+        private long nextWriteNanos = System.nanoTime();
+
+        public Null(AudioFormat format) {
+            this.nanosPerByte = (long) (1_000_000_000L / (format.getFrameRate() * format.getFrameSize()));
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            nextWriteNanos = Math.max(nextWriteNanos, System.nanoTime() - 50_000_000L) + length * nanosPerByte;
+            long sleepNanos = nextWriteNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -1,5 +1,7 @@
 // Blackjack.java
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -9,19 +11,35 @@ import java.util.Random;
  * Class Blackjack - Engine chính của game Blackjack
  * Chứa toàn bộ logic game, quản lý trạng thái và xử lý luật chơi
  * Hỗ trợ multiplayer (1-3 người chơi) với hệ thống cược tiền
+ *
+ * Mỗi người chơi có thể chơi tối đa MAX_HANDS_PER_PLAYER tay trong một ván.
+ * Các danh sách bài/điểm/kết quả/cược được đánh số theo ô (box): box = tay * số_người_chơi + ghế,
+ * nên box 0..n-1 luôn là tay đầu tiên của từng ghế (giống hệt khi chỉ chơi một tay).
  */
 public class Blackjack implements Serializable {
-    private static final long serialVersionUID = 2L;
+    private static final long serialVersionUID = 3L;
+    static final int MAX_HANDS_PER_PLAYER = 5;
+
+    // Các kết quả engine có thể ghi, mã hóa thành một byte khi nén engine (writeCompact)
+    private static final String[] RESULT_CODES = {
+        "", "Blackjack!", "Hòa!", "Thua!", "Thắng!", "Five Card Charlie - Thắng!"
+    };
+    private static final int RESULT_LITERAL = 0xFF;
 
     ArrayList<Card> deck;
     Random random = new Random();
 
+    // Seed của ván hiện tại - ghi vào lịch sử ván bài để có thể replay chính xác
+    private static final Random SEED_SOURCE = new Random();
+    private long handSeed;
+    private boolean quiet = false; // Tắt log khi replay hàng loạt
+
     // Dealer
     ArrayList<Card> dealerHand;
     int dealerSum;
     int dealerAceCount;
 
-    // Quản lý nhiều người chơi
+    // Quản lý nhiều người chơi - bài, điểm và kết quả theo box
     private final int numberOfPlayers;
     List<ArrayList<Card>> playersHands;
     List<Integer> playersSums;
@@ -29,11 +47,13 @@ public class Blackjack implements Serializable {
     List<String> playersResults;
     
     // THÊM: Hệ thống cược tiền
-    List<Integer> playersMoneys;   // Số tiền của mỗi người
-    List<Integer> playersBets;     // Số tiền cược trong ván này
-    private static final int STARTING_MONEY = 1000; // Tiền khởi tạo
+    List<Integer> playersMoneys;   // Số tiền của mỗi người (theo ghế)
+    List<Integer> playersBets;     // Số tiền cược trong ván này (theo box)
+    static final int STARTING_MONEY = 1000; // Tiền khởi tạo
+    private final int[] handsPerPlayer; // Số tay mỗi ghế chơi trong ván này (0 = chưa cược)
     
     private int currentPlayerIndex;
+    private int currentHandIndex; // Tay đang chơi của ghế currentPlayerIndex
 
     public enum GameState {
         WAITING_FOR_PLAYERS,
@@ -62,16 +82,13 @@ public class Blackjack implements Serializable {
         this.playersResults = new ArrayList<>();
         this.playersMoneys = new ArrayList<>();
         this.playersBets = new ArrayList<>();
+        this.handsPerPlayer = new int[numberOfPlayers];
         
         // Khởi tạo dữ liệu cho số người chơi
         for (int i = 0; i < numberOfPlayers; i++) {
-            playersHands.add(new ArrayList<>());
-            playersSums.add(0);
-            playersAceCounts.add(0);
-            playersResults.add("");
             playersMoneys.add(STARTING_MONEY); // Mỗi người bắt đầu với 1000$
-            playersBets.add(0);
         }
+        ensureBoxes(1);
 
         dealerHand = new ArrayList<>();
         dealerSum = 0;
@@ -92,32 +109,81 @@ public class Blackjack implements Serializable {
      * - Chuẩn bị cho người chơi đặt cược
      */
     public void startGame() {
-        // Reset cho ván mới
+        startGame(SEED_SOURCE.nextLong());
+    }
+
+    /**
+     * Bắt đầu ván bài mới với seed xác định
+     * @param seed Seed dùng để xáo bài - cùng seed và cùng chuỗi quyết định sẽ cho ra cùng kết quả
+     */
+    public void startGame(long seed) {
+        this.handSeed = seed;
+        random.setSeed(seed);
+        clearRound();
+
+        // THÊM: Reset bộ bài mới cho ván mới để tránh hết bài
+        buildDeck();
+        shuffleDeck();
+        log("🃏 Đã tạo bộ bài mới với " + deck.size() + " lá bài");
+
+        // Chuyển sang trạng thái đặt cược
+        currentGameState = GameState.BETTING;
+        log("Game bắt đầu! Trạng thái: BETTING");
+    }
+
+    /**
+     * Đưa engine về trạng thái như vừa tạo để dùng lại cho một bàn khác (TablePool)
+     * Các danh sách được xóa và dùng lại thay vì tạo mới
+     */
+    public void reset() {
+        quiet = false;
+        handSeed = 0;
+        clearRound();
+        for (int i = 0; i < numberOfPlayers; i++) {
+            playersMoneys.set(i, STARTING_MONEY);
+        }
+        currentGameState = GameState.WAITING_FOR_PLAYERS;
+    }
+
+    // Xóa dữ liệu của ván trước: mỗi ghế quay về một box trống
+    private void clearRound() {
+        while (playersHands.size() > numberOfPlayers) {
+            int last = playersHands.size() - 1;
+            playersHands.remove(last);
+            playersSums.remove(last);
+            playersAceCounts.remove(last);
+            playersResults.remove(last);
+            playersBets.remove(last);
+        }
         for (int i = 0; i < numberOfPlayers; i++) {
             playersHands.get(i).clear();
             playersSums.set(i, 0);
             playersAceCounts.set(i, 0);
             playersResults.set(i, "");
             playersBets.set(i, 0); // Reset cược
+            handsPerPlayer[i] = 0;
         }
 
         dealerHand.clear();
         dealerSum = 0;
         dealerAceCount = 0;
         currentPlayerIndex = 0;
-
-        // THÊM: Reset bộ bài mới cho ván mới để tránh hết bài
-        buildDeck();
-        shuffleDeck();
-        System.out.println("🃏 Đã tạo bộ bài mới với " + deck.size() + " lá bài");
-
-        // Chuyển sang trạng thái đặt cược
-        currentGameState = GameState.BETTING;
-        System.out.println("Game bắt đầu! Trạng thái: BETTING");
+        currentHandIndex = 0;
     }
 
-    // THÊM: Phương thức đặt cược
+    // THÊM: Phương thức đặt cược (một tay)
     public boolean placeBet(int playerId, int betAmount) {
+        return placeBets(playerId, new int[] { betAmount });
+    }
+
+    /**
+     * Đặt cược cho nhiều tay của một ghế trong một lần
+     * Nếu ghế đã cược trong ván này thì cược cũ được hoàn lại và thay bằng cược mới.
+     * @param playerId Ghế đặt cược
+     * @param betAmounts Số tiền cược cho từng tay (1..MAX_HANDS_PER_PLAYER tay, mỗi tay > 0)
+     * @return true nếu cược hợp lệ và đã được đặt
+     */
+    public boolean placeBets(int playerId, int[] betAmounts) {
         if (currentGameState != GameState.BETTING) {
             return false;
         }
@@ -125,22 +191,39 @@ public class Blackjack implements Serializable {
         if (playerId < 0 || playerId >= numberOfPlayers) {
             return false;
         }
+        if (betAmounts.length < 1 || betAmounts.length > MAX_HANDS_PER_PLAYER) {
+            return false;
+        }
         
-        int playerMoney = playersMoneys.get(playerId);
-        if (betAmount <= 0 || betAmount > playerMoney) {
+        int playerMoney = playersMoneys.get(playerId) + getTotalBet(playerId); // Tính cả cược cũ sẽ được hoàn
+        long total = 0;
+        for (int betAmount : betAmounts) {
+            if (betAmount <= 0) {
+                return false;
+            }
+            total += betAmount;
+        }
+        if (total > playerMoney) {
             return false;
         }
         
-        // Đặt cược
-        playersBets.set(playerId, betAmount);
-        playersMoneys.set(playerId, playerMoney - betAmount);
+        // Hoàn cược cũ (nếu có) rồi đặt cược mới
+        for (int hand = 0; hand < handsPerPlayer[playerId]; hand++) {
+            playersBets.set(box(hand, playerId), 0);
+        }
+        ensureBoxes(betAmounts.length);
+        for (int hand = 0; hand < betAmounts.length; hand++) {
+            playersBets.set(box(hand, playerId), betAmounts[hand]);
+        }
+        handsPerPlayer[playerId] = betAmounts.length;
+        playersMoneys.set(playerId, playerMoney - (int) total);
         
-        System.out.println("Player " + playerId + " đã cược " + betAmount + "$");
+        log("Player " + playerId + " đã cược " + total + "$ cho " + betAmounts.length + " tay");
         
         // Kiểm tra xem tất cả người chơi đã đặt cược chưa
         boolean allPlayersBet = true;
         for (int i = 0; i < numberOfPlayers; i++) {
-            if (playersBets.get(i) == 0) {
+            if (handsPerPlayer[i] == 0) {
                 allPlayersBet = false;
                 break;
             }
@@ -157,10 +240,11 @@ public class Blackjack implements Serializable {
 
     // THÊM: Chia bài ban đầu
     private void dealInitialCards() {
-        // Chia 2 lá cho mỗi người chơi và dealer
+        // Chia 2 lá cho mỗi tay đang chơi và dealer
         for (int round = 0; round < 2; round++) {
-            // Chia cho người chơi trước
-            for (int i = 0; i < numberOfPlayers; i++) {
+            // Chia cho người chơi trước, theo thứ tự box
+            for (int i = 0; i < playersHands.size(); i++) {
+                if (!isBoxInPlay(i)) continue;
                 Card card = deck.remove(deck.size() - 1);
                 playersHands.get(i).add(card);
                 playersSums.set(i, playersSums.get(i) + card.getValue());
@@ -182,8 +266,8 @@ public class Blackjack implements Serializable {
             }
         }
         
-        // Tính điểm chính xác cho tất cả players từ đầu
-        for (int i = 0; i < numberOfPlayers; i++) {
+        // Tính điểm chính xác cho tất cả các tay từ đầu
+        for (int i = 0; i < playersHands.size(); i++) {
             int totalSum = 0;
             int aceCount = 0;
             
@@ -204,11 +288,13 @@ public class Blackjack implements Serializable {
         // Kiểm tra Blackjack tự nhiên
         checkNaturalBlackjacks();
         
-        // Nếu không có ai có Blackjack, bắt đầu lượt chơi
+        // Nếu dealer không có Blackjack, các tay chưa được thanh toán bắt đầu lượt chơi
         if (currentGameState == GameState.DEALING) {
             currentGameState = GameState.PLAYER_TURN;
             currentPlayerIndex = 0;
-            System.out.println("Đã chia bài xong! Chuyển sang PLAYER_TURN");
+            currentHandIndex = 0;
+            log("Đã chia bài xong! Chuyển sang PLAYER_TURN");
+            advanceToPlayableHand();
         }
     }
     
@@ -228,47 +314,50 @@ public class Blackjack implements Serializable {
             dealerHasBlackjack = true;
         }
         
-        // Kiểm tra players có blackjack không
-        for (int i = 0; i < numberOfPlayers; i++) {
-            if (playersSums.get(i) == 21) {
+        // Kiểm tra các tay có blackjack không
+        for (int i = 0; i < playersHands.size(); i++) {
+            if (isBoxInPlay(i) && playersSums.get(i) == 21) {
                 anyPlayerHasBlackjack = true;
                 playersResults.set(i, "Blackjack!");
             }
         }
         
-        // Nếu có Blackjack, xử lý ngay
-        if (anyPlayerHasBlackjack || dealerHasBlackjack) {
-            // Lật lá ẩn của dealer
+        // Dealer có Blackjack: lật lá ẩn và thanh toán mọi tay ngay
+        if (dealerHasBlackjack) {
             dealerSum = dealerTotal;
             dealerAceCount = dealerAces;
             
             currentGameState = GameState.GAME_OVER;
-            determineBlackjackResults(dealerHasBlackjack);
+            determineBlackjackResults(true);
+        } else if (anyPlayerHasBlackjack) {
+            // Chỉ thanh toán các tay có Blackjack; các tay khác (kể cả tay khác của cùng ghế) vẫn chơi tiếp
+            determineBlackjackResults(false);
         }
     }
     
     // THÊM: Xử lý kết quả khi có Blackjack
+    // Khi dealer không có Blackjack, chỉ các tay có Blackjack được thanh toán, các tay khác giữ nguyên
     private void determineBlackjackResults(boolean dealerHasBlackjack) {
-        for (int i = 0; i < numberOfPlayers; i++) {
+        for (int i = 0; i < playersHands.size(); i++) {
+            if (!isBoxInPlay(i)) continue;
+            if (!dealerHasBlackjack && playersSums.get(i) != 21) continue;
+            int seat = i % numberOfPlayers;
             int playerSum = playersSums.get(i);
             int betAmount = playersBets.get(i);
-            int currentMoney = playersMoneys.get(i);
+            int currentMoney = playersMoneys.get(seat);
             
             if (playerSum == 21 && dealerSum == 21) {
                 // Cả hai đều có Blackjack = Hòa
                 playersResults.set(i, "Hòa!");
-                playersMoneys.set(i, currentMoney + betAmount); // Hoàn tiền
+                playersMoneys.set(seat, currentMoney + betAmount); // Hoàn tiền
             } else if (playerSum == 21) {
-                // Chỉ player có Blackjack = Thắng 3:2
+                // Chỉ player có Blackjack = Thắng 3:2 (dealer đã được kiểm tra không có Blackjack)
                 playersResults.set(i, "Blackjack!");
-                playersMoneys.set(i, currentMoney + betAmount + (betAmount * 3 / 2)); // Hoàn tiền + thắng 1.5x
-            } else if (dealerSum == 21) {
+                playersMoneys.set(seat, currentMoney + betAmount + (betAmount * 3 / 2)); // Hoàn tiền + thắng 1.5x
+            } else {
                 // Chỉ dealer có Blackjack = Player thua
                 playersResults.set(i, "Thua!");
                 // Tiền đã bị trừ khi đặt cược
-            } else {
-                // Không ai có Blackjack, tiếp tục game bình thường
-                playersResults.set(i, "");
             }
         }
     }
@@ -277,34 +366,35 @@ public class Blackjack implements Serializable {
         if (currentGameState != GameState.PLAYER_TURN || currentPlayerIndex >= numberOfPlayers) {
             return;
         }
+        int current = box(currentHandIndex, currentPlayerIndex);
 
         // Kiểm tra giới hạn tối đa 5 lá bài
-        if (playersHands.get(currentPlayerIndex).size() >= 5) {
-            System.out.println("Player " + currentPlayerIndex + " đã đạt giới hạn tối đa 5 lá bài!");
+        if (playersHands.get(current).size() >= 5) {
+            log("Player " + currentPlayerIndex + " đã đạt giới hạn tối đa 5 lá bài!");
             return;
         }
 
         // Kiểm tra nếu đã đạt 21 điểm thì không được rút thêm
-        if (playersSums.get(currentPlayerIndex) == 21) {
-            System.out.println("Player " + currentPlayerIndex + " đã đạt 21 điểm, không thể rút thêm bài!");
+        if (playersSums.get(current) == 21) {
+            log("Player " + currentPlayerIndex + " đã đạt 21 điểm, không thể rút thêm bài!");
             return;
         }
 
         // Kiểm tra nếu deck còn bài
         if (deck.isEmpty()) {
-            System.out.println("Hết bài! Tạo bộ bài mới...");
+            log("Hết bài! Tạo bộ bài mới...");
             buildDeck();
             shuffleDeck();
         }
 
         Card card = deck.remove(deck.size() - 1);
-        playersHands.get(currentPlayerIndex).add(card);
+        playersHands.get(current).add(card);
         
         // Tính lại toàn bộ điểm từ đầu để đảm bảo chính xác
         int totalSum = 0;
         int aceCount = 0;
         
-        for (Card c : playersHands.get(currentPlayerIndex)) {
+        for (Card c : playersHands.get(current)) {
             totalSum += c.getValue();
             if (c.isAce()) {
                 aceCount++;
@@ -315,25 +405,25 @@ public class Blackjack implements Serializable {
         int finalSum = calculateOptimalScore(totalSum, aceCount);
         
         // Cập nhật điểm và số A
-        playersSums.set(currentPlayerIndex, finalSum);
-        playersAceCounts.set(currentPlayerIndex, aceCount);
+        playersSums.set(current, finalSum);
+        playersAceCounts.set(current, aceCount);
 
         // Kiểm tra nếu quá 21 điểm
         if (finalSum > 21) {
             // Player bị bust - thua ngay lập tức
-            playersResults.set(currentPlayerIndex, "Thua!");
-            System.out.println("Player " + currentPlayerIndex + " bị bust với " + finalSum + " điểm!");
+            playersResults.set(current, "Thua!");
+            log("Player " + currentPlayerIndex + " bị bust với " + finalSum + " điểm!");
             playerStand(); // Chuyển lượt cho người tiếp theo
         } 
         // Kiểm tra Five Card Charlie (5 lá không quá 21 = thắng tự động)
-        else if (playersHands.get(currentPlayerIndex).size() == 5) {
-            playersResults.set(currentPlayerIndex, "Five Card Charlie - Thắng!");
-            System.out.println("Player " + currentPlayerIndex + " đạt Five Card Charlie với " + finalSum + " điểm - Thắng tự động!");
+        else if (playersHands.get(current).size() == 5) {
+            playersResults.set(current, "Five Card Charlie - Thắng!");
+            log("Player " + currentPlayerIndex + " đạt Five Card Charlie với " + finalSum + " điểm - Thắng tự động!");
             playerStand(); // Chuyển lượt cho người tiếp theo
         }
         // Kiểm tra Blackjack (21 điểm)
         else if (finalSum == 21) {
-            System.out.println("Player " + currentPlayerIndex + " đạt 21 điểm!");
+            log("Player " + currentPlayerIndex + " đạt 21 điểm!");
             playerStand(); // Tự động stand khi đạt 21
         }
     }
@@ -343,17 +433,31 @@ public class Blackjack implements Serializable {
             return;
         }
 
-        currentPlayerIndex++;
-        if (currentPlayerIndex >= numberOfPlayers) {
-            // Tất cả người chơi đã chơi xong
-            currentGameState = GameState.DEALER_TURN;
-            dealerPlay();
+        // Chuyển sang tay tiếp theo của ghế, hết tay thì sang ghế tiếp theo
+        currentHandIndex++;
+        advanceToPlayableHand();
+    }
+
+    // Bỏ qua các tay không chơi hoặc đã được thanh toán (Blackjack tự nhiên); hết tay thì tới lượt dealer
+    private void advanceToPlayableHand() {
+        while (currentPlayerIndex < numberOfPlayers) {
+            if (currentHandIndex >= handsPerPlayer[currentPlayerIndex]) {
+                currentHandIndex = 0;
+                currentPlayerIndex++;
+            } else if (isBoxSettled(box(currentHandIndex, currentPlayerIndex))) {
+                currentHandIndex++;
+            } else {
+                return;
+            }
         }
+        // Tất cả người chơi đã chơi xong
+        currentGameState = GameState.DEALER_TURN;
+        dealerPlay();
     }
     
     private void dealerPlay() {
         // Lật lá ẩn của dealer và tính lại điểm từ đầu
-        System.out.println("Dealer bắt đầu chơi...");
+        log("Dealer bắt đầu chơi...");
         
         // Tính lại điểm dealer từ tất cả lá bài hiện có
         dealerSum = 0;
@@ -366,10 +470,10 @@ public class Blackjack implements Serializable {
         }
         dealerSum = calculateOptimalScore(dealerSum, dealerAceCount);
         
-        System.out.println("Điểm dealer ban đầu: " + dealerSum);
+        log("Điểm dealer ban đầu: " + dealerSum);
         
-        // Dealer rút bài cho đến khi >= 17
-        while (dealerSum < 17) {
+        // Dealer rút bài cho đến khi >= 17 (không cần rút nếu mọi tay đã được thanh toán bằng Blackjack)
+        while (dealerSum < 17 && anyBoxAwaitingDealer()) {
             Card card = deck.remove(deck.size() - 1);
             dealerHand.add(card);
             
@@ -384,10 +488,10 @@ public class Blackjack implements Serializable {
             }
             dealerSum = calculateOptimalScore(dealerSum, dealerAceCount);
             
-            System.out.println("Dealer rút " + card + ", tổng điểm: " + dealerSum);
+            log("Dealer rút " + card + ", tổng điểm: " + dealerSum);
         }
         
-        System.out.println("Dealer kết thúc với " + dealerSum + " điểm");
+        log("Dealer kết thúc với " + dealerSum + " điểm");
         
         // Kết thúc game và tính kết quả
         currentGameState = GameState.GAME_OVER;
@@ -395,10 +499,12 @@ public class Blackjack implements Serializable {
     }
 
     private void determineFinalResults() {
-        for (int i = 0; i < numberOfPlayers; i++) {
+        for (int i = 0; i < playersHands.size(); i++) {
+            if (!isBoxInPlay(i) || isBoxSettled(i)) continue;
+            int seat = i % numberOfPlayers;
             int playerSum = playersSums.get(i);
             int betAmount = playersBets.get(i);
-            int currentMoney = playersMoneys.get(i);
+            int currentMoney = playersMoneys.get(seat);
             
             // Kiểm tra nếu player đã bị đánh dấu thua trước đó (quá 21)
             String currentResult = playersResults.get(i);
@@ -407,7 +513,7 @@ public class Blackjack implements Serializable {
                 if (dealerSum > 21) {
                     // Cả hai đều quá 21 -> Hòa
                     playersResults.set(i, "Hòa!");
-                    playersMoneys.set(i, currentMoney + betAmount); // Hoàn tiền cược
+                    playersMoneys.set(seat, currentMoney + betAmount); // Hoàn tiền cược
                 }
                 // Nếu dealer không quá 21, player vẫn thua (giữ nguyên kết quả)
                 continue;
@@ -418,22 +524,22 @@ public class Blackjack implements Serializable {
                 // Player bust (trường hợp này không nên xảy ra vì đã xử lý ở trên)
                 if (dealerSum > 21) {
                     playersResults.set(i, "Hòa!");
-                    playersMoneys.set(i, currentMoney + betAmount);
+                    playersMoneys.set(seat, currentMoney + betAmount);
                 } else {
                     playersResults.set(i, "Thua!");
                 }
             } else if (dealerSum > 21) {
                 // Dealer bust, player thắng
                 playersResults.set(i, "Thắng!");
-                playersMoneys.set(i, currentMoney + betAmount * 2); // Hoàn tiền + thắng 1:1
+                playersMoneys.set(seat, currentMoney + betAmount * 2); // Hoàn tiền + thắng 1:1
             } else if (playerSum > dealerSum) {
                 // Player có điểm cao hơn
                 playersResults.set(i, "Thắng!");
-                playersMoneys.set(i, currentMoney + betAmount * 2);
+                playersMoneys.set(seat, currentMoney + betAmount * 2);
             } else if (playerSum == dealerSum) {
                 // Hòa
                 playersResults.set(i, "Hòa!");
-                playersMoneys.set(i, currentMoney + betAmount); // Hoàn tiền cược
+                playersMoneys.set(seat, currentMoney + betAmount); // Hoàn tiền cược
             } else {
                 // Player thua
                 playersResults.set(i, "Thua!");
@@ -444,19 +550,92 @@ public class Blackjack implements Serializable {
     
     // Getters cho hệ thống cược
     public List<Integer> getPlayersMoneys() { return playersMoneys; }
+
+    /**
+     * Đặt số tiền của người chơi (dùng khi replay hoặc khôi phục số dư)
+     * @param playerId ID người chơi
+     * @param money Số tiền mới
+     */
+    public void setPlayerMoney(int playerId, int money) {
+        if (playerId >= 0 && playerId < numberOfPlayers) {
+            playersMoneys.set(playerId, money);
+        }
+    }
     public List<Integer> getPlayersBets() { return playersBets; }
+
+    /**
+     * @param playerId Ghế
+     * @return Tổng tiền cược của ghế trên mọi tay trong ván này
+     */
+    public int getTotalBet(int playerId) {
+        int total = 0;
+        for (int hand = 0; hand < handsPerPlayer[playerId]; hand++) {
+            total += playersBets.get(box(hand, playerId));
+        }
+        return total;
+    }
+
+    /** @return Ghế đã đặt cược trong ván này chưa */
+    public boolean hasBet(int playerId) {
+        return handsPerPlayer[playerId] > 0;
+    }
+
+    /** @return Số tay mỗi ghế chơi trong ván này (0 = chưa cược) */
+    public List<Integer> getHandsPerPlayer() {
+        List<Integer> hands = new ArrayList<>();
+        for (int count : handsPerPlayer) {
+            hands.add(count);
+        }
+        return hands;
+    }
+
+    /** @return Số tay ghế playerId chơi trong ván này (0 = chưa cược) */
+    public int getHandCount(int playerId) {
+        return handsPerPlayer[playerId];
+    }
+
+    // Vị trí box của một tay trong các danh sách theo box
+    private int box(int hand, int playerId) {
+        return hand * numberOfPlayers + playerId;
+    }
+
+    private boolean isBoxInPlay(int box) {
+        return box / numberOfPlayers < handsPerPlayer[box % numberOfPlayers];
+    }
+
+    private boolean anyBoxAwaitingDealer() {
+        for (int i = 0; i < playersHands.size(); i++) {
+            if (isBoxInPlay(i) && !isBoxSettled(i)) return true;
+        }
+        return false;
+    }
+
+    // Tay đã được thanh toán ngay khi chia bài: kết quả "Blackjack!" chỉ được đặt ở checkNaturalBlackjacks
+    private boolean isBoxSettled(int box) {
+        return "Blackjack!".equals(playersResults.get(box));
+    }
+
+    // Mở rộng các danh sách theo box để chứa đủ số tay cho mọi ghế
+    private void ensureBoxes(int hands) {
+        while (playersHands.size() < hands * numberOfPlayers) {
+            playersHands.add(new ArrayList<>());
+            playersSums.add(0);
+            playersAceCounts.add(0);
+            playersResults.add("");
+            playersBets.add(0);
+        }
+    }
     
     // Các phương thức khác giữ nguyên...
+    // Bộ bài 52 lá theo thứ tự chuẩn, gồm các lá bài dùng chung; danh sách được dùng lại giữa các ván
     public void buildDeck() {
-        deck = new ArrayList<>();
-        String[] values = {"A", "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K"};
-        String[] types = {"C", "D", "H", "S"};
-
-        for (String type : types) {
-            for (String value : values) {
-                Card card = new Card(value, type);
-                deck.add(card);
-            }
+        if (deck == null) {
+            deck = new ArrayList<>(Card.BACK_ORDINAL);
+        } else {
+            deck.clear();
+        }
+        for (int ordinal = 0; ordinal < Card.BACK_ORDINAL; ordinal++) {
+            deck.add(Card.fromOrdinal(ordinal));
         }
     }
 
@@ -500,7 +679,7 @@ public class Blackjack implements Serializable {
     public List<Integer> getPlayersSums() { 
         // Đảm bảo tất cả điểm đều được tính chính xác với A
         List<Integer> correctSums = new ArrayList<>();
-        for (int i = 0; i < numberOfPlayers; i++) {
+        for (int i = 0; i < playersSums.size(); i++) {
             int rawSum = playersSums.get(i);
             int aceCount = playersAceCounts.get(i);
             correctSums.add(calculateOptimalScore(rawSum, aceCount));
@@ -508,9 +687,9 @@ public class Blackjack implements Serializable {
         return correctSums;
     }
     
-    // Getter cho điểm của một player cụ thể
+    // Getter cho điểm của một box cụ thể (box 0..n-1 là tay đầu của từng ghế)
     public int getPlayerSum(int playerIndex) {
-        if (playerIndex >= 0 && playerIndex < numberOfPlayers) {
+        if (playerIndex >= 0 && playerIndex < playersSums.size()) {
             int rawSum = playersSums.get(playerIndex);
             int aceCount = playersAceCounts.get(playerIndex);
             return calculateOptimalScore(rawSum, aceCount);
@@ -539,4 +718,122 @@ public class Blackjack implements Serializable {
     
     public GameState getCurrentGameState() { return currentGameState; }
     public int getCurrentPlayerIndex() { return currentPlayerIndex; }
+    public int getCurrentHandIndex() { return currentHandIndex; }
+
+    /** @return Điểm của tay đang chơi (chỉ có nghĩa trong PLAYER_TURN) */
+    public int getCurrentHandSum() { return playersSums.get(box(currentHandIndex, currentPlayerIndex)); }
+    public int getNumberOfPlayers() { return numberOfPlayers; }
+    public long getHandSeed() { return handSeed; }
+
+    public void setQuiet(boolean quiet) { this.quiet = quiet; }
+
+    /**
+     * Nén toàn bộ trạng thái ván vào buffer dạng nhị phân gọn (lá bài = 1 byte, kết quả = 1 byte)
+     * Dùng để cất bàn đang nghỉ ra ngoài heap (DormantTableStore) và trong snapshot chuyển giao bàn
+     * (TableHandoff) - đổi định dạng này thì phải tăng TableHandoff.SNAPSHOT_VERSION.
+     * Random không được ghi: nó chỉ dùng để xáo bài đầu ván, và mỗi ván mới đều đặt lại seed.
+     * @param out Buffer đích
+     * @throws java.nio.BufferOverflowException nếu buffer không đủ chỗ
+     */
+    public void writeCompact(ByteBuffer out) {
+        out.put((byte) numberOfPlayers);
+        out.put((byte) currentGameState.ordinal());
+        out.putLong(handSeed);
+        out.put((byte) currentPlayerIndex);
+        out.put((byte) currentHandIndex);
+        writeCards(out, deck);
+        writeCards(out, dealerHand);
+        out.putShort((short) dealerSum);
+        out.put((byte) dealerAceCount);
+        for (int i = 0; i < numberOfPlayers; i++) {
+            out.putInt(playersMoneys.get(i));
+            out.put((byte) handsPerPlayer[i]);
+        }
+        out.put((byte) playersHands.size());
+        for (int box = 0; box < playersHands.size(); box++) {
+            writeCards(out, playersHands.get(box));
+            out.putShort(playersSums.get(box).shortValue());
+            out.put(playersAceCounts.get(box).byteValue());
+            out.putInt(playersBets.get(box));
+            writeResult(out, playersResults.get(box));
+        }
+    }
+
+    /**
+     * Nạp lại trạng thái đã nén bằng writeCompact, ghi đè toàn bộ ván hiện tại của engine này
+     * @param in Buffer nguồn
+     * @throws IllegalArgumentException nếu dữ liệu thuộc engine có số người chơi khác
+     */
+    public void readCompact(ByteBuffer in) {
+        int players = in.get();
+        if (players != numberOfPlayers) {
+            throw new IllegalArgumentException("Trạng thái nén của bàn " + players + " người, engine có " + numberOfPlayers);
+        }
+        clearRound();
+        currentGameState = GameState.values()[in.get()];
+        handSeed = in.getLong();
+        currentPlayerIndex = in.get();
+        currentHandIndex = in.get();
+        readCards(in, deck);
+        readCards(in, dealerHand);
+        dealerSum = in.getShort();
+        dealerAceCount = in.get();
+        for (int i = 0; i < numberOfPlayers; i++) {
+            playersMoneys.set(i, in.getInt());
+            handsPerPlayer[i] = in.get();
+        }
+        int boxes = in.get();
+        ensureBoxes(boxes / numberOfPlayers);
+        for (int box = 0; box < boxes; box++) {
+            readCards(in, playersHands.get(box));
+            playersSums.set(box, (int) in.getShort());
+            playersAceCounts.set(box, (int) in.get());
+            playersBets.set(box, in.getInt());
+            playersResults.set(box, readResult(in));
+        }
+    }
+
+    private static void writeCards(ByteBuffer out, List<Card> cards) {
+        out.put((byte) cards.size());
+        for (Card card : cards) {
+            out.put((byte) card.ordinal());
+        }
+    }
+
+    private static void readCards(ByteBuffer in, List<Card> cards) {
+        cards.clear();
+        int count = in.get();
+        for (int i = 0; i < count; i++) {
+            cards.add(Card.fromOrdinal(in.get()));
+        }
+    }
+
+    private static void writeResult(ByteBuffer out, String result) {
+        for (int code = 0; code < RESULT_CODES.length; code++) {
+            if (RESULT_CODES[code].equals(result)) {
+                out.put((byte) code);
+                return;
+            }
+        }
+        byte[] bytes = result.getBytes(StandardCharsets.UTF_8);
+        out.put((byte) RESULT_LITERAL);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String readResult(ByteBuffer in) {
+        int code = in.get() & 0xFF;
+        if (code != RESULT_LITERAL) {
+            return RESULT_CODES[code];
+        }
+        byte[] bytes = new byte[in.getShort()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void log(String message) {
+        if (!quiet) {
+            System.out.println(message);
+        }
+    }
 }
\ No newline at end of file
@@ -1,10 +1,17 @@
 // BlackjackClient.java (with Debugging for Sound)
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
 import java.io.*;
 import java.net.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.*;
 
 /**
@@ -14,57 +21,6 @@ import javax.swing.*;
  */
 public class BlackjackClient {
     
-    /**
-     * Inner Class AnimatingCard - Quản lý hiệu ứng di chuyển của lá bài
-     * Tạo animation mượt mà khi chia bài từ deck đến vị trí người chơi
-     */
-    private class AnimatingCard {
-        Card card;
-        double startX, startY, destX, destY;
-        double currentX, currentY;
-        int totalSteps = 30;
-        int currentStep = 0;
-
-        /**
-         * Constructor tạo animation cho lá bài
-         * @param card Lá bài cần animate
-         * @param startX Tọa độ X bắt đầu
-         * @param startY Tọa độ Y bắt đầu  
-         * @param destX Tọa độ X đích
-         * @param destY Tọa độ Y đích
-         */
-        AnimatingCard(Card card, int startX, int startY, int destX, int destY) {
-            this.card = card;
-            this.startX = startX;
-            this.startY = startY;
-            this.destX = destX;
-            this.destY = destY;
-            this.currentX = startX;
-            this.currentY = startY;
-        }
-
-        public boolean update() {
-            currentStep++;
-            if (currentStep >= totalSteps) {
-                currentX = destX;
-                currentY = destY;
-                return true;
-            }
-            double progress = (double) currentStep / totalSteps;
-            double easedProgress = 1 - Math.pow(1 - progress, 3);
-            currentX = startX + (destX - startX) * easedProgress;
-            currentY = startY + (destY - startY) * easedProgress;
-            return false;
-        }
-
-        public void draw(Graphics g) {
-            Image img = getCardImage(this.card);
-            if (img != null) {
-                g.drawImage(img, (int)currentX, (int)currentY, 110, 154, null);
-            }
-        }
-    }
-
     // --- Các hằng số và thuộc tính ---
     private String serverHost = "localhost";
     private int serverPort = 12345;
@@ -81,9 +37,15 @@ public class BlackjackClient {
     private final String WIN_SOUND = "resource/sounds/win.wav";
     private final String LOSE_SOUND = "resource/sounds/lose.wav";
 
-    private ObjectOutputStream out;
+    private volatile ObjectOutputStream out;
     private ObjectInputStream in;
-    private JFrame frame = new JFrame("Blackjack");
+    private Socket socket;
+
+    // Resume token do server cấp khi handshake, dùng để giữ ghế khi mạng chập chờn
+    private volatile String resumeToken;
+    private static final long RESUME_WINDOW_MS = 60_000; // Khớp với thời gian giữ ghế của server
+    private static final long MAX_RESUME_BACKOFF_MS = 5_000;
+    private JFrame frame; // Tạo trong initializeUI()
     private JPanel gamePanel;
     private JPanel buttonPanel = new JPanel();
     private JButton hitButton = new JButton("Rút");
@@ -98,11 +60,15 @@ public class BlackjackClient {
     private JButton bet20Button = new JButton("$20"); 
     private JButton bet50Button = new JButton("$50");
     private JButton bet100Button = new JButton("$100");
+    private JButton multiHandButton = new JButton("Nhiều tay");
+    private JButton autoPlayButton = new JButton("🤖 Tự chơi");
     private JLabel moneyLabel = new JLabel("Tiền: $1000");
     private JLabel betLabel = new JLabel("Cược: $0");
     
     // --- Các biến trạng thái ---
     private String playerName;
+    private boolean spectating = false; // Chế độ xem: chỉ nhận trạng thái công khai, không gửi lệnh
+    private boolean autoPlaying = false; // Server đang tự cược và tự quyết định cho ghế này
     private List<String> playersNames = new ArrayList<>();
     private List<ArrayList<Card>> playersHands = new ArrayList<>();
     private List<Integer> playersSums = new ArrayList<>();
@@ -114,11 +80,20 @@ public class BlackjackClient {
     private int currentPlayerTurn;
     private int myPlayerId = -1;
     private Timer animationTimer;
-    private List<AnimatingCard> animatingCards = new CopyOnWriteArrayList<>();
-    private GameStateUpdate pendingUpdate = null;
+    private PerfOverlay perfOverlay;
+    private final CardAnimator cardAnimator = new CardAnimator();
+    private GameStateUpdate pendingUpdate = null; // Cập nhật đang chờ animation chia bài xong (chỉ dùng trên EDT)
+
+    // Hàng đợi message từ luồng giải mã sang EDT - giữ nguyên thứ tự, có giới hạn để không phình bộ nhớ
+    private static final int SERVER_QUEUE_CAPACITY = 256;
+    private final BlockingQueue<Object> serverMessages = new ArrayBlockingQueue<>(SERVER_QUEUE_CAPACITY);
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
 
     private List<Integer> playersMoneys = new ArrayList<>();
-    private List<Integer> playersBets = new ArrayList<>();
+    private List<Integer> playersBets = new ArrayList<>();      // Cược theo box (box = tay * số_người + ghế)
+    private List<Integer> handsPerPlayer = new ArrayList<>();   // Số tay của từng ghế trong ván này
+    private int currentHandIndex = 0;                           // Tay đang chơi của ghế tới lượt
+    private static final int HAND_LINE_HEIGHT = 18;             // Các tay thêm được vẽ thành dòng chữ dưới khu vực người chơi
 
     // Thêm các hằng số còn thiếu
     private static final Color TABLE_COLOR = new Color(0, 100, 0); // Xanh lá cây đậm
@@ -126,6 +101,33 @@ public class BlackjackClient {
     private static final Font TITLE_FONT = new Font("Serif", Font.BOLD, 24);
     private static final Font PLAYER_FONT = new Font("Arial", Font.BOLD, 18);
     private static final Font CARD_COUNT_FONT = new Font("Arial", Font.PLAIN, 14);
+    private static final Card CARD_BACK = new Card("BACK", "");
+
+    // Màu, font và nét vẽ dùng trong paint - tạo một lần thay vì mỗi frame
+    private static final Color WOOD_COLOR = new Color(139, 69, 19); // Nâu gỗ
+    private static final Color CENTER_OVAL_COLOR = new Color(0, 80, 0, 100);
+    private static final Color CARD_SHADOW_COLOR = new Color(0, 0, 0, 50);
+    private static final Color DECK_BORDER_COLOR = new Color(139, 69, 19, 150); // Màu nâu nhạt
+    private static final Color DEALER_AREA_COLOR = new Color(0, 0, 0, 30);
+    private static final Color MY_AREA_COLOR = new Color(255, 215, 0, 50);
+    private static final Color OTHER_AREA_COLOR = new Color(255, 255, 255, 30);
+    private static final Color LOCK_ICON_COLOR = new Color(255, 255, 255, 200);
+    private static final Color HIDDEN_LABEL_COLOR = new Color(255, 215, 0, 180);
+    private static final Color RESULTS_BG_COLOR = new Color(0, 0, 0, 150);
+    private static final Font LABEL_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final Font INFO_FONT = new Font("Arial", Font.BOLD, 14);
+    private static final Font PLACEHOLDER_FONT = new Font("Arial", Font.ITALIC, 12);
+    private static final Font ICON_FONT = new Font("Serif", Font.BOLD, 24);
+    private static final Font STATUS_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Font RESULTS_TITLE_FONT = new Font("Arial", Font.BOLD, 28);
+    private static final Font RESULT_FONT = new Font("Arial", Font.BOLD, 18);
+    private static final BasicStroke TABLE_BORDER_STROKE = new BasicStroke(8);
+    private static final BasicStroke DECK_BORDER_STROKE = new BasicStroke(2);
+    private static final BasicStroke RESULTS_BORDER_STROKE = new BasicStroke(3);
+    private static final BasicStroke ARROW_STROKE = new BasicStroke(4);
+
+    // Lớp nền tĩnh (nỉ, viền, tiêu đề, bộ bài) vẽ sẵn một lần, chỉ vẽ lại khi panel đổi kích thước
+    private BufferedImage tableLayer;
 
     
     private int calculatePlayerScore(ArrayList<Card> hand) {
@@ -153,7 +155,16 @@ public class BlackjackClient {
 
     // Hàm khởi tạo client
     public BlackjackClient(String playerName, int volumeLevel, String serverIP, int serverPort) {
+        this(playerName, volumeLevel, serverIP, serverPort, false);
+    }
+
+    /**
+     * Constructor đầy đủ
+     * @param spectating true để xem bàn nổi bật của server thay vì ngồi vào bàn
+     */
+    public BlackjackClient(String playerName, int volumeLevel, String serverIP, int serverPort, boolean spectating) {
         this.playerName = playerName;
+        this.spectating = spectating;
         this.serverHost = serverIP;
         this.serverPort = serverPort;
         initializeUI();
@@ -190,42 +201,49 @@ public class BlackjackClient {
         if (playerName == null || playerName.trim().isEmpty()) {
             while (playerName == null || playerName.trim().isEmpty()) {
                 playerName = JOptionPane.showInputDialog(
-                    frame, "Nhập tên của bạn:", "Chào mừng đến với Blackjack", JOptionPane.PLAIN_MESSAGE
+                    null, "Nhập tên của bạn:", "Chào mừng đến với Blackjack", JOptionPane.PLAIN_MESSAGE
                 );
                 if (playerName == null) System.exit(0); 
             }
         }
-        frame.setTitle("Blackjack - " + playerName);
     }
     
     private void initializeAnimationTimer() {
-        animationTimer = new Timer(15, e -> {
-            animatingCards.removeIf(AnimatingCard::update);
-            gamePanel.repaint();
+        // Timer chỉ dùng để nhịp frame; vị trí lá bài tính theo thời gian thực trong CardAnimator.
+        // Timer coalesce các tick bị trễ nên EDT bận không làm dồn repaint.
+        animationTimer = new Timer(CardAnimator.FRAME_INTERVAL_MS, e -> {
+            // Chỉ vẽ lại vùng lá bài vừa rời đi và vùng nó vừa tới
+            boolean idle = cardAnimator.tick(System.nanoTime(), gamePanel::repaint);
 
-            if (animatingCards.isEmpty()) {
+            if (idle) {
                 animationTimer.stop();
                 if (pendingUpdate != null) {
-                    processStateUpdate(pendingUpdate);
+                    GameStateUpdate update = pendingUpdate;
                     pendingUpdate = null;
+                    processStateUpdate(update);
+                    drainServerMessages(); // Tiếp tục các message đã xếp hàng trong lúc animation
                 }
             }
         });
     }
 
     private void initializeUI() {
+        AssetWarmup.start(); // Không làm gì nếu Main đã bắt đầu nạp trước
         gamePanel = new JPanel() {
             @Override
             protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
+                // Không gọi super.paintComponent: lớp nền tĩnh đã phủ kín panel
+                long paintStart = System.nanoTime();
                 Graphics2D g2d = (Graphics2D) g;
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 drawGame(g2d);
+                perfOverlay.recordFrame(System.nanoTime() - paintStart);
+                perfOverlay.draw(g2d);
+                StartupTimer.mark("Bàn chơi vẽ frame đầu tiên");
             }
         };
         
-        frame = new JFrame("Blackjack - " + (playerName != null ? playerName : ""));
-        frame.setVisible(true);
+        frame = new JFrame("Blackjack - " + (spectating ? "Chế độ xem" : (playerName != null ? playerName : "")));
         frame.setSize(FRAME_WIDTH, FRAME_HEIGHT);
         frame.setLocationRelativeTo(null);
         frame.setResizable(false);
@@ -233,12 +251,32 @@ public class BlackjackClient {
 
         gamePanel.setLayout(new BorderLayout());
         gamePanel.setBackground(TABLE_COLOR);
+
+        // F3: bật/tắt overlay hiệu năng
+        perfOverlay = new PerfOverlay(gamePanel);
+        gamePanel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+            .put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "togglePerfOverlay");
+        gamePanel.getActionMap().put("togglePerfOverlay", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                perfOverlay.toggle();
+            }
+        });
+        gamePanel.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                tableLayer = null; // Vẽ lại lớp nền theo kích thước mới
+            }
+        });
         frame.add(gamePanel, BorderLayout.CENTER);
 
         setupButtonPanel();
         frame.add(buttonPanel, BorderLayout.SOUTH);
         
         disconnectButton.addActionListener(e -> {
+            // Báo server rời bàn hẳn để đối thủ không phải chờ giữ ghế
+            sendCommand("LEAVE");
+            closeSocket();
             // Quay về trang chủ thay vì thoát hoàn toàn
             frame.dispose();
             SwingUtilities.invokeLater(() -> new HomeScreen());
@@ -246,11 +284,11 @@ public class BlackjackClient {
 
         hitButton.addActionListener(e -> {
             SoundManager.getInstance().playSoundEffect(HIT_SOUND);
-            sendCommand("HIT");
+            sendCommand("HIT:" + currentHandIndex); // Kèm số tay để server bỏ qua lệnh gửi chậm
         });
         standButton.addActionListener(e -> {
             SoundManager.getInstance().playSoundEffect(CLICK_SOUND);
-            sendCommand("STAND");
+            sendCommand("STAND:" + currentHandIndex);
         });
         newGameButton.addActionListener(e -> {
             SoundManager.getInstance().playSoundEffect(CLICK_SOUND);
@@ -271,6 +309,9 @@ public class BlackjackClient {
         newGameButton.setVisible(false);
         acceptButton.setVisible(false);
         declineButton.setVisible(false);
+
+        // Hiển thị sau cùng, khi cây component đã dựng xong, để chỉ layout và vẽ một lần
+        frame.setVisible(true);
     }
     
     private void setupButtonPanel() {
@@ -291,6 +332,8 @@ public class BlackjackClient {
         styleButton(bet20Button, new Color(34, 139, 34), Color.WHITE);
         styleButton(bet50Button, new Color(34, 139, 34), Color.WHITE);
         styleButton(bet100Button, new Color(34, 139, 34), Color.WHITE);
+        styleButton(multiHandButton, new Color(0, 128, 128), Color.WHITE);
+        styleButton(autoPlayButton, new Color(75, 0, 130), Color.WHITE);
 
         disconnectButton.setText("🏠 Về trang chủ");
         disconnectButton.setPreferredSize(new Dimension(140, 35));
@@ -300,6 +343,8 @@ public class BlackjackClient {
         bet20Button.addActionListener(e -> placeBet(20));
         bet50Button.addActionListener(e -> placeBet(50));
         bet100Button.addActionListener(e -> placeBet(100));
+        multiHandButton.addActionListener(e -> placeMultiHandBets());
+        autoPlayButton.addActionListener(e -> toggleAutoPlay());
 
         // Thêm tất cả buttons
         buttonPanel.add(hitButton);
@@ -308,9 +353,11 @@ public class BlackjackClient {
         buttonPanel.add(bet20Button);
         buttonPanel.add(bet50Button);
         buttonPanel.add(bet100Button);
+        buttonPanel.add(multiHandButton);
         buttonPanel.add(newGameButton);
         buttonPanel.add(acceptButton);
         buttonPanel.add(declineButton);
+        buttonPanel.add(autoPlayButton);
         buttonPanel.add(disconnectButton);
 
         // Money và bet labels
@@ -363,14 +410,8 @@ public class BlackjackClient {
     }
 
     private void drawGame(Graphics2D g2d) {
-        // Vẽ background với gradient
-        drawTableBackground(g2d);
-        
-        // Vẽ logo/title
-        drawGameTitle(g2d);
-        
-        // Vẽ deck
-        drawDeck(g2d);
+        // Vẽ lớp nền tĩnh (background, title, deck) đã render sẵn
+        g2d.drawImage(getTableLayer(), 0, 0, null);
         
         // Vẽ dealer area
         drawDealerArea(g2d);
@@ -384,9 +425,7 @@ public class BlackjackClient {
         }
         
         // Vẽ animation cards
-        for (AnimatingCard ac : animatingCards) {
-            ac.draw(g2d);
-        }
+        cardAnimator.draw(g2d);
         
         // Vẽ game results
         if (currentGameState == Blackjack.GameState.GAME_OVER && playersResults != null && !playersResults.isEmpty()) {
@@ -397,6 +436,28 @@ public class BlackjackClient {
         drawTurnIndicator(g2d);
     }
 
+    /**
+     * Lấy lớp nền tĩnh, render lại nếu chưa có hoặc panel đã đổi kích thước
+     * @return Ảnh chứa nỉ bàn, viền, tiêu đề và bộ bài
+     */
+    private BufferedImage getTableLayer() {
+        int width = Math.max(1, gamePanel.getWidth());
+        int height = Math.max(1, gamePanel.getHeight());
+        if (tableLayer == null || tableLayer.getWidth() != width || tableLayer.getHeight() != height) {
+            GraphicsConfiguration config = gamePanel.getGraphicsConfiguration();
+            tableLayer = (config != null)
+                ? config.createCompatibleImage(width, height, Transparency.OPAQUE)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D layer = tableLayer.createGraphics();
+            layer.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            drawTableBackground(layer);
+            drawGameTitle(layer);
+            drawDeck(layer);
+            layer.dispose();
+        }
+        return tableLayer;
+    }
+
     private void drawTableBackground(Graphics2D g2d) {
         // Tạo gradient background
         GradientPaint gradient = new GradientPaint(
@@ -407,12 +468,12 @@ public class BlackjackClient {
         g2d.fillRect(0, 0, FRAME_WIDTH, FRAME_HEIGHT);
         
         // Vẽ viền bàn
-        g2d.setColor(new Color(139, 69, 19)); // Nâu gỗ
-        g2d.setStroke(new BasicStroke(8));
+        g2d.setColor(WOOD_COLOR); // Nâu gỗ
+        g2d.setStroke(TABLE_BORDER_STROKE);
         g2d.drawRoundRect(10, 10, FRAME_WIDTH - 20, FRAME_HEIGHT - 120, 20, 20);
         
         // Vẽ oval trung tâm (khu vực chơi)
-        g2d.setColor(new Color(0, 80, 0, 100));
+        g2d.setColor(CENTER_OVAL_COLOR);
         g2d.fillOval(100, 100, FRAME_WIDTH - 200, FRAME_HEIGHT - 300);
     }
 
@@ -426,14 +487,14 @@ public class BlackjackClient {
     }
 
     private void drawDeck(Graphics2D g2d) {
-        Image backImage = getCardImage(new Card("BACK", ""));
+        Image backImage = getCardImage(CARD_BACK);
         if (backImage != null) {
             // Vẽ shadow cho deck
-            g2d.setColor(new Color(0, 0, 0, 50));
+            g2d.setColor(CARD_SHADOW_COLOR);
             g2d.fillRoundRect(DECK_X + 5, DECK_Y + 5, 110, 154, 10, 10);
             
             // Vẽ deck chính
-            g2d.drawImage(backImage, DECK_X, DECK_Y, 110, 154, null);
+            g2d.drawImage(backImage, DECK_X, DECK_Y, null);
             
             // Vẽ label (điều chỉnh vị trí cho phù hợp)
             g2d.setColor(Color.WHITE);
@@ -445,8 +506,8 @@ public class BlackjackClient {
             g2d.drawString(deckLabel, DECK_X + (110 - labelWidth) / 2, DECK_Y + 170);
             
             // Vẽ thêm hiệu ứng 3D cho deck (tùy chọn)
-            g2d.setColor(new Color(139, 69, 19, 150)); // Màu nâu nhạt
-            g2d.setStroke(new BasicStroke(2));
+            g2d.setColor(DECK_BORDER_COLOR); // Màu nâu nhạt
+            g2d.setStroke(DECK_BORDER_STROKE);
             g2d.drawRoundRect(DECK_X - 2, DECK_Y - 2, 114, 158, 8, 8);
         }
     }
@@ -454,14 +515,15 @@ public class BlackjackClient {
     private void drawDealerArea(Graphics2D g2d) {
         int dealerAreaY = 80;
         int dealerCardsX = 520;
+        if (!g2d.hitClip(dealerCardsX - 20, dealerAreaY - 15, 620, 215)) return; // Ngoài vùng cần vẽ lại
         
         // Vẽ background cho dealer area
-        g2d.setColor(new Color(0, 0, 0, 30));
+        g2d.setColor(DEALER_AREA_COLOR);
         g2d.fillRoundRect(dealerCardsX - 20, dealerAreaY - 10, 600, 200, 15, 15);
         
         // Vẽ dealer label
         g2d.setColor(Color.GRAY);
-        g2d.setFont(new Font("Arial", Font.BOLD, 12));
+        g2d.setFont(LABEL_FONT);
         
         // Tính điểm dealer chính xác từ lá bài
         int correctDealerSum = dealerSum; // Mặc định dùng giá trị từ server
@@ -479,11 +541,11 @@ public class BlackjackClient {
                 int cardY = dealerAreaY + 20;
                 
                 // Shadow
-                g2d.setColor(new Color(0, 0, 0, 50));
+                g2d.setColor(CARD_SHADOW_COLOR);
                 g2d.fillRoundRect(cardX + 3, cardY + 3, 110, 154, 10, 10);
                 
                 // Card
-                g2d.drawImage(getCardImage(dealerHand.get(i)), cardX, cardY, 110, 154, null);
+                g2d.drawImage(getCardImage(dealerHand.get(i)), cardX, cardY, null);
             }
         }
     }
@@ -495,15 +557,18 @@ public class BlackjackClient {
         String displayName = playersNames.get(playerId);
         int playerAreaX = 150 + playerId * 600;
         int playerAreaY = 400;
+        int hands = handCount(playerId);
+        int areaHeight = 300 + (hands - 1) * HAND_LINE_HEIGHT;
+        if (!g2d.hitClip(playerAreaX - 30, playerAreaY - 50, 500, areaHeight)) return; // Ngoài vùng cần vẽ lại
         
         // Xác định có hiển thị bài thật hay không
         boolean shouldShowRealCards = shouldShowPlayerCards(playerId);
         
         // Vẽ background cho player area
         Color playerBgColor = (playerId == myPlayerId) ? 
-            new Color(255, 215, 0, 50) : new Color(255, 255, 255, 30);
+            MY_AREA_COLOR : OTHER_AREA_COLOR;
         g2d.setColor(playerBgColor);
-        g2d.fillRoundRect(playerAreaX - 30, playerAreaY - 50, 500, 300, 20, 20);
+        g2d.fillRoundRect(playerAreaX - 30, playerAreaY - 50, 500, areaHeight, 20, 20);
         
         // Vẽ player name và score
         if (playerId == myPlayerId) {
@@ -534,13 +599,14 @@ public class BlackjackClient {
         if (playersMoneys != null && playersMoneys.size() > playerId && 
             playersBets != null && playersBets.size() > playerId) {
             g2d.setColor(Color.GREEN);
-            g2d.setFont(new Font("Arial", Font.BOLD, 14));
-            String moneyInfo = "💰 $" + playersMoneys.get(playerId) + " | Cược: $" + playersBets.get(playerId);
+            g2d.setFont(INFO_FONT);
+            String moneyInfo = "💰 $" + playersMoneys.get(playerId) + " | Cược: $" + totalBet(playerId)
+                + (hands > 1 ? " (" + hands + " tay)" : "");
             g2d.drawString(moneyInfo, playerAreaX, playerAreaY - 5);
         } else {
             // Hiển thị placeholder nếu chưa có dữ liệu money/bet
             g2d.setColor(Color.GRAY);
-            g2d.setFont(new Font("Arial", Font.ITALIC, 12));
+            g2d.setFont(PLACEHOLDER_FONT);
             g2d.drawString("Đang tải thông tin tài chính...", playerAreaX, playerAreaY - 5);
         }
         
@@ -551,7 +617,7 @@ public class BlackjackClient {
             int cardY = playerAreaY;
             
             // Shadow cho cards
-            g2d.setColor(new Color(0, 0, 0, 50));
+            g2d.setColor(CARD_SHADOW_COLOR);
             g2d.fillRoundRect(cardX + 3, cardY + 3, 110, 154, 10, 10);
             
             // Quyết định hiển thị mặt bài hay mặt sau
@@ -559,17 +625,17 @@ public class BlackjackClient {
             if (shouldShowRealCards) {
                 cardImage = getCardImage(hand.get(i));
             } else {
-                cardImage = getCardImage(new Card("BACK", ""));
+                cardImage = getCardImage(CARD_BACK);
             }
             
             if (cardImage != null) {
-                g2d.drawImage(cardImage, cardX, cardY, 110, 154, null);
+                g2d.drawImage(cardImage, cardX, cardY, null);
             }
             
             // Vẽ icon ẩn cho bài úp
             if (!shouldShowRealCards && playerId != myPlayerId) {
-                g2d.setColor(new Color(255, 255, 255, 200));
-                g2d.setFont(new Font("Serif", Font.BOLD, 24));
+                g2d.setColor(LOCK_ICON_COLOR);
+                g2d.setFont(ICON_FONT);
                 g2d.drawString("🔒", cardX + 40, cardY + 85);
             }
         }
@@ -577,38 +643,63 @@ public class BlackjackClient {
         // Vẽ player status
         if (currentGameState == Blackjack.GameState.PLAYER_TURN && currentPlayerTurn == playerId) {
             g2d.setColor(Color.RED);
-            g2d.setFont(new Font("Arial", Font.BOLD, 16));
+            g2d.setFont(STATUS_FONT);
             g2d.drawString(">>> LƯỢT CHƠI <<<", playerAreaX + 50, playerAreaY + 180);
         }
+
+        // Các tay thêm: một dòng mỗi tay, đánh dấu ► tay đang chơi
+        for (int h = 1; h < hands; h++) {
+            int box = h * playersNames.size() + playerId;
+            if (box >= playersHands.size()) break;
+            boolean current = currentGameState == Blackjack.GameState.PLAYER_TURN
+                && currentPlayerTurn == playerId && currentHandIndex == h;
+            StringBuilder line = new StringBuilder(current ? "► " : "   ");
+            line.append("Tay ").append(h + 1).append(" ($").append(playersBets.get(box)).append("): ");
+            if (shouldShowRealCards) {
+                for (Card card : playersHands.get(box)) {
+                    line.append(card).append(' ');
+                }
+                line.append("= ").append(calculatePlayerScore(playersHands.get(box)));
+            } else {
+                line.append(playersHands.get(box).size()).append(" lá");
+            }
+            if (currentGameState == Blackjack.GameState.GAME_OVER && playersResults != null && playersResults.size() > box) {
+                line.append(" - ").append(playersResults.get(box));
+            }
+            g2d.setColor(current ? Color.RED : Color.WHITE);
+            g2d.setFont(INFO_FONT);
+            g2d.drawString(line.toString(), playerAreaX, playerAreaY + 250 + h * HAND_LINE_HEIGHT);
+        }
         
         // Hiển thị trạng thái bài đang bị ẩn
         if (!shouldShowRealCards && playerId != myPlayerId) {
-            g2d.setColor(new Color(255, 215, 0, 180));
-            g2d.setFont(new Font("Arial", Font.BOLD, 14));
+            g2d.setColor(HIDDEN_LABEL_COLOR);
+            g2d.setFont(INFO_FONT);
             g2d.drawString("🎭 Bài được ẩn", playerAreaX + 80, playerAreaY + 200);
         }
     }
 
     private void drawGameResults(Graphics2D g2d) {
+        if (!g2d.hitClip(FRAME_WIDTH/2 - 252, 498, 504, 204)) return; // Ngoài vùng cần vẽ lại
         // Vẽ background cho results
-        g2d.setColor(new Color(0, 0, 0, 150));
+        g2d.setColor(RESULTS_BG_COLOR);
         g2d.fillRoundRect(FRAME_WIDTH/2 - 250, 500, 500, 200, 20, 20);
         
         // Viền vàng
         g2d.setColor(Color.GRAY);
-        g2d.setStroke(new BasicStroke(3));
+        g2d.setStroke(RESULTS_BORDER_STROKE);
         g2d.drawRoundRect(FRAME_WIDTH/2 - 250, 500, 500, 200, 20, 20);
         
         // Title
         g2d.setColor(Color.ORANGE);
-        g2d.setFont(new Font("Arial", Font.BOLD, 28));
+        g2d.setFont(RESULTS_TITLE_FONT);
         FontMetrics metrics = g2d.getFontMetrics();
         String title = "🏆 KẾT QUẢ 🏆";
         int titleWidth = metrics.stringWidth(title);
         g2d.drawString(title, (FRAME_WIDTH - titleWidth) / 2, 540);
         
         // Results
-        g2d.setFont(new Font("Arial", Font.BOLD, 18));
+        g2d.setFont(RESULT_FONT);
         metrics = g2d.getFontMetrics();
         for(int i = 0; i < playersResults.size(); i++){
             // Tính điểm chính xác từ lá bài thay vì dùng playersSums cũ
@@ -640,7 +731,7 @@ public class BlackjackClient {
             // Vẽ indicator cho người chơi hiện tại
             String currentPlayer = playersNames.get(currentPlayerTurn);
             g2d.setColor(Color.CYAN);
-            g2d.setFont(new Font("Arial", Font.BOLD, 16));
+            g2d.setFont(STATUS_FONT);
             g2d.drawString("Lượt của: " + currentPlayer, 50, 50);
             
             // Vẽ arrow indicator
@@ -652,7 +743,7 @@ public class BlackjackClient {
 
     private void drawArrow(Graphics2D g2d, int x, int y) {
         g2d.setColor(Color.RED);
-        g2d.setStroke(new BasicStroke(4));
+        g2d.setStroke(ARROW_STROKE);
         
         // Vẽ mũi tên chỉ xuống
         int[] xPoints = {x, x + 20, x + 10, x + 10, x - 10, x - 10};
@@ -660,31 +751,18 @@ public class BlackjackClient {
         g2d.fillPolygon(xPoints, yPoints, 6);
     }
 
+    // Ảnh đã được giải mã và scale sẵn về 110x154 trong atlas
     private Image getCardImage(Card card) {
-        String cardPath = "resource/cards/" + card.toString() + ".png";
-        if (card.value.equals("BACK")) cardPath = "resource/cards/BACK.png";
-        try {
-            return new ImageIcon(new File(cardPath).toURI().toURL()).getImage();
-        } catch (MalformedURLException e) {
-            e.printStackTrace(); 
-            return null;
-        }
+        return CardSpriteAtlas.getInstance().get(card);
     }
 
     private void connectToServer() {
         try {
             statusLabel.setText("Đang kết nối tới " + serverHost + ":" + serverPort + "...");
             
-            // Thử kết nối với timeout
-            Socket socket = new Socket();
-            socket.connect(new InetSocketAddress(serverHost, serverPort), 10000); // 10 second timeout
+            openConnection(spectating ? "SPECTATE" : this.playerName);
             
-            out = new ObjectOutputStream(socket.getOutputStream());
-            in = new ObjectInputStream(socket.getInputStream());
-            out.writeObject(this.playerName);
-            out.flush();
-            
-            statusLabel.setText("✅ Đã kết nối! Đang chờ người chơi khác...");
+            statusLabel.setText(spectating ? "👀 Đã kết nối! Đang chờ bàn chơi..." : "✅ Đã kết nối! Đang chờ người chơi khác...");
             System.out.println("🎯 Kết nối thành công tới " + serverHost + ":" + serverPort);
             
             listenForServerUpdates();
@@ -739,9 +817,73 @@ public class BlackjackClient {
         }
     }
     
+    // Mở socket tới server và gửi handshake (tên người chơi hoặc "RESUME:<token>")
+    private void openConnection(String handshake) throws IOException {
+        // Thử kết nối với timeout
+        Socket newSocket = new Socket();
+        newSocket.connect(new InetSocketAddress(serverHost, serverPort), 10000); // 10 second timeout
+
+        // Gửi handshake trước khi chờ header từ server: Router chỉ nối tới node sau khi đọc được handshake
+        ObjectOutputStream newOut = new ObjectOutputStream(newSocket.getOutputStream());
+        newOut.writeObject(handshake);
+        newOut.flush();
+        in = new ObjectInputStream(newSocket.getInputStream());
+        socket = newSocket;
+        out = newOut;
+    }
+
+    private void closeSocket() {
+        try {
+            if (socket != null) socket.close();
+        } catch (IOException e) {
+            // Bỏ qua lỗi khi đóng kết nối
+        }
+    }
+
+    /**
+     * Thử kết nối lại và gắn vào ghế cũ bằng resume token
+     * Thử lại với backoff tăng dần cho đến khi hết thời gian server giữ ghế
+     * @return true nếu server đã gắn lại client vào phiên chơi
+     */
+    private boolean tryResumeSession() {
+        long deadline = System.currentTimeMillis() + RESUME_WINDOW_MS;
+        long backoff = 500;
+        out = null;
+        SwingUtilities.invokeLater(() -> {
+            statusLabel.setText("⚠️ Mất kết nối, đang thử kết nối lại...");
+            setButtonStateForGameplay(false);
+            // Server tắt tự chơi của ghế khi mất kết nối
+            autoPlaying = false;
+            autoPlayButton.setText("🤖 Tự chơi");
+        });
+
+        while (System.currentTimeMillis() < deadline && frame.isDisplayable()) {
+            try {
+                Thread.sleep(backoff);
+                openConnection("RESUME:" + resumeToken);
+                Object reply = in.readObject();
+                if ("RESUME_OK".equals(reply)) {
+                    System.out.println("🔄 Đã kết nối lại với server");
+                    SwingUtilities.invokeLater(() -> statusLabel.setText("✅ Đã kết nối lại!"));
+                    return true;
+                }
+                closeSocket();
+                return false; // Server không còn giữ ghế
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (IOException | ClassNotFoundException e) {
+                closeSocket();
+                backoff = Math.min(backoff * 2, MAX_RESUME_BACKOFF_MS);
+            }
+        }
+        return false;
+    }
+
     private void sendCommand(String command) {
         try {
             if (out != null) {
+                perfOverlay.commandSent(command);
                 out.writeObject(command);
                 out.flush();
             }
@@ -751,69 +893,125 @@ public class BlackjackClient {
     }
 
     private void listenForServerUpdates() {
-        try {
-            while (true) {
-                Object serverMessage = in.readObject();
-                if (serverMessage instanceof GameStateUpdate) {
-                    GameStateUpdate update = (GameStateUpdate) serverMessage;
-                    
-                    if(animationTimer.isRunning()) {
-                        pendingUpdate = update;
-                        continue;
-                    }
-                    
-                    if ((prevGameState == null || prevGameState == Blackjack.GameState.GAME_OVER || prevGameState == Blackjack.GameState.WAITING_FOR_PLAYERS) 
-                        && update.getGameState() == Blackjack.GameState.PLAYER_TURN) {
-                        SoundManager.getInstance().playSoundEffect(INITIAL_DEAL_SOUND);
-                    }
+        while (true) {
+            try {
+                readServerMessages();
+            } catch (Exception e) {
+                if (!frame.isDisplayable()) return;
+                if (resumeToken != null && tryResumeSession()) {
+                    continue;
+                }
+                SwingUtilities.invokeLater(() -> {
+                    statusLabel.setText("Mất kết nối với server.");
+                    setButtonStateForGameplay(false);
+                    disconnectButton.setEnabled(true);
+                });
+                return;
+            }
+        }
+    }
 
-                    List<AnimatingCard> newAnimations = new ArrayList<>();
-                    
-                    // Cập nhật animation cho player cards từ vị trí deck mới
-                    for (int i = 0; i < update.getPlayersHands().size(); i++) {
-                        int oldSize = (playersHands.size() > i) ? playersHands.get(i).size() : 0;
-                        int newSize = update.getPlayersHands().get(i).size();
-                        if (newSize > oldSize) {
-                            for (int j = oldSize; j < newSize; j++) {
-                                Card newCard = update.getPlayersHands().get(i).get(j);
-                                int destX = 150 + i * 600 + j * 50; // Điều chỉnh để phù hợp với layout
-                                int destY = 400; // Player area Y
-                                newAnimations.add(new AnimatingCard(newCard, DECK_X, DECK_Y, destX, destY));
-                            }
-                        }
-                    }
-                    
-                    // Cập nhật animation cho dealer cards từ vị trí deck mới
-                    int oldDealerSize = dealerHand.size();
-                    int newDealerSize = update.getDealerHand().size();
-                    if (newDealerSize > oldDealerSize) {
-                        for (int i = oldDealerSize; i < newDealerSize; i++) {
-                             Card newCard = update.getDealerHand().get(i);
-                             if(newCard.value.equals("BACK")) continue;
-                             
-                             int destX = 520 + i * 80; // Dealer cards position
-                             int destY = 100; // Dealer area Y
-                             newAnimations.add(new AnimatingCard(newCard, DECK_X, DECK_Y, destX, destY));
-                        }
-                    }
-                    
-                    if (!newAnimations.isEmpty()) {
-                        this.pendingUpdate = update;
-                        this.animatingCards.addAll(newAnimations);
-                        animationTimer.start();
-                    } else {
-                        processStateUpdate(update);
-                    }
-                } else if (serverMessage instanceof String) {
-                    String command = (String) serverMessage;
-                    SwingUtilities.invokeLater(() -> handleServerCommand(command));
+    /**
+     * Luồng giải mã: chỉ đọc và giải mã message từ socket rồi đưa vào hàng đợi cho EDT.
+     * Khi EDT xử lý không kịp, put() chặn luồng này (backpressure qua TCP) thay vì bỏ bớt cập nhật.
+     */
+    private void readServerMessages() throws IOException, ClassNotFoundException, InterruptedException {
+        while (true) {
+            Object serverMessage = in.readObject();
+            if (serverMessage instanceof GameStateUpdate) {
+                perfOverlay.updateReceived((GameStateUpdate) serverMessage);
+                serverMessages.put(((GameStateUpdate) serverMessage).freeze());
+            } else if (serverMessage instanceof String) {
+                String command = (String) serverMessage;
+                if (command.startsWith("RESUME_TOKEN:")) {
+                    resumeToken = command.substring(13);
+                    continue;
+                }
+                if (command.equals("SERVER_BUSY") || command.equals("NAME_IN_USE")) {
+                    resumeToken = null; // Chưa có ghế nào để resume khi server đóng kết nối
+                }
+                if (command.startsWith("BETTING_ERROR:")) {
+                    perfOverlay.commandRejected();
                 }
+                serverMessages.put(command);
+            } else {
+                continue;
+            }
+            // Chỉ một lần invokeLater cho cả loạt message đến dồn dập
+            if (drainScheduled.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(this::drainServerMessages);
             }
-        } catch (Exception e) {
-            if (!frame.isDisplayable()) return;
-            statusLabel.setText("Mất kết nối với server.");
-            setButtonStateForGameplay(false);
-            disconnectButton.setEnabled(false);
+        }
+    }
+
+    /**
+     * Xử lý các message đang chờ theo đúng thứ tự nhận - chỉ chạy trên EDT.
+     * Trong lúc animation chia bài đang chạy thì dừng lại; timer animation gọi lại khi xong.
+     */
+    private void drainServerMessages() {
+        drainScheduled.set(false);
+        Object message;
+        while (pendingUpdate == null && (message = serverMessages.poll()) != null) {
+            if (message instanceof String) {
+                handleServerCommand((String) message);
+                continue;
+            }
+            GameStateUpdate update = (GameStateUpdate) message;
+            // Gộp các cập nhật liên tiếp cùng trạng thái: bản sau đã chứa mọi lá bài của bản trước
+            Object next;
+            while ((next = serverMessages.peek()) instanceof GameStateUpdate
+                    && ((GameStateUpdate) next).getGameState() == update.getGameState()) {
+                update = (GameStateUpdate) serverMessages.poll();
+            }
+            applyServerUpdate(update);
+        }
+    }
+
+    // Bắt đầu animation cho các lá bài mới; nếu không có lá nào thì áp dụng cập nhật ngay
+    private void applyServerUpdate(GameStateUpdate update) {
+        if ((prevGameState == null || prevGameState == Blackjack.GameState.GAME_OVER || prevGameState == Blackjack.GameState.WAITING_FOR_PLAYERS) 
+            && update.getGameState() == Blackjack.GameState.PLAYER_TURN) {
+            SoundManager.getInstance().playSoundEffect(INITIAL_DEAL_SOUND);
+        }
+
+        boolean hasNewCards = false;
+        
+        // Cập nhật animation cho player cards từ vị trí deck mới (chỉ tay đầu của mỗi ghế được vẽ thành lá bài)
+        int seats = (update.getPlayersNames() != null) ? update.getPlayersNames().size() : 0;
+        for (int i = 0; i < Math.min(seats, update.getPlayersHands().size()); i++) {
+            int oldSize = (playersHands.size() > i) ? playersHands.get(i).size() : 0;
+            int newSize = update.getPlayersHands().get(i).size();
+            if (newSize > oldSize) {
+                for (int j = oldSize; j < newSize; j++) {
+                    Card newCard = update.getPlayersHands().get(i).get(j);
+                    int destX = 150 + i * 600 + j * 50; // Điều chỉnh để phù hợp với layout
+                    int destY = 400; // Player area Y
+                    cardAnimator.enqueue(newCard, DECK_X, DECK_Y, destX, destY);
+                    hasNewCards = true;
+                }
+            }
+        }
+        
+        // Cập nhật animation cho dealer cards từ vị trí deck mới
+        int oldDealerSize = dealerHand.size();
+        int newDealerSize = update.getDealerHand().size();
+        if (newDealerSize > oldDealerSize) {
+            for (int i = oldDealerSize; i < newDealerSize; i++) {
+                 Card newCard = update.getDealerHand().get(i);
+                 if(newCard.value.equals("BACK")) continue;
+                 
+                 int destX = 520 + i * 80; // Dealer cards position
+                 int destY = 100; // Dealer area Y
+                 cardAnimator.enqueue(newCard, DECK_X, DECK_Y, destX, destY);
+                 hasNewCards = true;
+            }
+        }
+        
+        if (hasNewCards) {
+            this.pendingUpdate = update;
+            animationTimer.start();
+        } else {
+            processStateUpdate(update);
         }
     }
     
@@ -851,12 +1049,14 @@ public class BlackjackClient {
         this.prevGameState = this.currentGameState;
         this.currentGameState = update.getGameState();
         this.currentPlayerTurn = update.getCurrentPlayerTurn();
+        this.handsPerPlayer = (update.getHandsPerPlayer() != null) ? update.getHandsPerPlayer() : new ArrayList<>();
+        this.currentHandIndex = update.getCurrentHandIndex();
         this.myPlayerId = update.getMyPlayerId();
 
         // Cập nhật UI labels với null checks
         if (myPlayerId != -1 && playersMoneys.size() > myPlayerId && playersBets.size() > myPlayerId) {
             moneyLabel.setText("Tiền: $" + playersMoneys.get(myPlayerId));
-            betLabel.setText("Cược: $" + playersBets.get(myPlayerId));
+            betLabel.setText("Cược: $" + totalBet(myPlayerId));
         }
 
         // Phát âm thanh lật bài khi chuyển sang GAME_OVER
@@ -865,13 +1065,62 @@ public class BlackjackClient {
             System.out.println("🎭 Tất cả bài đã được lật!");
         }
 
-        SwingUtilities.invokeLater(() -> {
-            updateUI();
-            gamePanel.repaint();
-        });
+        updateUI();
+        gamePanel.repaint();
     }
 
     private void handleServerCommand(String command) {
+        if (command.equals("SPECTATE_WAITING")) {
+            statusLabel.setText("👀 Chưa có bàn nào đang chơi, đang chờ...");
+            return;
+        }
+
+        if (command.startsWith("LOBBY_WAIT:")) {
+            String[] parts = command.split(":");
+            statusLabel.setText("⏳ Server đang đông - vị trí chờ #" + parts[1] + ", khoảng " + parts[2] + " giây nữa");
+            return;
+        }
+
+        if (command.equals("SERVER_BUSY")) {
+            statusLabel.setText("🚫 Server đang quá tải, vui lòng thử lại sau.");
+            JOptionPane.showMessageDialog(frame, "Server đang quá tải và tạm thời không nhận thêm người chơi.\nVui lòng thử lại sau ít phút.",
+                "Server bận", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        if (command.equals("NAME_IN_USE")) {
+            statusLabel.setText("🚫 Tên này đang được dùng ở một bàn khác.");
+            JOptionPane.showMessageDialog(frame, "Tên người chơi này đang ngồi ở một bàn khác.\nVui lòng kết nối lại với tên khác.",
+                "Tên đã được dùng", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        if (command.startsWith("AUTO_ACTION:")) {
+            statusLabel.setText("⏰ " + command.substring(12));
+            return;
+        }
+
+        if (command.startsWith("AUTOPLAY_ON:")) {
+            String[] parts = command.split(":");
+            autoPlaying = true;
+            autoPlayButton.setText("⏹ Dừng tự chơi");
+            updateUI();
+            statusLabel.setText("🤖 Đang tự chơi: cược $" + parts[1] + " mỗi ván, dừng ở " + parts[2] + " điểm");
+            return;
+        }
+
+        if (command.equals("AUTOPLAY_OFF")) {
+            autoPlaying = false;
+            autoPlayButton.setText("🤖 Tự chơi");
+            updateUI();
+            return;
+        }
+
+        if (command.startsWith("AUTOPLAY_ERROR:")) {
+            statusLabel.setText("Lỗi tự chơi: " + command.substring(15));
+            return;
+        }
+
         if (command.startsWith("BETTING_ERROR:")) {
             String errorMsg = command.substring(14);
             statusLabel.setText("Lỗi cược: " + errorMsg);
@@ -881,6 +1130,13 @@ public class BlackjackClient {
         
         // Xử lý các commands khác...
         switch(command) {
+            case "OPPONENT_RECONNECTING":
+                statusLabel.setText("Đối thủ mất kết nối, đang chờ kết nối lại...");
+                break;
+            case "OPPONENT_RECONNECTED":
+                statusLabel.setText("Đối thủ đã kết nối lại.");
+                updateUI();
+                break;
             case "OPPONENT_DISCONNECTED":
                 statusLabel.setText("Đối thủ đã ngắt kết nối.");
                 setButtonStateForGameplay(false);
@@ -911,6 +1167,15 @@ public class BlackjackClient {
         declineButton.setVisible(false);
         disconnectButton.setVisible(true);
 
+        autoPlayButton.setVisible(!spectating);
+        if (spectating) {
+            moneyLabel.setVisible(false);
+            betLabel.setVisible(false);
+            updateSpectatorStatus();
+            gamePanel.repaint();
+            return;
+        }
+
         if (currentGameState == Blackjack.GameState.BETTING) {
             statusLabel.setText("Hãy đặt cược để bắt đầu!");
             setBettingButtonsEnabled(true);
@@ -928,7 +1193,9 @@ public class BlackjackClient {
             setButtonStateForGameplay(true);
             String currentTurnPlayerName = playersNames.get(currentPlayerTurn);
             if (currentPlayerTurn == myPlayerId) {
-                statusLabel.setText("Đến lượt BẠN!");
+                statusLabel.setText(handCount(myPlayerId) > 1
+                    ? "Đến lượt BẠN! (tay " + (currentHandIndex + 1) + "/" + handCount(myPlayerId) + ")"
+                    : "Đến lượt BẠN!");
                 hitButton.setEnabled(true);
                 standButton.setEnabled(true);
             } else {
@@ -960,9 +1227,32 @@ public class BlackjackClient {
                 }).start();
             }
         }
+
+        // Khi tự chơi, server tự cược và tự quyết định - ẩn các nút thao tác tay
+        if (autoPlaying) {
+            setButtonStateForGameplay(false);
+            setBettingButtonsEnabled(false);
+            newGameButton.setVisible(false);
+            statusLabel.setText(currentGameState == Blackjack.GameState.GAME_OVER
+                ? "🤖 Ván kết thúc, đang chờ ván mới..."
+                : "🤖 " + statusLabel.getText());
+        }
         gamePanel.repaint();
     }
     
+    // Người xem không có nút thao tác nào, chỉ có dòng trạng thái
+    private void updateSpectatorStatus() {
+        if (currentGameState == Blackjack.GameState.BETTING) {
+            statusLabel.setText("👀 Các người chơi đang đặt cược...");
+        } else if (currentGameState == Blackjack.GameState.PLAYER_TURN && currentPlayerTurn < playersNames.size()) {
+            statusLabel.setText("👀 Lượt của " + playersNames.get(currentPlayerTurn) + "...");
+        } else if (currentGameState == Blackjack.GameState.DEALER_TURN) {
+            statusLabel.setText("👀 Lượt của Nhà cái...");
+        } else if (currentGameState == Blackjack.GameState.GAME_OVER) {
+            statusLabel.setText("👀 Ván đã kết thúc, chờ ván mới...");
+        }
+    }
+
     private void placeBet(int amount) {
         SoundManager.getInstance().playSoundEffect(CLICK_SOUND);
         sendCommand("BET:" + amount);
@@ -971,15 +1261,69 @@ public class BlackjackClient {
         setBettingButtonsEnabled(false);
     }
 
+    // Cược nhiều tay trong một lệnh "BETS:..." thay vì một vòng gửi/nhận cho mỗi tay
+    private void placeMultiHandBets() {
+        SoundManager.getInstance().playSoundEffect(CLICK_SOUND);
+        String input = JOptionPane.showInputDialog(frame,
+            "Nhập số tiền cược cho từng tay, cách nhau bởi dấu phẩy (tối đa "
+                + Blackjack.MAX_HANDS_PER_PLAYER + " tay), ví dụ: 10,20,50",
+            "Cược nhiều tay", JOptionPane.QUESTION_MESSAGE);
+        if (input == null) return;
+        String amounts = input.replace(" ", "");
+        if (!amounts.matches("\\d{1,7}(,\\d{1,7}){0," + (Blackjack.MAX_HANDS_PER_PLAYER - 1) + "}")) {
+            statusLabel.setText("Lỗi cược: định dạng không hợp lệ");
+            return;
+        }
+        sendCommand("BETS:" + amounts);
+        setBettingButtonsEnabled(false);
+    }
+
+    // Bật tự chơi (server tự cược lại và tự rút/dừng theo ngưỡng) hoặc tắt nếu đang bật
+    private void toggleAutoPlay() {
+        SoundManager.getInstance().playSoundEffect(CLICK_SOUND);
+        if (autoPlaying) {
+            sendCommand("AUTOPLAY:OFF");
+            return;
+        }
+        String input = JOptionPane.showInputDialog(frame,
+            "Nhập số tiền cược mỗi ván và ngưỡng dừng (12-21), ví dụ: 10:17",
+            "Tự chơi", JOptionPane.QUESTION_MESSAGE);
+        if (input == null) return;
+        String settings = input.replace(" ", "");
+        if (!settings.matches("\\d{1,7}:\\d{1,2}")) {
+            statusLabel.setText("Lỗi tự chơi: định dạng không hợp lệ");
+            return;
+        }
+        sendCommand("AUTOPLAY:" + settings);
+    }
+
+    // Số tay của một ghế trong ván hiện tại (tối thiểu 1 để vẽ khu vực người chơi)
+    private int handCount(int playerId) {
+        if (handsPerPlayer == null || handsPerPlayer.size() <= playerId) return 1;
+        return Math.max(1, handsPerPlayer.get(playerId));
+    }
+
+    // Tổng cược của một ghế trên mọi tay
+    private int totalBet(int playerId) {
+        if (playersBets == null || playersNames == null || playersNames.isEmpty()) return 0;
+        int total = 0;
+        for (int box = playerId; box < playersBets.size(); box += playersNames.size()) {
+            total += playersBets.get(box);
+        }
+        return total;
+    }
+
     private void setBettingButtonsEnabled(boolean enabled) {
         bet10Button.setEnabled(enabled);
         bet20Button.setEnabled(enabled);
         bet50Button.setEnabled(enabled);
         bet100Button.setEnabled(enabled);
+        multiHandButton.setEnabled(enabled);
         bet10Button.setVisible(enabled);
         bet20Button.setVisible(enabled);
         bet50Button.setVisible(enabled);
         bet100Button.setVisible(enabled);
+        multiHandButton.setVisible(enabled);
     }
 
     private boolean shouldShowPlayerCards(int playerId) {
@@ -0,0 +1,144 @@
+// BufferPool.java
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.lang.ref.Cleaner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class BufferPool - Bộ đệm byte dùng lại để mã hóa message, có phát hiện rò rỉ
+ * - acquire() lấy một Buffer trống (hoặc tạo mới nếu pool rỗng); close() trả nó về pool
+ * - Mỗi Buffer giữ sẵn một ObjectOutputStream ghi vào chính nó, nên mỗi lần mã hóa
+ *   không phải tạo lại stream cùng các bảng nội bộ của nó
+ * - Buffer đã phình quá MAX_RETAINED_BYTES hoặc bị lỗi giữa chừng thì bỏ đi, không trả về pool
+ *
+ * Phát hiện rò rỉ không tốn cấp phát cho mỗi lần mượn: mỗi Buffer được đăng ký với Cleaner
+ * đúng một lần khi tạo. Buffer nằm trong pool luôn còn được tham chiếu, nên nếu Cleaner chạy
+ * cho một Buffer đang được mượn thì nghĩa là nó đã bị bỏ rơi mà không close() - báo rò rỉ.
+ */
+public class BufferPool {
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_BYTES = 64 * 1024;
+
+    private final String name;
+    private final int maxIdle;
+    private final ConcurrentLinkedQueue<Buffer> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicLong leaks = new AtomicLong();
+
+    /**
+     * Constructor
+     * @param name Tên pool (dùng trong log rò rỉ)
+     * @param maxIdle Số Buffer rảnh tối đa được giữ lại
+     */
+    public BufferPool(String name, int maxIdle) {
+        this.name = name;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Mượn một Buffer trống; phải close() sau khi dùng xong (nên dùng try/finally)
+     * @return Buffer rỗng
+     */
+    public Buffer acquire() {
+        Buffer buffer = idle.poll();
+        if (buffer == null) {
+            buffer = new Buffer(this);
+        } else {
+            idleCount.decrementAndGet();
+        }
+        buffer.reset();
+        buffer.lease.leased = true;
+        return buffer;
+    }
+
+    /** @return Số Buffer bị bỏ rơi mà không được trả về pool */
+    public long getLeakCount() {
+        return leaks.get();
+    }
+
+    private void release(Buffer buffer) {
+        buffer.lease.leased = false;
+        if (buffer.broken || buffer.capacity() > MAX_RETAINED_BYTES) {
+            return; // Bỏ đi; Cleaner sẽ không báo rò rỉ vì Buffer không còn được mượn
+        }
+        if (idleCount.incrementAndGet() > maxIdle) {
+            idleCount.decrementAndGet();
+            return;
+        }
+        idle.offer(buffer);
+    }
+
+    /**
+     * Trạng thái mượn của một Buffer, tách riêng để hành động của Cleaner không giữ Buffer sống
+     */
+    private static final class Lease implements Runnable {
+        private final String poolName;
+        private final AtomicLong leaks;
+        volatile boolean leased = false;
+
+        Lease(String poolName, AtomicLong leaks) {
+            this.poolName = poolName;
+            this.leaks = leaks;
+        }
+
+        @Override
+        public void run() {
+            if (leased) {
+                leaks.incrementAndGet();
+                System.err.println("⚠️  Rò rỉ bộ đệm của pool '" + poolName + "': Buffer bị thu hồi khi chưa được close()");
+            }
+        }
+    }
+
+    /**
+     * Một bộ đệm mượn từ pool
+     */
+    public static final class Buffer extends ByteArrayOutputStream {
+        private final BufferPool pool;
+        private final Lease lease;
+        private ObjectOutputStream objectStream;
+        private boolean broken = false;
+
+        private Buffer(BufferPool pool) {
+            super(INITIAL_CAPACITY);
+            this.pool = pool;
+            this.lease = new Lease(pool.name, pool.leaks);
+            CLEANER.register(this, lease);
+        }
+
+        /**
+         * ObjectOutputStream ghi vào buffer này - được tạo một lần rồi dùng lại qua các lần mượn
+         * Header của stream đã được bỏ đi; không được close() stream này
+         * @return Stream gắn với buffer
+         */
+        public ObjectOutputStream objectStream() throws IOException {
+            if (objectStream == null) {
+                objectStream = new ObjectOutputStream(this);
+                objectStream.flush();
+                super.reset(); // Bỏ header của stream
+            }
+            return objectStream;
+        }
+
+        /** Đánh dấu buffer hỏng (ví dụ stream lỗi giữa chừng) để không được trả về pool */
+        public void discard() {
+            broken = true;
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+
+        /** Trả buffer về pool; gọi nhiều lần cũng chỉ trả một lần */
+        @Override
+        public void close() {
+            if (lease.leased) {
+                pool.release(this);
+            }
+        }
+    }
+}
@@ -1,15 +1,31 @@
 // Card.java
-import java.io.File;
 import java.io.Serializable;
-import java.net.MalformedURLException;
-import java.net.URL;
 
 /**
  * Class Card - Đại diện cho một lá bài trong game Blackjack
  * Chứa thông tin về giá trị và chất của lá bài
+ *
+ * Lá bài không bao giờ bị sửa sau khi tạo, nên mỗi lá trong 52 lá (và mặt sau) chỉ cần một đối tượng
+ * dùng chung: bộ bài của mọi bàn lấy từ fromOrdinal(), và lá bài giải mã từ mạng được thay bằng
+ * đối tượng dùng chung tương ứng (readResolve).
  */
 public class Card implements Serializable {
     private static final long serialVersionUID = 1L; // Cần thiết cho Serializable
+
+    // Thứ tự chuẩn của bộ bài 52 lá; mặt sau (BACK) có ordinal = 52
+    static final String[] VALUES = {"A", "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K"};
+    static final String[] TYPES = {"C", "D", "H", "S"};
+    static final int BACK_ORDINAL = VALUES.length * TYPES.length;
+    static final int CARD_COUNT = BACK_ORDINAL + 1;
+
+    private static final Card[] SHARED = new Card[CARD_COUNT];
+    static {
+        for (int ordinal = 0; ordinal < BACK_ORDINAL; ordinal++) {
+            SHARED[ordinal] = new Card(VALUES[ordinal % VALUES.length], TYPES[ordinal / VALUES.length]);
+        }
+        SHARED[BACK_ORDINAL] = new Card("BACK", "");
+    }
+
     public String value;
     public String type;
 
@@ -58,20 +74,37 @@ public class Card implements Serializable {
     }
 
     /**
-     * Lấy đường dẫn đến file hình ảnh của lá bài
-     * @return Đường dẫn đến file PNG của lá bài
+     * Lấy số thứ tự của lá bài trong bộ bài chuẩn (dùng làm khóa tra cứu ảnh)
+     * @return 0-51 cho lá bài thường, BACK_ORDINAL cho mặt sau, -1 nếu không hợp lệ
      */
-    public String getImagePath() {
-        return "resources/cards/" + toString() + ".png";
+    public int ordinal() {
+        if ("BACK".equals(value)) {
+            return BACK_ORDINAL;
+        }
+        for (int t = 0; t < TYPES.length; t++) {
+            if (TYPES[t].equals(type)) {
+                for (int v = 0; v < VALUES.length; v++) {
+                    if (VALUES[v].equals(value)) {
+                        return t * VALUES.length + v;
+                    }
+                }
+            }
+        }
+        return -1;
     }
-    
+
     /**
-     * Lấy URL của file hình ảnh lá bài
-     * @return URL object trỏ đến file hình ảnh
-     * @throws MalformedURLException nếu đường dẫn không hợp lệ
+     * Lấy lá bài dùng chung từ số thứ tự
+     * @param ordinal Số thứ tự 0-51, hoặc BACK_ORDINAL cho mặt sau
+     * @return Lá bài tương ứng (không được sửa)
      */
-    public URL getImageURL() throws MalformedURLException {
-        File cardFile = new File(getImagePath());
-        return cardFile.toURI().toURL();
+    public static Card fromOrdinal(int ordinal) {
+        return SHARED[ordinal];
+    }
+
+    // Lá bài vừa giải mã được thay bằng đối tượng dùng chung (lá không hợp lệ giữ nguyên)
+    private Object readResolve() {
+        int ordinal = ordinal();
+        return (ordinal >= 0) ? SHARED[ordinal] : this;
     }
-}
\ No newline at end of file
+}
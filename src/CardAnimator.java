@@ -0,0 +1,127 @@
+// CardAnimator.java
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Class CardAnimator - Engine animation chia bài theo thời gian thực
+ * Vị trí lá bài được nội suy theo System.nanoTime() chứ không theo số tick,
+ * nên tốc độ animation không phụ thuộc vào việc EDT bận hay timer bị trễ/bỏ tick.
+ *
+ * Chức năng:
+ * - Xếp hàng các lá bài cần chia và phát lần lượt, mỗi lá cách nhau DEAL_INTERVAL_MS
+ * - Giới hạn số animation chạy đồng thời (MAX_CONCURRENT) khi có nhiều lá đến cùng lúc
+ * - Báo vùng màn hình cần vẽ lại cho từng lá đang di chuyển
+ */
+public class CardAnimator {
+    public static final int FRAME_INTERVAL_MS = 16; // ~60 FPS
+    private static final long DURATION_NANOS = 450_000_000L;
+    private static final long DEAL_INTERVAL_NANOS = 90_000_000L;
+    private static final int MAX_CONCURRENT = 6;
+
+    /**
+     * Một lá bài đang bay từ bộ bài tới vị trí đích
+     */
+    private static class CardAnimation {
+        final Card card;
+        final double startX, startY, destX, destY;
+        double currentX, currentY;
+        long startNanos;
+
+        CardAnimation(Card card, int startX, int startY, int destX, int destY) {
+            this.card = card;
+            this.startX = startX;
+            this.startY = startY;
+            this.destX = destX;
+            this.destY = destY;
+            this.currentX = startX;
+            this.currentY = startY;
+        }
+
+        // Cập nhật vị trí theo thời gian đã trôi qua, trả về true khi đã tới đích
+        boolean update(long now) {
+            double progress = (double) (now - startNanos) / DURATION_NANOS;
+            if (progress >= 1.0) {
+                currentX = destX;
+                currentY = destY;
+                return true;
+            }
+            double easedProgress = 1 - Math.pow(1 - Math.max(0, progress), 3);
+            currentX = startX + (destX - startX) * easedProgress;
+            currentY = startY + (destY - startY) * easedProgress;
+            return false;
+        }
+
+        // Vùng màn hình lá bài đang chiếm (tính cả bóng đổ)
+        Rectangle getBounds() {
+            return new Rectangle((int) currentX - 1, (int) currentY - 1,
+                CardSpriteAtlas.CARD_WIDTH + 6, CardSpriteAtlas.CARD_HEIGHT + 6);
+        }
+    }
+
+    private final ArrayDeque<CardAnimation> queued = new ArrayDeque<>();
+    private final List<CardAnimation> active = new ArrayList<>();
+    private long nextStartNanos = 0;
+
+    /**
+     * Thêm một lá bài vào hàng đợi chia
+     * @param card Lá bài cần animate
+     * @param startX Tọa độ X bắt đầu
+     * @param startY Tọa độ Y bắt đầu
+     * @param destX Tọa độ X đích
+     * @param destY Tọa độ Y đích
+     */
+    public synchronized void enqueue(Card card, int startX, int startY, int destX, int destY) {
+        queued.add(new CardAnimation(card, startX, startY, destX, destY));
+    }
+
+    /**
+     * Tiến animation tới thời điểm now
+     * @param now Thời điểm hiện tại (System.nanoTime())
+     * @param dirtyRegion Nhận các vùng cần vẽ lại
+     * @return true nếu không còn animation nào đang chạy hoặc đang chờ
+     */
+    public synchronized boolean tick(long now, Consumer<Rectangle> dirtyRegion) {
+        // Phát thêm lá mới theo nhịp chia bài, không vượt quá giới hạn đồng thời
+        while (!queued.isEmpty() && active.size() < MAX_CONCURRENT && now >= nextStartNanos) {
+            CardAnimation animation = queued.poll();
+            animation.startNanos = now;
+            active.add(animation);
+            nextStartNanos = now + DEAL_INTERVAL_NANOS;
+        }
+
+        Iterator<CardAnimation> iterator = active.iterator();
+        while (iterator.hasNext()) {
+            CardAnimation animation = iterator.next();
+            Rectangle dirty = animation.getBounds();
+            boolean finished = animation.update(now);
+            dirty.add(animation.getBounds());
+            dirtyRegion.accept(dirty);
+            if (finished) {
+                iterator.remove();
+            }
+        }
+        return active.isEmpty() && queued.isEmpty();
+    }
+
+    /**
+     * Vẽ các lá bài đang di chuyển
+     * @param g Graphics để vẽ
+     */
+    public synchronized void draw(Graphics g) {
+        CardSpriteAtlas atlas = CardSpriteAtlas.getInstance();
+        for (CardAnimation animation : active) {
+            Image img = atlas.get(animation.card);
+            if (img != null) {
+                g.drawImage(img, (int) animation.currentX, (int) animation.currentY, null);
+            }
+        }
+    }
+
+    public synchronized boolean isIdle() {
+        return active.isEmpty() && queued.isEmpty();
+    }
+}
@@ -0,0 +1,79 @@
+// CardSpriteAtlas.java
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+
+/**
+ * Class CardSpriteAtlas - Bộ ảnh lá bài đã được giải mã và thu nhỏ sẵn
+ * Tất cả mặt bài và mặt sau được đọc (qua AssetBundle) đúng một lần, scale về kích thước hiển thị
+ * (CARD_WIDTH x CARD_HEIGHT) vào ảnh tương thích với màn hình, và tra cứu theo Card.ordinal().
+ * Nhờ vậy mỗi frame chỉ còn là một lần copy ảnh, không đọc file hay giải mã PNG.
+ */
+public class CardSpriteAtlas {
+    public static final int CARD_WIDTH = 110;
+    public static final int CARD_HEIGHT = 154;
+    private static final String CARD_DIRECTORY = "resource/cards/";
+
+    private static CardSpriteAtlas instance;
+    private final Image[] sprites = new Image[Card.CARD_COUNT];
+
+    private CardSpriteAtlas() {
+        GraphicsConfiguration config = GraphicsEnvironment.isHeadless() ? null
+            : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+
+        // Giải mã PNG song song - mỗi ordinal ghi vào ô riêng của mảng nên không cần khóa
+        IntStream.range(0, Card.CARD_COUNT).parallel().forEach(ordinal -> {
+            String fileName = (ordinal == Card.BACK_ORDINAL) ? "BACK" : Card.fromOrdinal(ordinal).toString();
+            sprites[ordinal] = loadScaled(CARD_DIRECTORY + fileName + ".png", config);
+        });
+    }
+
+    /**
+     * Lấy atlas dùng chung (nạp ảnh ở lần gọi đầu tiên)
+     * @return Instance của CardSpriteAtlas
+     */
+    public static synchronized CardSpriteAtlas getInstance() {
+        if (instance == null) {
+            instance = new CardSpriteAtlas();
+        }
+        return instance;
+    }
+
+    /**
+     * Lấy ảnh đã scale sẵn của lá bài
+     * @param card Lá bài (giá trị "BACK" cho mặt sau)
+     * @return Ảnh kích thước CARD_WIDTH x CARD_HEIGHT, hoặc null nếu không có ảnh
+     */
+    public Image get(Card card) {
+        int ordinal = card.ordinal();
+        return ordinal >= 0 ? sprites[ordinal] : null;
+    }
+
+    // Đọc PNG và vẽ lại một lần ở kích thước hiển thị với nội suy chất lượng cao
+    private static Image loadScaled(String path, GraphicsConfiguration config) {
+        BufferedImage source;
+        try (InputStream in = AssetBundle.getInstance().open(path)) {
+            source = (in != null) ? ImageIO.read(in) : null;
+        } catch (IOException e) {
+            System.err.println("Không thể đọc ảnh lá bài: " + path + " - " + e.getMessage());
+            return null;
+        }
+        if (source == null) {
+            System.err.println("Không thể đọc ảnh lá bài: " + path);
+            return null;
+        }
+
+        BufferedImage scaled = (config != null)
+            ? config.createCompatibleImage(CARD_WIDTH, CARD_HEIGHT, Transparency.TRANSLUCENT)
+            : new BufferedImage(CARD_WIDTH, CARD_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(source, 0, 0, CARD_WIDTH, CARD_HEIGHT, null);
+        g.dispose();
+        return scaled;
+    }
+}
@@ -0,0 +1,33 @@
+// ChannelMessage.java
+import java.io.Serializable;
+
+/**
+ * Class ChannelMessage - Message của server gửi cho một kênh bàn trong kết nối đa bàn
+ * Message của kênh 0 vẫn được gửi trực tiếp (không bọc) để client một bàn không cần thay đổi.
+ */
+public class ChannelMessage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int channel;
+    private final Serializable payload;
+
+    /**
+     * Constructor
+     * @param channel Số kênh bàn (từ 1 trở đi)
+     * @param payload Message gốc (String hoặc GameStateUpdate)
+     */
+    public ChannelMessage(int channel, Serializable payload) {
+        this.channel = channel;
+        this.payload = payload;
+    }
+
+    /** @return Số kênh bàn */
+    public int getChannel() {
+        return channel;
+    }
+
+    /** @return Message gốc */
+    public Serializable getPayload() {
+        return payload;
+    }
+}
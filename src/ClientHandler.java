@@ -0,0 +1,501 @@
+// ClientHandler.java
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
+import java.io.Serializable;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class ClientHandler - Một kết nối TCP của client, đồng thời là ghế ở kênh 0
+ * Các kênh bàn khác (TableChannel) mở trên cùng kết nối dùng chung socket và hàng đợi gửi của lớp này.
+ *
+ * Kết nối không có luồng riêng: handshake chạy trên pool handshake của Server, sau đó socket chuyển sang
+ * chế độ không chặn và được một luồng I/O dùng chung (ClientIO) đọc lệnh và ghi message.
+ * Gửi không bao giờ chặn luồng gọi (event loop của bàn, luồng hẹn giờ):
+ * - sendObject() mã hóa message ngay thành một khung độc lập (encodeFrame) rồi xếp vào hàng đợi của kết nối
+ * - Luồng I/O ghi các khung ra socket; socket có buffer gửi đầy được chờ bằng OP_WRITE, không chặn luồng I/O
+ * - Client không nhận kịp, hàng đợi vượt MAX_QUEUED_BYTES thì kết nối bị ngắt như khi mất mạng
+ * Lệnh đến được giải mã trực tiếp từ các byte của object stream (CommandDecoder): client chỉ gửi String.
+ */
+class ClientHandler implements ClientIO.Connection, PlayerConnection {
+    private final Socket socket;
+    private final SocketChannel channel;
+    private final ClientIO.IOLoop io;
+    private volatile GameSession session;
+    private int playerId;
+    private final Map<Integer, TableChannel> channels = new ConcurrentHashMap<>();
+    private String playerName;
+    private final String resumeToken;
+    private final boolean resumeRequest;
+    private final boolean spectateRequest;
+    // IP thật của client (do Router báo nếu đi qua Router); null nếu không biết - khi đó bỏ qua bucket theo IP
+    private final String rateLimitIP;
+    private volatile boolean closing = false;
+    // Bàn và các kênh chỉ được báo mất kết nối một lần, dù lỗi được phát hiện khi đọc hay khi ghi
+    private final AtomicBoolean lossReported = new AtomicBoolean(false);
+
+    // Hàng đợi gửi; CLOSE_MARKER yêu cầu luồng I/O đóng socket sau khi đã ghi hết các khung trước nó
+    private final ConcurrentLinkedQueue<byte[]> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    // Chỉ dùng trên luồng I/O của kết nối
+    private SelectionKey key;          // null cho tới khi luồng I/O đăng ký socket
+    private ByteBuffer pending;        // Phần còn lại của khung đang gửi dở, null nếu không có
+    private byte[] partial;            // Phần đầu của lệnh chưa nhận đủ byte, null nếu không có
+    private final CommandDecoder decoder;
+    private CommandGuard guard;        // Tạo khi bắt đầu đọc lệnh
+    private int violations = 0;
+
+    private static final SecureRandom TOKEN_RANDOM = new SecureRandom();
+    private static final byte[] CLOSE_MARKER = new byte[0];
+    private static final long MAX_QUEUED_BYTES = 256 * 1024;
+    // Thời gian tối đa chờ luồng ghi gửi nốt các khung sau closeConnection() trước khi đóng hẳn socket
+    private static final long CLOSE_LINGER_MS = 2000;
+    // Bộ đệm mã hóa dùng lại giữa các khung; mỗi luồng mã hóa đồng thời mượn một bộ
+    private static final BufferPool FRAME_BUFFERS = new BufferPool("message-frames", 32);
+    // Số lệnh không hợp lệ tối đa trước khi đóng kết nối (lệnh bị giới hạn tốc độ chỉ bị bỏ qua)
+    private static final int MAX_VIOLATIONS = 200;
+    // Thời gian tối đa để client gửi header của stream và handshake; sau handshake thì đọc không giới hạn
+    private static final int HANDSHAKE_TIMEOUT_MS = 5000;
+
+    ClientHandler(Socket socket) throws IOException, ClassNotFoundException {
+        this.socket = socket;
+        this.channel = socket.getChannel();
+        this.io = Server.clientIO.next();
+        // Handshake đọc chặn (có timeout) bằng ObjectInputStream; lệnh sau đó do luồng I/O giải mã
+        CommandGuard.MessageLimit inLimit =
+            new CommandGuard.MessageLimit(socket.getInputStream(), CommandGuard.MAX_MESSAGE_BYTES);
+        ObjectInputStream in;
+        String handshake;
+        try {
+            if (channel == null) {
+                throw new IOException("Socket không có SocketChannel");
+            }
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            // Chỉ ghi header của stream; mọi message sau đó là khung đã mã hóa sẵn (encodeFrame)
+            new ObjectOutputStream(socket.getOutputStream()).flush();
+            in = new ObjectInputStream(inLimit);
+            in.setObjectInputFilter(CommandGuard.STRING_ONLY_FILTER);
+            handshake = (String) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            socket.close(); // Handshake hỏng - không giữ socket lại
+            throw e;
+        }
+
+        // Kết nối qua Router: message đầu là IP thật của client, handshake của client theo sau
+        boolean fromRouter = Server.isRouter(socket.getInetAddress());
+        if (handshake.startsWith(Router.FORWARDED_PREFIX)) {
+            if (!fromRouter) {
+                socket.close();
+                throw new IOException("FORWARDED chỉ được chấp nhận từ Router");
+            }
+            this.rateLimitIP = handshake.substring(Router.FORWARDED_PREFIX.length());
+            try {
+                inLimit.nextMessage();
+                handshake = (String) in.readObject();
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                socket.close();
+                throw e;
+            }
+        } else {
+            // Router không báo IP thì mọi client sau Router có chung một địa chỉ - không giới hạn theo IP
+            this.rateLimitIP = fromRouter ? null : socket.getInetAddress().getHostAddress();
+        }
+
+        // Handshake là tên người chơi, "RESUME:<token>" khi client kết nối lại, hoặc "SPECTATE" để xem bàn
+        if (handshake.length() > 64) {
+            socket.close();
+            throw new IOException("Handshake quá dài");
+        }
+        this.spectateRequest = handshake.equals("SPECTATE");
+        if (spectateRequest) {
+            this.resumeRequest = false;
+            this.resumeToken = null;
+            this.playerName = "";
+        } else if (handshake.startsWith("RESUME:")) {
+            this.resumeRequest = true;
+            this.resumeToken = handshake.substring(7);
+            this.playerName = "";
+        } else {
+            if (!CommandGuard.isValidName(handshake)) {
+                socket.close();
+                throw new IOException("Tên người chơi không hợp lệ");
+            }
+            this.resumeRequest = false;
+            this.resumeToken = newResumeToken();
+            this.playerName = handshake;
+        }
+        // ObjectInputStream không đọc quá bản ghi handshake, nên các byte tiếp theo trên socket là lệnh đầu tiên;
+        // handshake là tham chiếu số 0 trong bảng tham chiếu của stream (qua Router: sau TC_RESET của Router)
+        this.decoder = new CommandDecoder(handshake);
+        if (!resumeRequest && !spectateRequest) {
+            sendObject("RESUME_TOKEN:" + resumeToken);
+        }
+    }
+
+    private static String newResumeToken() {
+        byte[] bytes = new byte[16];
+        TOKEN_RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        return Server.nodeId != null ? Server.nodeId + "." + token : token;
+    }
+
+    @Override
+    public void setGameSession(GameSession session, int playerId) {
+        this.playerId = playerId;
+        this.session = session;
+    }
+
+    @Override
+    public void startReading() {
+        io.execute(() -> {
+            if (!register()) return;
+            guard = new CommandGuard(rateLimitIP);
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+        });
+    }
+
+    // Đăng ký socket với Selector của luồng I/O ở lần dùng đầu tiên (gọi trên luồng I/O)
+    // Socket của người xem không bao giờ được đăng ký ở đây: SpectatorHub nhận và tự ghi socket đó
+    private boolean register() {
+        if (key != null) return key.isValid();
+        if (!channel.isOpen()) return false;
+        try {
+            channel.configureBlocking(false);
+            key = channel.register(io.selector(), 0, this);
+            return true;
+        } catch (IOException e) {
+            closeSocket();
+            return false;
+        }
+    }
+
+    // Bàn của kênh 0 kết thúc: nếu kết nối còn kênh khác đang mở thì giữ socket cho các kênh đó
+    @Override
+    public void releaseSeat() {
+        session = null;
+        if (channels.isEmpty()) {
+            closeConnection();
+        }
+    }
+
+    void removeChannel(TableChannel channel) {
+        channels.remove(channel.getChannel(), channel);
+        if (session == null && channels.isEmpty()) {
+            closeConnection(); // Bàn của kênh 0 đã kết thúc và không còn kênh nào khác
+        }
+    }
+
+    public boolean isConnected() {
+        return !closing && !socket.isClosed();
+    }
+
+    /**
+     * Đóng kết nối sau khi luồng I/O gửi nốt các message đã xếp hàng (ví dụ SERVER_BUSY ngay trước đó)
+     * Không chặn: nếu chưa gửi xong sau CLOSE_LINGER_MS thì socket bị đóng hẳn
+     */
+    public void closeConnection() {
+        if (closing) return;
+        closing = true;
+        outbound.offer(CLOSE_MARKER);
+        scheduleFlush();
+        Server.timers.schedule(this::closeSocket, CLOSE_LINGER_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Đóng socket ngay (gọi được từ mọi luồng); việc dọn dẹp chạy trên luồng I/O
+    private void closeSocket() {
+        try {
+            if (!socket.isClosed()) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            // Bỏ qua lỗi khi đóng kết nối
+        }
+        io.execute(this::cleanup);
+    }
+
+    // Mọi đường đóng socket (lỗi socket, bị ngắt vì lệnh không hợp lệ hay client chậm, bị kết nối resume thay thế)
+    // đều trả ghế và các kênh; bàn tự bỏ qua handler đã bị thay thế hoặc ghế đã trả
+    private void cleanup() {
+        if (guard != null) {
+            guard.close();
+        }
+        reportConnectionLost();
+    }
+
+    @Override
+    public void ready(SelectionKey key) {
+        if (key.isValid() && key.isReadable()) {
+            read();
+        }
+        if (key.isValid() && key.isWritable()) {
+            flush();
+        }
+    }
+
+    // Đọc các byte đang có trên socket vào buffer dùng chung của luồng I/O và xử lý mọi lệnh đã nhận đủ
+    private void read() {
+        ByteBuffer buffer = io.readBuffer();
+        buffer.clear();
+        if (partial != null) {
+            buffer.put(partial);
+            partial = null;
+        }
+        try {
+            if (channel.read(buffer) < 0) {
+                closeSocket(); // Client đã đóng kết nối
+                return;
+            }
+            buffer.flip();
+            String command;
+            while (!closing && (command = decoder.next(buffer)) != null) {
+                handleCommand(command);
+            }
+        } catch (IOException e) {
+            closeSocket();
+            return;
+        }
+        if (closing) {
+            // Kết nối đang đóng: không đọc thêm lệnh, chỉ chờ gửi nốt các message
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        } else if (buffer.hasRemaining()) {
+            partial = new byte[buffer.remaining()]; // Luôn nhỏ hơn MAX_MESSAGE_BYTES (CommandDecoder)
+            buffer.get(partial);
+        }
+    }
+
+    private void handleCommand(String command) {
+        int channel = TableChannel.parseChannel(command);
+        if (channel == 0) {
+            CommandGuard.Verdict verdict = guard.check(command);
+            if (verdict != CommandGuard.Verdict.ACCEPTED) {
+                if (verdict == CommandGuard.Verdict.INVALID) countViolation();
+                return;
+            }
+            GameSession current = session;
+            if (current != null) {
+                current.handleCommand(command, this.playerId);
+            }
+        } else if (channel > 0) {
+            routeToChannel(channel, TableChannel.stripChannel(command));
+        } else {
+            CommandGuard.invalid.incrementAndGet();
+            countViolation();
+        }
+    }
+
+    // Báo cho bàn của kênh 0 và bàn của mọi kênh khác rằng kết nối đã mất (chỉ một lần)
+    private void reportConnectionLost() {
+        if (!lossReported.compareAndSet(false, true)) return;
+        GameSession current = session;
+        if (current != null) {
+            current.removePlayer(this);
+        }
+        for (TableChannel channel : channels.values()) {
+            channel.connectionLost();
+        }
+    }
+
+    // Lệnh "@<kênh>:<lệnh>": JOIN mở kênh mới, các lệnh khác chuyển tới bàn của kênh
+    private void routeToChannel(int channel, String command) {
+        TableChannel tableChannel = channels.get(channel);
+        CommandGuard channelGuard = (tableChannel != null) ? tableChannel.getGuard() : guard;
+        CommandGuard.Verdict verdict = channelGuard.check(command);
+        if (verdict != CommandGuard.Verdict.ACCEPTED) {
+            if (verdict == CommandGuard.Verdict.INVALID) countViolation();
+            return;
+        }
+        if (tableChannel != null) {
+            tableChannel.dispatch(command);
+        } else if (command.equals("JOIN")) {
+            openChannel(channel);
+        }
+    }
+
+    private void openChannel(int channel) {
+        TableChannel tableChannel = new TableChannel(this, channel, newResumeToken());
+        channels.put(channel, tableChannel);
+        System.out.println("🔀 " + playerName + " (" + getClientIP() + ") mở thêm bàn ở kênh " + channel);
+        tableChannel.sendObject("RESUME_TOKEN:" + tableChannel.getResumeToken());
+        Server.admission.admit(tableChannel);
+    }
+
+    private void countViolation() {
+        if (++violations == MAX_VIOLATIONS) {
+            System.out.println("🛡️ Đóng kết nối của " + playerName + " (" + getClientIP()
+                + "): gửi quá nhiều lệnh không hợp lệ");
+            closeConnection();
+        }
+    }
+    
+    public String getPlayerName() { return this.playerName; }
+    public String getResumeToken() { return this.resumeToken; }
+    public boolean isResumeRequest() { return this.resumeRequest; }
+    public boolean isSpectateRequest() { return this.spectateRequest; }
+
+    // Socket của người xem được SpectatorHub ghi trực tiếp các khung đã mã hóa sẵn (không qua ClientIO)
+    Socket getSocket() { return this.socket; }
+
+    // Kết nối resume nhận lại tên của ghế cũ
+    void adoptPlayerName(String playerName) { this.playerName = playerName; }
+    
+    // Thêm phương thức để lấy IP của client
+    public String getClientIP() {
+        return rateLimitIP != null ? rateLimitIP : socket.getInetAddress().getHostAddress();
+    }
+
+    // IP dùng cho bucket theo IP của các kênh bàn (null = không giới hạn theo IP)
+    String getRateLimitIP() { return this.rateLimitIP; }
+
+    /**
+     * Mã hóa message ngay trên luồng gọi (message có thể là bản cập nhật mà bàn dùng lại) và xếp vào hàng đợi gửi
+     * Gọi được từ nhiều luồng: các kênh của cùng kết nối thuộc các bàn trên những event loop khác nhau
+     */
+    @Override
+    public void sendObject(Serializable object) {
+        if (!isConnected()) return;
+        byte[] frame = encodeFrame(object);
+        if (queuedBytes.addAndGet(frame.length) > MAX_QUEUED_BYTES) {
+            System.out.println("🐢 Ngắt " + playerName + " (" + getClientIP() + "): client không nhận kịp dữ liệu");
+            closeSocket();
+            return;
+        }
+        outbound.offer(frame);
+        scheduleFlush();
+    }
+
+    // Nhiều message gửi dồn dập chỉ tạo một tác vụ ghi trên luồng I/O
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            io.execute(this::flush);
+        }
+    }
+
+    // Ghi các khung đang chờ cho tới khi hết hàng đợi hoặc buffer gửi của socket đầy (gọi trên luồng I/O)
+    private void flush() {
+        flushScheduled.set(false); // Khung xếp vào sau thời điểm này sẽ tạo tác vụ ghi mới
+        if (!register()) return;
+        try {
+            while (true) {
+                if (pending == null) {
+                    byte[] frame = outbound.poll();
+                    if (frame == null) {
+                        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    if (frame == CLOSE_MARKER) {
+                        closeSocket();
+                        return;
+                    }
+                    pending = ByteBuffer.wrap(frame);
+                }
+                channel.write(pending);
+                if (pending.hasRemaining()) {
+                    // Buffer gửi đầy - ghi tiếp khi socket sẵn sàng, luồng I/O chuyển sang kết nối khác
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+                queuedBytes.addAndGet(-pending.capacity());
+                pending = null;
+            }
+        } catch (IOException | CancelledKeyException e) {
+            closeSocket(); // Ghi thất bại: báo cho bàn như khi mất kết nối
+        }
+    }
+
+    /**
+     * Mã hóa message thành một khung độc lập: TC_RESET + bản ghi object, không có header của stream
+     * (client đã nhận header khi handshake, và TC_RESET xóa bảng tham chiếu của lần đọc trước),
+     * nên nhiều khung ghi nối tiếp - hoặc một khung ghi cho nhiều socket - được đọc như writeObject thường
+     * @param message Message cần gửi
+     * @return Các byte của khung
+     */
+    static byte[] encodeFrame(Serializable message) {
+        BufferPool.Buffer bytes = FRAME_BUFFERS.acquire();
+        try {
+            ObjectOutputStream stream = bytes.objectStream();
+            stream.reset(); // Ghi TC_RESET và xóa bảng tham chiếu của lần mã hóa trước
+            stream.writeObject(message);
+            stream.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            bytes.discard();
+            throw new IllegalStateException("Không thể mã hóa message", e); // Không xảy ra với bộ nhớ đệm
+        } finally {
+            bytes.close();
+        }
+    }
+
+    /**
+     * Giải mã lệnh từ các byte của object stream mà client ghi bằng writeObject(String)
+     * Chỉ chấp nhận TC_STRING, TC_REFERENCE (String đã gửi trước đó) và TC_RESET - giống bộ lọc STRING_ONLY_FILTER,
+     * mọi bản ghi khác làm đóng kết nối. Message dài quá MAX_MESSAGE_BYTES bị từ chối khi mới đọc tới phần độ dài.
+     */
+    private static final class CommandDecoder {
+        private final List<String> handles = new ArrayList<>();
+
+        CommandDecoder(String handshake) {
+            handles.add(handshake);
+        }
+
+        /**
+         * Lấy lệnh kế tiếp trong buffer
+         * @param buffer Các byte đã nhận (đang ở chế độ đọc); byte của lệnh trả về được tiêu thụ
+         * @return Lệnh, hoặc null nếu buffer chưa chứa đủ một lệnh (các byte còn lại được giữ nguyên)
+         * @throws IOException nếu luồng byte không phải String hợp lệ
+         */
+        String next(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                int start = buffer.position();
+                byte tag = buffer.get(start);
+                if (tag == ObjectStreamConstants.TC_RESET) {
+                    handles.clear();
+                    buffer.position(start + 1);
+                } else if (tag == ObjectStreamConstants.TC_REFERENCE) {
+                    if (buffer.remaining() < 5) return null;
+                    int index = buffer.getInt(start + 1) - ObjectStreamConstants.baseWireHandle;
+                    if (index < 0 || index >= handles.size()) {
+                        throw new IOException("Tham chiếu không hợp lệ trong lệnh");
+                    }
+                    buffer.position(start + 5);
+                    return handles.get(index);
+                } else if (tag == ObjectStreamConstants.TC_STRING) {
+                    if (buffer.remaining() < 3) return null;
+                    int length = buffer.getShort(start + 1) & 0xFFFF;
+                    if (3 + length > CommandGuard.MAX_MESSAGE_BYTES) {
+                        CommandGuard.invalid.incrementAndGet();
+                        throw new IOException("Message vượt quá " + CommandGuard.MAX_MESSAGE_BYTES + " byte");
+                    }
+                    if (buffer.remaining() < 3 + length) return null;
+                    // Độ dài u2 + modified UTF-8 đúng là định dạng của DataInput.readUTF
+                    String command = new DataInputStream(new ByteArrayInputStream(
+                        buffer.array(), buffer.arrayOffset() + start + 1, 2 + length)).readUTF();
+                    buffer.position(start + 3 + length);
+                    handles.add(command);
+                    return command;
+                } else {
+                    throw new IOException("Client chỉ được gửi String");
+                }
+            }
+            return null;
+        }
+    }
+}
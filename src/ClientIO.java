@@ -0,0 +1,135 @@
+// ClientIO.java
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class ClientIO - Nhóm luồng I/O dùng Selector, đọc lệnh và ghi message cho mọi kết nối người chơi
+ * Sau handshake, socket của người chơi được chuyển sang chế độ không chặn và gắn cố định vào một luồng I/O
+ * (chia theo vòng tròn như EventLoops), nên số luồng của server không tăng theo số ghế:
+ * - Socket có dữ liệu đến: luồng I/O đọc vào buffer dùng chung của luồng và giải mã ngay các lệnh trọn vẹn
+ * - Socket có buffer gửi đầy: kết nối được đăng ký OP_WRITE, luồng I/O chuyển sang socket khác thay vì chờ
+ * Trạng thái I/O của một kết nối chỉ được đọc/ghi trên luồng I/O của nó; luồng khác gửi việc qua execute().
+ */
+public class ClientIO {
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Một kết nối gắn vào luồng I/O; là attachment của SelectionKey
+     */
+    interface Connection {
+        /**
+         * Socket sẵn sàng đọc và/hoặc ghi (gọi trên luồng I/O)
+         * @param key Key của kết nối trong Selector của luồng
+         */
+        void ready(SelectionKey key);
+    }
+
+    /**
+     * Một luồng I/O: một Selector và hàng đợi tác vụ chạy giữa hai lần select
+     */
+    public static final class IOLoop {
+        private final Selector selector;
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean wakeupPending = new AtomicBoolean(false);
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+
+        private IOLoop(String name) {
+            try {
+                this.selector = Selector.open();
+            } catch (IOException e) {
+                throw new IllegalStateException("Không mở được Selector cho " + name, e);
+            }
+            Thread thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Đưa tác vụ vào luồng I/O; nhiều tác vụ gửi dồn dập chỉ đánh thức Selector một lần
+         * Lỗi trong tác vụ chỉ được ghi log, không làm dừng luồng hay ảnh hưởng kết nối khác
+         * @param task Tác vụ cần chạy
+         */
+        public void execute(Runnable task) {
+            tasks.add(task);
+            if (wakeupPending.compareAndSet(false, true)) {
+                selector.wakeup();
+            }
+        }
+
+        Selector selector() {
+            return selector;
+        }
+
+        /** @return Buffer đọc dùng chung của luồng; chỉ dùng trên luồng I/O, không giữ qua hai lần gọi */
+        ByteBuffer readBuffer() {
+            return readBuffer;
+        }
+
+        private void run() {
+            while (true) {
+                try {
+                    selector.select();
+                } catch (IOException e) {
+                    System.err.println("Lỗi Selector của " + Thread.currentThread().getName() + ", ngừng I/O: " + e.getMessage());
+                    return;
+                }
+                // Hạ cờ trước khi lấy tác vụ: tác vụ đến sau thời điểm này sẽ đánh thức lần select kế tiếp
+                wakeupPending.set(false);
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (CancelledKeyException e) {
+                        // Kết nối đã đóng trước khi tác vụ chạy
+                    } catch (RuntimeException e) {
+                        report(e);
+                    }
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    try {
+                        ((Connection) key.attachment()).ready(key);
+                    } catch (CancelledKeyException e) {
+                        // Kết nối đã đóng trong lúc xử lý
+                    } catch (RuntimeException e) {
+                        report(e);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        }
+
+        private static void report(RuntimeException e) {
+            System.err.println("Lỗi trong luồng I/O " + Thread.currentThread().getName() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private final IOLoop[] loops;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+
+    /**
+     * Constructor - Tạo nhóm luồng I/O
+     * @param count Số luồng I/O
+     * @param namePrefix Tiền tố tên luồng
+     */
+    public ClientIO(int count, String namePrefix) {
+        this.loops = new IOLoop[Math.max(1, count)];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new IOLoop(namePrefix + "-" + i);
+        }
+    }
+
+    /**
+     * Chọn luồng I/O cho một kết nối mới (vòng tròn)
+     * @return Luồng I/O mà kết nối sẽ gắn cố định vào
+     */
+    public IOLoop next() {
+        return loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+    }
+}
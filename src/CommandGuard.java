@@ -0,0 +1,247 @@
+// CommandGuard.java
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class CommandGuard - Lớp bảo vệ ở tầng I/O, chạy trên luồng I/O đọc lệnh của kết nối (ClientIO)
+ * Lệnh chỉ được chuyển vào GameSession khi:
+ * - Nằm trong danh sách lệnh hợp lệ và không quá MAX_COMMAND_LENGTH ký tự
+ * - Còn token ở bucket của kết nối và bucket của địa chỉ IP (nhiều kết nối cùng IP dùng chung)
+ * Lệnh bị từ chối chỉ được đếm rồi bỏ qua, không trả lời, nên client phá hoại không tốn CPU của bàn.
+ * Kết nối qua Router mà không rõ IP thật của client thì chỉ dùng bucket của kết nối.
+ * Bucket của một IP được giữ chừng nào còn kết nối từ IP đó (đếm tham chiếu, close() khi kết nối đóng),
+ * nên mọi kết nối cùng IP luôn dùng đúng một bucket; chỉ bucket không còn kết nối và đã đầy lại mới bị dọn.
+ */
+public class CommandGuard {
+    public static final int MAX_COMMAND_LENGTH = 48; // Đủ cho "BETS:" với MAX_HANDS tay cược tối đa
+    public static final int MAX_NAME_LENGTH = 32;
+    // Số byte tối đa của một message client gửi lên (handshake, FORWARDED của Router, lệnh)
+    public static final int MAX_MESSAGE_BYTES = 512;
+    private static final double CONNECTION_RATE = 10;   // lệnh/giây cho mỗi kết nối
+    private static final int CONNECTION_BURST = 20;
+    private static final double IP_RATE = 40;           // lệnh/giây cho mỗi địa chỉ IP
+    private static final int IP_BURST = 80;
+    private static final int MAX_BET_DIGITS = 7;
+    private static final int MAX_HANDS = Blackjack.MAX_HANDS_PER_PLAYER;
+    private static final long MAINTENANCE_INTERVAL_SECONDS = 60;
+
+    private static final int MAX_STAND_ON_DIGITS = 2;
+
+    // JOIN chỉ có nghĩa khi đi kèm tiền tố kênh "@<kênh>:" (mở thêm bàn trên cùng kết nối)
+    private static final Set<String> SIMPLE_COMMANDS = Set.of(
+        "HIT", "STAND", "LEAVE", "REQUEST_NEW_GAME", "ACCEPT_NEW_GAME", "DECLINE_NEW_GAME", "JOIN", "AUTOPLAY:OFF");
+
+    /**
+     * Chỉ cho phép giải mã String - mọi class khác bị từ chối trước khi được tạo
+     * Bộ lọc không được gọi cho bản ghi String (TC_STRING/TC_LONGSTRING) và maxbytes tính trên cả stream,
+     * nên độ dài từng message được giới hạn ở tầng byte bằng MessageLimit thay vì bằng maxbytes.
+     */
+    public static final ObjectInputFilter STRING_ONLY_FILTER =
+        ObjectInputFilter.Config.createFilter("java.lang.String;maxdepth=1;!*");
+
+    /** Kết quả kiểm tra một lệnh */
+    public enum Verdict { ACCEPTED, RATE_LIMITED, INVALID }
+
+    /**
+     * Bucket của một IP và số guard (kết nối/kênh) đang dùng nó; chỉ sửa bên trong compute của map
+     */
+    private static final class IpBucket {
+        final TokenBucket bucket = new TokenBucket(IP_RATE, IP_BURST);
+        int guards = 0;
+    }
+
+    private static final Map<String, IpBucket> ipBuckets = new ConcurrentHashMap<>();
+
+    // Bộ đếm toàn server
+    static final AtomicLong accepted = new AtomicLong();
+    static final AtomicLong rateLimited = new AtomicLong();
+    static final AtomicLong invalid = new AtomicLong();
+
+    private final TokenBucket connectionBucket = new TokenBucket(CONNECTION_RATE, CONNECTION_BURST);
+    private final String clientIP;
+    private final TokenBucket ipBucket; // null = không giới hạn theo IP
+    private boolean closed = false;
+
+    /**
+     * Constructor - Tạo guard cho một kết nối
+     * @param clientIP Địa chỉ IP thật của client, hoặc null nếu không biết (kết nối từ Router)
+     */
+    public CommandGuard(String clientIP) {
+        this.clientIP = clientIP;
+        if (clientIP == null) {
+            this.ipBucket = null;
+            return;
+        }
+        IpBucket entry = ipBuckets.compute(clientIP, (ip, existing) -> {
+            IpBucket bucket = (existing != null) ? existing : new IpBucket();
+            bucket.guards++;
+            return bucket;
+        });
+        this.ipBucket = entry.bucket;
+    }
+
+    /**
+     * Kết nối (hoặc kênh) của guard đã đóng - nhả tham chiếu tới bucket của IP; gọi nhiều lần cũng an toàn
+     */
+    public synchronized void close() {
+        if (closed || clientIP == null) return;
+        closed = true;
+        ipBuckets.computeIfPresent(clientIP, (ip, bucket) -> {
+            bucket.guards--;
+            return bucket;
+        });
+    }
+
+    /**
+     * Kiểm tra một lệnh vừa đọc từ socket
+     * @param command Lệnh của client
+     * @return ACCEPTED nếu được chuyển vào bàn chơi
+     */
+    public Verdict check(String command) {
+        if (!isValid(command)) {
+            invalid.incrementAndGet();
+            return Verdict.INVALID;
+        }
+        // Kiểm tra bucket kết nối trước để một kết nối flood không tiêu hết token của cả IP
+        if (!connectionBucket.tryAcquire() || (ipBucket != null && !ipBucket.tryAcquire())) {
+            rateLimited.incrementAndGet();
+            return Verdict.RATE_LIMITED;
+        }
+        accepted.incrementAndGet();
+        return Verdict.ACCEPTED;
+    }
+
+    private static boolean isValid(String command) {
+        if (command.length() > MAX_COMMAND_LENGTH) return false;
+        if (SIMPLE_COMMANDS.contains(command)) return true;
+        if (command.startsWith("BET:")) return isAmount(command, 4, command.length());
+        if (command.startsWith("BETS:")) {
+            // 1..MAX_HANDS số tiền cách nhau bởi dấu phẩy
+            int hands = 0;
+            int start = 5;
+            while (true) {
+                int comma = command.indexOf(',', start);
+                int end = (comma < 0) ? command.length() : comma;
+                if (++hands > MAX_HANDS || !isAmount(command, start, end)) return false;
+                if (comma < 0) return true;
+                start = comma + 1;
+            }
+        }
+        if (command.startsWith("AUTOPLAY:")) {
+            // "AUTOPLAY:số_tiền_cược:ngưỡng_dừng"
+            int colon = command.indexOf(':', 9);
+            return colon > 0 && isAmount(command, 9, colon)
+                && command.length() - colon - 1 <= MAX_STAND_ON_DIGITS && isAmount(command, colon + 1, command.length());
+        }
+        // "HIT:tay" / "STAND:tay" - chỉ số tay một chữ số
+        String hand = command.startsWith("HIT:") ? command.substring(4)
+            : command.startsWith("STAND:") ? command.substring(6) : null;
+        return hand != null && hand.length() == 1
+            && hand.charAt(0) >= '0' && hand.charAt(0) < '0' + MAX_HANDS;
+    }
+
+    // Đoạn [start, end) là số nguyên dương không quá MAX_BET_DIGITS chữ số
+    private static boolean isAmount(String command, int start, int end) {
+        int digits = end - start;
+        if (digits < 1 || digits > MAX_BET_DIGITS) return false;
+        for (int i = start; i < end; i++) {
+            char c = command.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Kiểm tra tên người chơi trong handshake
+     * Không cho phép '#': ví của kênh bàn thứ n của người chơi "An" mang tên "An#n" (TableChannel)
+     * @param name Tên người chơi
+     * @return true nếu hợp lệ
+     */
+    public static boolean isValidName(String name) {
+        return !name.isBlank() && name.length() <= MAX_NAME_LENGTH && name.indexOf('#') < 0;
+    }
+
+    /**
+     * Định kỳ dọn bucket của các IP không còn kết nối nào và in thống kê nếu có lệnh bị từ chối
+     */
+    public static void startMaintenance() {
+        Server.timers.schedule(CommandGuard::maintain, MAINTENANCE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * InputStream giới hạn số byte đọc cho mỗi message: gọi nextMessage() trước mỗi readObject().
+     * String quá dài bị cắt ngang bằng IOException khi mới đọc tới MAX_MESSAGE_BYTES byte,
+     * thay vì được đọc và giải mã hết rồi mới bị kiểm tra độ dài.
+     */
+    public static final class MessageLimit extends FilterInputStream {
+        private final int maxBytes;
+        private int remaining;
+
+        public MessageLimit(InputStream in, int maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+            this.remaining = maxBytes; // Header của object stream tính vào message đầu tiên
+        }
+
+        /** Bắt đầu message mới với đủ MAX_MESSAGE_BYTES byte */
+        public void nextMessage() {
+            remaining = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkRemaining();
+            int b = super.read();
+            if (b != -1) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            checkRemaining();
+            int n = super.read(b, off, Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            checkRemaining();
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= (int) skipped;
+            return skipped;
+        }
+
+        private void checkRemaining() throws IOException {
+            if (remaining <= 0) {
+                invalid.incrementAndGet();
+                throw new IOException("Message vượt quá " + maxBytes + " byte");
+            }
+        }
+    }
+
+    private static long lastReportedDrops = 0;
+
+    private static void maintain() {
+        // Xóa trong compute để không đua với kết nối mới của cùng IP đang tăng số tham chiếu
+        for (String ip : ipBuckets.keySet()) {
+            ipBuckets.computeIfPresent(ip, (key, bucket) ->
+                (bucket.guards == 0 && bucket.bucket.isIdle()) ? null : bucket);
+        }
+        long drops = rateLimited.get() + invalid.get();
+        if (drops != lastReportedDrops) {
+            lastReportedDrops = drops;
+            System.out.println("🛡️ Lệnh: " + accepted.get() + " hợp lệ, " + rateLimited.get()
+                + " bị giới hạn tốc độ, " + invalid.get() + " không hợp lệ");
+        }
+        startMaintenance();
+    }
+}
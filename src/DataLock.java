@@ -0,0 +1,68 @@
+// DataLock.java
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class DataLock - Khóa độc quyền (FileLock) trên một file khóa, giữ suốt thời gian tiến trình dùng dữ liệu
+ * Hai tiến trình server trỏ vào cùng một file dữ liệu (ví dụ hai node của cluster chạy chung thư mục)
+ * sẽ ghi đè lên nhau; tiến trình đến sau nhận HeldException ngay khi mở thay vì chạy tiếp.
+ * Hệ điều hành tự nhả khóa khi tiến trình thoát, kể cả khi bị dừng đột ngột.
+ */
+class DataLock implements AutoCloseable {
+    /**
+     * File khóa đang bị tiến trình khác (hoặc chính tiến trình này) giữ
+     */
+    static final class HeldException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        HeldException(Path lockFile) {
+            super(lockFile + " đang được một tiến trình server khác sử dụng");
+        }
+    }
+
+    private final FileChannel channel;
+    private final FileLock lock;
+
+    private DataLock(FileChannel channel, FileLock lock) {
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    /**
+     * Lấy khóa độc quyền, không chờ
+     * @param lockFile File khóa (được tạo nếu chưa có, nội dung không dùng tới)
+     * @return Khóa đang giữ
+     * @throws HeldException nếu khóa đang bị giữ
+     * @throws IOException nếu không mở được file khóa
+     */
+    static DataLock acquire(Path lockFile) throws IOException {
+        FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // Chính tiến trình này đã giữ khóa
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new HeldException(lockFile);
+        }
+        return new DataLock(channel, lock);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+}
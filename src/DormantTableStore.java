@@ -0,0 +1,132 @@
+// DormantTableStore.java
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class DormantTableStore - Kho ngoài heap cho engine của các bàn đang nghỉ
+ * Bàn nằm yên ở GAME_OVER quá lâu được "cất": engine Blackjack được nén (Blackjack.writeCompact)
+ * vào một ô cố định SLOT_SIZE byte trong các khối direct ByteBuffer, còn đối tượng engine
+ * được trả về TablePool. Khi bàn có hoạt động trở lại, engine được lấy từ pool và nạp lại từ ô.
+ *
+ * - Các khối CHUNK_SLOTS ô được cấp dần khi cần, tối đa maxSlots ô; GC không phải quét chúng
+ * - Ô trống được quản lý bằng một ngăn xếp int, không có đối tượng heap nào cho mỗi bàn
+ * - Đọc/ghi dùng truy cập tuyệt đối nên nhiều event loop dùng chung khối được;
+ *   chỉ cấp phát và thu hồi ô cần khóa
+ * Cất bàn là tối ưu "nếu được": kho đầy hoặc trạng thái không vừa một ô thì bàn giữ engine trên heap.
+ */
+public class DormantTableStore {
+    static final int SLOT_SIZE = 256;
+    private static final int CHUNK_SLOTS = 4096; // 1 MB mỗi khối
+    private static final int LENGTH_BYTES = 2;
+
+    private final int maxSlots;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int[] freeSlots = new int[CHUNK_SLOTS];
+    private int freeCount = 0;
+    private int allocatedSlots = 0;
+    private int parkedCount = 0;
+
+    // Bộ đệm nén tạm trên heap, mỗi event loop một bộ
+    private final ThreadLocal<ByteBuffer> scratch =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocate(SLOT_SIZE - LENGTH_BYTES));
+
+    /**
+     * Constructor
+     * @param maxSlots Số bàn tối đa được cất cùng lúc (bộ nhớ ngoài heap tối đa = maxSlots * SLOT_SIZE)
+     */
+    public DormantTableStore(int maxSlots) {
+        this.maxSlots = maxSlots;
+    }
+
+    /**
+     * Nén engine vào một ô trống
+     * @param game Engine của bàn đang nghỉ
+     * @return Số hiệu ô, hoặc -1 nếu kho đầy hoặc trạng thái không vừa một ô
+     */
+    public int park(Blackjack game) {
+        ByteBuffer encoded = scratch.get();
+        encoded.clear();
+        try {
+            game.writeCompact(encoded);
+        } catch (BufferOverflowException e) {
+            return -1;
+        }
+        encoded.flip();
+
+        int slot = allocate();
+        if (slot < 0) return -1;
+        ByteBuffer chunk = chunkOf(slot);
+        int offset = offsetOf(slot);
+        chunk.putShort(offset, (short) encoded.limit());
+        chunk.put(offset + LENGTH_BYTES, encoded, 0, encoded.limit());
+        return slot;
+    }
+
+    /**
+     * Nạp trạng thái trong ô vào engine rồi giải phóng ô
+     * @param slot Số hiệu ô do park() trả về
+     * @param game Engine sạch (thường lấy từ TablePool) có cùng số ghế
+     */
+    public void unpark(int slot, Blackjack game) {
+        ByteBuffer chunk = chunkOf(slot);
+        int offset = offsetOf(slot);
+        ByteBuffer encoded = scratch.get();
+        encoded.clear();
+        encoded.put(0, chunk, offset + LENGTH_BYTES, chunk.getShort(offset));
+        try {
+            game.readCompact(encoded);
+        } finally {
+            free(slot);
+        }
+    }
+
+    /** @return Số bàn đang được cất */
+    public synchronized int getParkedCount() {
+        return parkedCount;
+    }
+
+    /** @return Bộ nhớ ngoài heap đã cấp (byte) */
+    public synchronized long getOffHeapBytes() {
+        return (long) chunks.size() * CHUNK_SLOTS * SLOT_SIZE;
+    }
+
+    private synchronized int allocate() {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else if (allocatedSlots < maxSlots) {
+            if (allocatedSlots == chunks.size() * CHUNK_SLOTS) {
+                try {
+                    chunks.add(ByteBuffer.allocateDirect(CHUNK_SLOTS * SLOT_SIZE));
+                } catch (OutOfMemoryError e) {
+                    return -1; // Hết bộ nhớ direct - bàn tiếp tục nằm trên heap
+                }
+            }
+            slot = allocatedSlots++;
+        } else {
+            return -1;
+        }
+        parkedCount++;
+        return slot;
+    }
+
+    private synchronized void free(int slot) {
+        if (freeCount == freeSlots.length) {
+            int[] grown = new int[freeSlots.length * 2];
+            System.arraycopy(freeSlots, 0, grown, 0, freeCount);
+            freeSlots = grown;
+        }
+        freeSlots[freeCount++] = slot;
+        parkedCount--;
+    }
+
+    private synchronized ByteBuffer chunkOf(int slot) {
+        return chunks.get(slot / CHUNK_SLOTS);
+    }
+
+    private static int offsetOf(int slot) {
+        return (slot % CHUNK_SLOTS) * SLOT_SIZE;
+    }
+}
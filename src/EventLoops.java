@@ -0,0 +1,93 @@
+// EventLoops.java
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class EventLoops - Nhóm event loop đơn luồng dùng để chạy các bàn chơi
+ * Mỗi event loop là một luồng với hàng đợi tác vụ riêng; mỗi bàn chơi được gắn cố định
+ * vào một loop khi tạo, nên mọi tác vụ của bàn chạy tuần tự trên cùng một luồng
+ * (không cần khóa) và dữ liệu của bàn luôn "nóng" trong cache của luồng đó.
+ *
+ * Số loop mặc định bằng số lõi CPU; các bàn được chia đều theo vòng tròn.
+ */
+public class EventLoops {
+
+    /**
+     * Một event loop: một luồng duy nhất xử lý lần lượt các tác vụ trong hàng đợi
+     */
+    public static final class EventLoop {
+        private final ThreadPoolExecutor executor;
+        private volatile Thread thread;
+
+        private EventLoop(String name) {
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, name);
+                    t.setDaemon(true);
+                    thread = t;
+                    return t;
+                });
+        }
+
+        /**
+         * Đưa tác vụ vào hàng đợi của loop
+         * Lỗi trong tác vụ chỉ được ghi log, không làm dừng loop hay ảnh hưởng bàn khác
+         * @param task Tác vụ cần chạy
+         */
+        public void execute(Runnable task) {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Lỗi trong event loop " + Thread.currentThread().getName() + ": " + e.getMessage());
+                    e.printStackTrace();
+                }
+            });
+        }
+
+        /** @return true nếu luồng hiện tại chính là luồng của loop này */
+        public boolean inEventLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        /** @return Số tác vụ đang chờ trong hàng đợi */
+        public int pendingTasks() {
+            return executor.getQueue().size();
+        }
+    }
+
+    private final EventLoop[] loops;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+
+    /**
+     * Constructor - Tạo nhóm event loop
+     * @param count Số loop (thường bằng số lõi CPU)
+     * @param namePrefix Tiền tố tên luồng
+     */
+    public EventLoops(int count, String namePrefix) {
+        this.loops = new EventLoop[Math.max(1, count)];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(namePrefix + "-" + i);
+        }
+    }
+
+    /**
+     * Chọn loop cho một bàn mới (vòng tròn)
+     * @return Event loop mà bàn sẽ gắn cố định vào
+     */
+    public EventLoop next() {
+        return loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+    }
+
+    /** @return Số loop trong nhóm */
+    public int size() {
+        return loops.length;
+    }
+
+    /** @return Loop thứ index (dùng cho giám sát) */
+    public EventLoop get(int index) {
+        return loops[index];
+    }
+}
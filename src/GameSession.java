@@ -0,0 +1,785 @@
+// GameSession.java
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class GameSession - Một bàn chơi, được mô hình như một actor
+ * Bàn gắn cố định vào một event loop; mọi lệnh từ luồng I/O của người chơi, mọi hẹn giờ
+ * và mọi sự kiện kết nối đều được đưa vào mailbox (hàng đợi của loop) qua post().
+ * Trạng thái của bàn chỉ được đọc/ghi trên luồng của loop nên không cần synchronized.
+ */
+class GameSession {
+    // Thời gian giữ ghế cho người chơi bị mất kết nối trước khi kết thúc phiên
+    private static final long RECONNECT_GRACE_SECONDS = 60;
+    // Deadline cho mỗi giai đoạn - hết giờ thì server tự cược tối thiểu / tự dừng
+    private static final long BETTING_TIMEOUT_SECONDS = 30;
+    private static final long TURN_TIMEOUT_SECONDS = 20;
+    private static final int MIN_BET = 10;
+    // Tự chơi: ngưỡng dừng hợp lệ và thời gian dừng giữa hai ván để người chơi kịp xem kết quả
+    private static final int MIN_STAND_ON = 12;
+    private static final int MAX_STAND_ON = 21;
+    private static final long AUTOPLAY_ROUND_PAUSE_MS = 1500;
+    // Bàn nằm yên ở GAME_OVER lâu hơn thời gian này thì engine được cất ra ngoài heap
+    private static final long PARK_AFTER_IDLE_SECONDS = 30;
+    // myPlayerId của góc nhìn công khai gửi cho người xem
+    private static final int SPECTATOR_VIEW = -1;
+
+    private PlayerConnection player1;
+    private PlayerConnection player2;
+    private final String[] seatTokens = new String[2];
+    private final HashedTimerWheel.Timeout[] graceTimers = new HashedTimerWheel.Timeout[2];
+
+    // Deadline của giai đoạn hiện tại; turnKey xác định giai đoạn (trạng thái + lượt + số ván)
+    private HashedTimerWheel.Timeout turnTimer;
+    private String turnKey = "";
+    private int handNumber = 0;
+    private Blackjack game; // null khi bàn đang được cất trong Server.dormantTables
+    private int parkedSlot = -1;
+    private HashedTimerWheel.Timeout parkTimer;
+    private long lastActivityNanos = System.nanoTime();
+    private boolean player1WantsNewGame = false;
+    private boolean player2WantsNewGame = false;
+
+    // Chế độ tự chơi của từng ghế: số tiền cược lại mỗi ván và ngưỡng dừng (0 = tắt)
+    private final int[] autoRebet = new int[2];
+    private final int[] autoStandOn = new int[2];
+    private HashedTimerWheel.Timeout autoRoundTimer;
+
+    // Bản cập nhật của từng góc nhìn (ghế 0, ghế 1, người xem) và bài úp của người xem, dùng lại giữa các lần gửi
+    private final GameStateUpdate[] views = {
+        new GameStateUpdate(0), new GameStateUpdate(1), new GameStateUpdate(SPECTATOR_VIEW)
+    };
+    private final List<ArrayList<Card>> hiddenHands = new ArrayList<>();
+
+    // Bản ghi của ván đang chơi (null nếu không ghi journal)
+    private HandRecord currentHand;
+    
+    // Cờ để đảm bảo phiên chỉ kết thúc một lần
+    private boolean sessionEnded = false;
+
+    private final EventLoops.EventLoop loop;
+
+    GameSession(PlayerConnection p1, PlayerConnection p2) {
+        this.player1 = p1;
+        this.player2 = p2;
+        this.loop = Server.tableLoops.next();
+        this.game = Server.tablePool.acquire();
+        loadBalances();
+
+        seatTokens[0] = p1.getResumeToken();
+        seatTokens[1] = p2.getResumeToken();
+        Server.sessionsByToken.put(seatTokens[0], this);
+        Server.sessionsByToken.put(seatTokens[1], this);
+    }
+
+    /**
+     * Constructor - Dựng lại bàn từ snapshot của tiến trình server trước
+     * Cả hai ghế đều là HeldSeat cho tới khi người chơi resume bằng token cũ
+     * @param snapshot Trạng thái bàn lúc chuyển giao
+     */
+    GameSession(TableHandoff.TableSnapshot snapshot) {
+        this.player1 = new HeldSeat(snapshot.playersNames[0], snapshot.seatTokens[0]);
+        this.player2 = new HeldSeat(snapshot.playersNames[1], snapshot.seatTokens[1]);
+        Server.namesInUse.add(snapshot.playersNames[0]);
+        Server.namesInUse.add(snapshot.playersNames[1]);
+        this.loop = Server.tableLoops.next();
+        this.game = snapshot.game;
+        this.handNumber = snapshot.handNumber;
+        this.player1WantsNewGame = snapshot.wantsNewGame[0];
+        this.player2WantsNewGame = snapshot.wantsNewGame[1];
+        if (snapshot.currentHandLine != null && Server.handJournal != null) {
+            this.currentHand = HandRecord.parse(snapshot.currentHandLine);
+        }
+
+        seatTokens[0] = snapshot.seatTokens[0];
+        seatTokens[1] = snapshot.seatTokens[1];
+        Server.sessionsByToken.put(seatTokens[0], this);
+        Server.sessionsByToken.put(seatTokens[1], this);
+    }
+    
+    // Đưa tác vụ vào mailbox của bàn
+    // Mọi tác vụ đều nạp lại engine trước nếu bàn đang được cất
+    private void post(Runnable task) {
+        loop.execute(() -> {
+            wake();
+            task.run();
+        });
+    }
+
+    // Nạp lại engine của bàn đang được cất và ghi nhận hoạt động
+    private void wake() {
+        lastActivityNanos = System.nanoTime();
+        if (parkedSlot < 0) return;
+        game = Server.tablePool.acquire();
+        Server.dormantTables.unpark(parkedSlot, game);
+        parkedSlot = -1;
+        schedulePark(); // Lệnh không làm đổi trạng thái (ví dụ REQUEST_NEW_GAME) không gọi broadcast
+    }
+
+    // Hẹn kiểm tra cất bàn khi bàn đang chờ ván mới; chạy thẳng trên loop để không tự đánh thức bàn
+    private void schedulePark() {
+        if (parkTimer != null || game.getCurrentGameState() != Blackjack.GameState.GAME_OVER) return;
+        long idleNanos = System.nanoTime() - lastActivityNanos;
+        long delayNanos = Math.max(0, TimeUnit.SECONDS.toNanos(PARK_AFTER_IDLE_SECONDS) - idleNanos);
+        parkTimer = Server.timers.schedule(() -> loop.execute(this::parkIfIdle), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void parkIfIdle() {
+        parkTimer = null;
+        if (sessionEnded || parkedSlot >= 0 || autoRoundTimer != null) return;
+        if (game.getCurrentGameState() != Blackjack.GameState.GAME_OVER) return;
+        if (System.nanoTime() - lastActivityNanos < TimeUnit.SECONDS.toNanos(PARK_AFTER_IDLE_SECONDS)) {
+            schedulePark(); // Có hoạt động sau khi hẹn - chờ thêm phần còn lại
+            return;
+        }
+        int slot = Server.dormantTables.park(game);
+        if (slot < 0) return; // Kho đầy - giữ engine trên heap
+        Server.tablePool.release(game);
+        game = null;
+        parkedSlot = slot;
+    }
+
+    /**
+     * Bắt đầu phiên: chia ván đầu tiên trên event loop rồi mới bắt đầu đọc lệnh của hai người chơi
+     */
+    public void start() {
+        player1.setGameSession(this, 0);
+        player2.setGameSession(this, 1);
+        post(() -> {
+            try {
+                Server.spectators.offer(this);
+                startHand();
+                broadcastGameState();
+            } catch (Exception e) {
+                System.err.println("Lỗi nghiêm trọng trong game session: " + e.getMessage());
+                endSession();
+            }
+        });
+        player1.startReading();
+        player2.startReading();
+    }
+
+    /**
+     * Mở lại bàn vừa khôi phục: giữ cả hai ghế trong RECONNECT_GRACE_SECONDS
+     * và đặt lại deadline cho lượt đang chờ (deadline cũ không được chuyển giao)
+     */
+    public void restore() {
+        post(() -> {
+            Server.spectators.offer(this);
+            for (int seat = 0; seat < 2; seat++) {
+                int heldSeat = seat;
+                graceTimers[seat] = Server.timers.schedule(() -> post(() -> expireSeat(heldSeat)),
+                    RECONNECT_GRACE_SECONDS, TimeUnit.SECONDS);
+            }
+            armTurnTimer();
+        });
+    }
+
+    /**
+     * Chụp trạng thái bàn để chuyển cho tiến trình server mới, rồi ngừng xử lý lệnh
+     * Chạy trên event loop nên snapshot luôn nằm giữa hai lệnh, không bao giờ giữa một lệnh
+     * @return Snapshot của bàn, hoặc null nếu bàn đã kết thúc
+     */
+    public CompletableFuture<TableHandoff.TableSnapshot> handOff() {
+        CompletableFuture<TableHandoff.TableSnapshot> result = new CompletableFuture<>();
+        post(() -> {
+            if (sessionEnded) {
+                result.complete(null);
+                return;
+            }
+            sessionEnded = true; // Lệnh đến sau thời điểm chụp sẽ không được áp dụng
+            saveBalances();
+            result.complete(new TableHandoff.TableSnapshot(
+                new String[] { player1.getPlayerName(), player2.getPlayerName() },
+                seatTokens.clone(), game, handNumber,
+                currentHand != null ? currentHand.toLine() : null,
+                new boolean[] { player1WantsNewGame, player2WantsNewGame }));
+        });
+        return result;
+    }
+
+    /**
+     * Nhận lệnh từ luồng I/O của người chơi - chỉ xếp vào mailbox, không xử lý tại chỗ
+     * @param command Lệnh của client
+     * @param playerId Ghế của người gửi
+     */
+    public void handleCommand(String command, int playerId) {
+        long queuedAt = System.nanoTime();
+        post(() -> {
+            processCommand(command, playerId);
+            Server.admission.recordCommandLatency(System.nanoTime() - queuedAt);
+        });
+    }
+
+    private void processCommand(String command, int playerId) {
+        if (sessionEnded) return; // Nếu phiên đã kết thúc, không xử lý gì thêm
+
+        // XỬ LÝ BETTING COMMANDS - THÊM
+        if (command.startsWith("BET:")) {
+            try {
+                int betAmount = Integer.parseInt(command.substring(4));
+                if (game.placeBet(playerId, betAmount)) {
+                    recordDecision(playerId, "BET:" + betAmount);
+                    saveBalances();
+                    String playerName = (playerId == 0) ? player1.getPlayerName() : player2.getPlayerName();
+                    System.out.println("Player " + playerId + " (" + playerName + ") đặt cược " + betAmount + "$");
+                    broadcastGameState();
+                } else {
+                    // Gửi thông báo lỗi về client
+                    PlayerConnection player = (playerId == 0) ? player1 : player2;
+                    player.sendObject("BETTING_ERROR:Không đủ tiền hoặc số cược không hợp lệ");
+                }
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid bet amount: " + command);
+                PlayerConnection player = (playerId == 0) ? player1 : player2;
+                player.sendObject("BETTING_ERROR:Số tiền không hợp lệ");
+            }
+            return;
+        }
+
+        // Cược nhiều tay trong một lệnh: "BETS:10,20,50" (mỗi số là một tay)
+        if (command.startsWith("BETS:")) {
+            String[] parts = command.substring(5).split(",");
+            int[] betAmounts = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                betAmounts[i] = Integer.parseInt(parts[i]); // CommandGuard đã kiểm tra định dạng
+            }
+            if (game.placeBets(playerId, betAmounts)) {
+                recordDecision(playerId, command);
+                saveBalances();
+                System.out.println("Player " + playerId + " (" + getPlayer(playerId).getPlayerName() + ") đặt cược "
+                    + betAmounts.length + " tay, tổng " + game.getTotalBet(playerId) + "$");
+                broadcastGameState();
+            } else {
+                getPlayer(playerId).sendObject("BETTING_ERROR:Không đủ tiền hoặc số cược không hợp lệ");
+            }
+            return;
+        }
+
+        // Xử lý game commands (HIT/STAND); dạng "HIT:tay" chỉ có hiệu lực khi đúng tay đang chơi,
+        // để lệnh gửi chậm của tay trước không bị áp vào tay sau
+        String action = command;
+        int colon = command.indexOf(':');
+        if (colon > 0) {
+            action = command.substring(0, colon);
+        }
+        if (action.equals("HIT") || action.equals("STAND")) {
+            if (game.getCurrentGameState() != Blackjack.GameState.PLAYER_TURN || 
+                game.getCurrentPlayerIndex() != playerId) {
+                return;
+            }
+            if (colon > 0 && Integer.parseInt(command.substring(colon + 1)) != game.getCurrentHandIndex()) {
+                return;
+            }
+            if (action.equals("HIT")) {
+                game.playerHit();
+            } else {
+                game.playerStand();
+            }
+            recordDecision(playerId, action);
+            saveBalances();
+            
+            broadcastGameState();
+            return;
+        }
+
+        if (command.startsWith("AUTOPLAY:")) {
+            setAutoPlay(playerId, command.substring(9));
+            return;
+        }
+
+        // Xử lý new game commands
+        switch(command) {
+            case "LEAVE":
+                // Người chơi chủ động rời bàn - không giữ ghế
+                leaveSession(playerId);
+                break;
+            case "REQUEST_NEW_GAME":
+            case "ACCEPT_NEW_GAME":
+                handleNewGameRequest(playerId);
+                break;
+            case "DECLINE_NEW_GAME":
+                player1.sendObject("NEW_GAME_DECLINED");
+                player2.sendObject("NEW_GAME_DECLINED");
+                resetNewGameRequests();
+                break;
+        }
+    }
+    
+    public void broadcastGameState() {
+        if (sessionEnded) return;
+        if (applyAutoPlay()) {
+            saveBalances();
+        }
+        armTurnTimer();
+        schedulePark();
+        player1.sendObject(createUpdateForPlayer(0));
+        player2.sendObject(createUpdateForPlayer(1));
+        if (Server.spectators.isFeatured(this)) {
+            Server.spectators.publish(createUpdateForPlayer(SPECTATOR_VIEW));
+        }
+    }
+
+    /**
+     * Gửi trạng thái hiện tại cho người xem khi bàn vừa được chọn làm bàn nổi bật
+     */
+    public void refreshSpectators() {
+        post(() -> {
+            if (!sessionEnded && Server.spectators.isFeatured(this)) {
+                Server.spectators.publish(createUpdateForPlayer(SPECTATOR_VIEW));
+            }
+        });
+    }
+
+    /**
+     * Bật/tắt tự chơi cho một ghế
+     * @param playerId Ghế
+     * @param args "OFF" hoặc "số_tiền_cược:ngưỡng_dừng" (CommandGuard đã kiểm tra định dạng)
+     */
+    private void setAutoPlay(int playerId, String args) {
+        PlayerConnection player = getPlayer(playerId);
+        if (args.equals("OFF")) {
+            autoRebet[playerId] = 0;
+            autoStandOn[playerId] = 0;
+            System.out.println("🤖 " + player.getPlayerName() + " tắt tự chơi");
+            player.sendObject("AUTOPLAY_OFF");
+            return;
+        }
+        int colon = args.indexOf(':');
+        int rebet = Integer.parseInt(args.substring(0, colon));
+        int standOn = Integer.parseInt(args.substring(colon + 1));
+        if (rebet < 1 || standOn < MIN_STAND_ON || standOn > MAX_STAND_ON) {
+            player.sendObject("AUTOPLAY_ERROR:Ngưỡng dừng phải từ " + MIN_STAND_ON + " đến " + MAX_STAND_ON
+                + " và số tiền cược phải lớn hơn 0");
+            return;
+        }
+        autoRebet[playerId] = rebet;
+        autoStandOn[playerId] = standOn;
+        System.out.println("🤖 " + player.getPlayerName() + " bật tự chơi: cược " + rebet + "$, dừng ở " + standOn + " điểm");
+        player.sendObject("AUTOPLAY_ON:" + rebet + ":" + standOn);
+        broadcastGameState(); // Áp dụng ngay nếu đang tới lượt ghế này
+    }
+
+    /**
+     * Áp dụng liên tiếp các quyết định của ghế đang tự chơi ngay trên event loop,
+     * không chờ vòng gửi/nhận với client; gọi trước mỗi lần broadcast
+     * @return true nếu có quyết định nào được áp dụng
+     */
+    private boolean applyAutoPlay() {
+        boolean acted = false;
+        while (true) {
+            Blackjack.GameState state = game.getCurrentGameState();
+            if (state == Blackjack.GameState.BETTING) {
+                boolean betPlaced = false;
+                for (int i = 0; i < 2 && game.getCurrentGameState() == Blackjack.GameState.BETTING; i++) {
+                    if (autoRebet[i] == 0 || game.hasBet(i)) continue;
+                    int amount = Math.min(autoRebet[i], game.getPlayersMoneys().get(i));
+                    if (game.placeBet(i, amount)) {
+                        recordDecision(i, "BET:" + amount);
+                        betPlaced = true;
+                    }
+                }
+                if (!betPlaced) break;
+            } else if (state == Blackjack.GameState.PLAYER_TURN) {
+                int seat = game.getCurrentPlayerIndex();
+                if (autoStandOn[seat] == 0) break;
+                // Rút tới khi đạt ngưỡng; engine tự dừng khi quá 21, đủ 21 hoặc đủ 5 lá
+                if (game.getCurrentHandSum() < autoStandOn[seat]) {
+                    game.playerHit();
+                    recordDecision(seat, "HIT");
+                } else {
+                    game.playerStand();
+                    recordDecision(seat, "STAND");
+                }
+            } else {
+                if (state == Blackjack.GameState.GAME_OVER) {
+                    scheduleAutoNewGame();
+                }
+                break;
+            }
+            acted = true;
+        }
+        return acted;
+    }
+
+    // Ghế tự chơi đồng ý ván mới sau AUTOPLAY_ROUND_PAUSE_MS; nếu cả hai ghế tự chơi thì ván mới bắt đầu luôn
+    private void scheduleAutoNewGame() {
+        if (autoRoundTimer != null || (autoRebet[0] == 0 && autoRebet[1] == 0)) return;
+        int hand = handNumber;
+        autoRoundTimer = Server.timers.schedule(() -> post(() -> {
+            autoRoundTimer = null;
+            if (sessionEnded || hand != handNumber || game.getCurrentGameState() != Blackjack.GameState.GAME_OVER) return;
+            if (autoRebet[0] == 0 && autoRebet[1] == 0) return;
+            if (autoRebet[0] != 0) player1WantsNewGame = true;
+            if (autoRebet[1] != 0) player2WantsNewGame = true;
+            handleNewGameRequest(autoRebet[0] != 0 ? 0 : 1);
+        }), AUTOPLAY_ROUND_PAUSE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Đặt deadline khi bước sang giai đoạn mới hoặc tay mới (rút thêm bài không gia hạn lượt)
+    private void armTurnTimer() {
+        Blackjack.GameState state = game.getCurrentGameState();
+        String key = state + ":" + game.getCurrentPlayerIndex() + ":" + game.getCurrentHandIndex() + ":" + handNumber;
+        if (key.equals(turnKey)) return;
+        turnKey = key;
+
+        if (turnTimer != null) {
+            turnTimer.cancel();
+            turnTimer = null;
+        }
+        if (state == Blackjack.GameState.BETTING) {
+            turnTimer = Server.timers.schedule(() -> post(() -> onTurnDeadline(key)), BETTING_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } else if (state == Blackjack.GameState.PLAYER_TURN) {
+            turnTimer = Server.timers.schedule(() -> post(() -> onTurnDeadline(key)), TURN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    // Hết giờ: cược tối thiểu cho người chưa cược, hoặc tự dừng cho người đang tới lượt
+    private void onTurnDeadline(String key) {
+        if (sessionEnded || !key.equals(turnKey)) return;
+
+        if (game.getCurrentGameState() == Blackjack.GameState.BETTING) {
+            for (int i = 0; i < 2 && game.getCurrentGameState() == Blackjack.GameState.BETTING; i++) {
+                if (game.hasBet(i)) continue;
+                int autoBet = Math.min(MIN_BET, game.getPlayersMoneys().get(i));
+                if (game.placeBet(i, autoBet)) {
+                    System.out.println("⏰ Hết giờ cược - tự cược " + autoBet + "$ cho " + getPlayer(i).getPlayerName());
+                    getPlayer(i).sendObject("AUTO_ACTION:Hết giờ, tự động cược $" + autoBet);
+                    recordDecision(i, "BET:" + autoBet);
+                }
+            }
+        } else if (game.getCurrentGameState() == Blackjack.GameState.PLAYER_TURN) {
+            int playerId = game.getCurrentPlayerIndex();
+            System.out.println("⏰ Hết giờ - tự dừng cho " + getPlayer(playerId).getPlayerName());
+            getPlayer(playerId).sendObject("AUTO_ACTION:Hết giờ, tự động dừng");
+            game.playerStand();
+            recordDecision(playerId, "STAND");
+        }
+        saveBalances();
+        broadcastGameState();
+    }
+    
+    /**
+     * Điền bản cập nhật của một góc nhìn từ trạng thái hiện tại của engine
+     * Bản cập nhật và các danh sách của nó được dùng lại giữa các lần gửi (views), nên nó chỉ hợp lệ
+     * cho tới lần gọi kế tiếp: người gọi phải mã hóa ngay trên event loop (sendObject, SpectatorHub.publish)
+     * @param playerId Ghế nhận, hoặc SPECTATOR_VIEW
+     * @return Bản cập nhật của góc nhìn đó
+     */
+    private GameStateUpdate createUpdateForPlayer(int playerId) {
+        GameStateUpdate view = views[playerId == SPECTATOR_VIEW ? views.length - 1 : playerId];
+        Blackjack.GameState state = game.getCurrentGameState();
+        boolean dealerRevealed = state == Blackjack.GameState.GAME_OVER || state == Blackjack.GameState.DEALER_TURN;
+
+        // Bài dealer để gửi: hiển thị tất cả khi đến lượt dealer hoặc ván kết thúc, nếu không thì ẩn lá đầu
+        ArrayList<Card> dealerHandToSend = view.dealerHand;
+        dealerHandToSend.clear();
+        if (dealerRevealed) {
+            dealerHandToSend.addAll(game.getDealerHand());
+        } else {
+            dealerHandToSend.add(Card.fromOrdinal(Card.BACK_ORDINAL));
+            for (int i = 1; i < game.getDealerHand().size(); i++) {
+                dealerHandToSend.add(game.getDealerHand().get(i));
+            }
+        }
+
+        // Tính dealer sum để gửi (chỉ tính các lá không bị ẩn)
+        int dealerSumToSend = 0;
+        if (dealerRevealed) {
+            dealerSumToSend = game.getDealerSum();
+        } else {
+            for (int i = 1; i < game.getDealerHand().size(); i++) {
+                dealerSumToSend += game.getDealerHand().get(i).getValue();
+            }
+        }
+
+        view.playersNames.clear();
+        view.playersNames.add(player1.getPlayerName());
+        view.playersNames.add(player2.getPlayerName());
+        view.handsPerPlayer.clear();
+        for (int seat = 0; seat < game.getNumberOfPlayers(); seat++) {
+            view.handsPerPlayer.add(game.getHandCount(seat));
+        }
+
+        // Người xem chỉ thấy mặt sau bài của người chơi cho tới khi ván kết thúc
+        // Bài, kết quả, tiền và cược của engine được mã hóa thẳng, không sao chép
+        List<ArrayList<Card>> playersHands = game.getPlayersHands();
+        boolean hidden = playerId == SPECTATOR_VIEW && state != Blackjack.GameState.GAME_OVER;
+        view.playersSums.clear();
+        if (hidden) {
+            while (hiddenHands.size() > playersHands.size()) {
+                hiddenHands.remove(hiddenHands.size() - 1);
+            }
+            for (int box = 0; box < playersHands.size(); box++) {
+                if (box == hiddenHands.size()) {
+                    hiddenHands.add(new ArrayList<>());
+                }
+                ArrayList<Card> backs = hiddenHands.get(box);
+                backs.clear();
+                for (int i = 0; i < playersHands.get(box).size(); i++) {
+                    backs.add(Card.fromOrdinal(Card.BACK_ORDINAL));
+                }
+                view.playersSums.add(0);
+            }
+            view.playersHands = hiddenHands;
+        } else {
+            for (int box = 0; box < playersHands.size(); box++) {
+                view.playersSums.add(game.getPlayerSum(box));
+            }
+            view.playersHands = playersHands;
+        }
+        view.playersResults = game.getPlayersResults();
+        view.playersMoneys = game.getPlayersMoneys();
+        view.playersBets = game.getPlayersBets();
+        view.dealerSum = dealerSumToSend;
+        view.gameState = state;
+        view.currentPlayerTurn = game.getCurrentPlayerIndex();
+        view.currentHandIndex = game.getCurrentHandIndex();
+        return view;
+    }
+    
+    // --- PHƯƠNG THỨC XỬ LÝ NGẮT KẾT NỐI ĐÃ SỬA LẠI ---
+    // Giữ ghế trong RECONNECT_GRACE_SECONDS để client có thể resume thay vì hủy cả phiên
+    public void removePlayer(PlayerConnection disconnectedPlayer) {
+        post(() -> onPlayerDisconnected(disconnectedPlayer));
+    }
+
+    private void onPlayerDisconnected(PlayerConnection disconnectedPlayer) {
+        if (sessionEnded) {
+            return; // Nếu đã xử lý rồi thì không làm gì nữa
+        }
+        int seat = (disconnectedPlayer == player1) ? 0 : (disconnectedPlayer == player2) ? 1 : -1;
+        if (seat == -1 || graceTimers[seat] != null) {
+            return; // Handler cũ đã được thay thế hoặc ghế đang được giữ
+        }
+        System.out.println("Xử lý ngắt kết nối từ: " + disconnectedPlayer.getPlayerName());
+        disconnectedPlayer.closeConnection();
+        // Không tiếp tục tự chơi bằng tiền của người chơi đã rời đi
+        autoRebet[seat] = 0;
+        autoStandOn[seat] = 0;
+
+        if (graceTimers[1 - seat] != null) {
+            // Cả hai người chơi đều đã mất kết nối - không còn ai để chờ
+            endSession();
+            return;
+        }
+
+        PlayerConnection remainingPlayer = getPlayer(1 - seat);
+        if (remainingPlayer.isConnected()) {
+            remainingPlayer.sendObject("OPPONENT_RECONNECTING");
+        }
+        graceTimers[seat] = Server.timers.schedule(() -> post(() -> expireSeat(seat)),
+            RECONNECT_GRACE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Gắn lại client đã kết nối lại vào ghế cũ và gửi toàn bộ trạng thái hiện tại
+     * Chạy bất đồng bộ trên event loop; nếu phiên đã kết thúc thì client nhận RESUME_FAILED
+     * @param handler Kết nối mới mang resume token của ghế
+     */
+    public void reattach(ClientHandler handler) {
+        post(() -> {
+            if (!reattachNow(handler)) {
+                Server.rejectResume(handler);
+            }
+        });
+    }
+
+    private boolean reattachNow(ClientHandler handler) {
+        if (sessionEnded) return false;
+        int seat = handler.getResumeToken().equals(seatTokens[0]) ? 0 : 1;
+        PlayerConnection previous = getPlayer(seat);
+
+        if (graceTimers[seat] != null) {
+            graceTimers[seat].cancel();
+            graceTimers[seat] = null;
+        }
+        previous.closeConnection(); // Kết nối cũ có thể vẫn treo (half-open)
+
+        handler.adoptPlayerName(previous.getPlayerName());
+        if (seat == 0) player1 = handler; else player2 = handler;
+        handler.setGameSession(this, seat);
+        handler.startReading();
+
+        System.out.println("🔄 " + handler.getPlayerName() + " đã kết nối lại từ " + handler.getClientIP());
+        handler.sendObject("RESUME_OK");
+        handler.sendObject(createUpdateForPlayer(seat));
+        PlayerConnection other = getPlayer(1 - seat);
+        if (other.isConnected()) {
+            other.sendObject("OPPONENT_RECONNECTED");
+        } else if (graceTimers[1 - seat] != null) {
+            handler.sendObject("OPPONENT_RECONNECTING"); // Ví dụ sau khi server khởi động lại, đối thủ chưa vào lại
+        }
+        return true;
+    }
+
+    // Hết thời gian giữ ghế mà người chơi không quay lại
+    private void expireSeat(int seat) {
+        if (sessionEnded || graceTimers[seat] == null) return;
+        System.out.println("⌛ Hết thời gian chờ " + getPlayer(seat).getPlayerName() + " kết nối lại");
+        PlayerConnection remainingPlayer = getPlayer(1 - seat);
+        if (remainingPlayer.isConnected()) {
+            remainingPlayer.sendObject("OPPONENT_DISCONNECTED");
+        }
+        endSession();
+    }
+
+    // Người chơi chủ động rời bàn
+    private void leaveSession(int playerId) {
+        System.out.println(getPlayer(playerId).getPlayerName() + " đã rời bàn");
+        PlayerConnection remainingPlayer = getPlayer(1 - playerId);
+        if (remainingPlayer.isConnected()) {
+            remainingPlayer.sendObject("OPPONENT_DISCONNECTED");
+        }
+        endSession();
+    }
+
+    private PlayerConnection getPlayer(int seat) {
+        return (seat == 0) ? player1 : player2;
+    }
+    
+    // Hàm để kết thúc phiên và dọn dẹp
+    private void endSession() {
+        this.sessionEnded = true;
+        saveBalances();
+        for (int i = 0; i < 2; i++) {
+            Server.sessionsByToken.remove(seatTokens[i]);
+            if (graceTimers[i] != null) {
+                graceTimers[i].cancel();
+            }
+        }
+        if (turnTimer != null) {
+            turnTimer.cancel();
+        }
+        if (parkTimer != null) {
+            parkTimer.cancel();
+        }
+        player1.releaseSeat();
+        player2.releaseSeat();
+        // Số dư đã được ghi lần cuối - tên có thể ngồi ghế khác
+        Server.namesInUse.remove(player1.getPlayerName());
+        Server.namesInUse.remove(player2.getPlayerName());
+        Server.spectators.tableEnded(this); // Sau khi đã gỡ token để không chọn lại chính bàn này
+        // Mọi đường xử lý đều kiểm tra sessionEnded trước khi chạm vào engine, nên có thể trả nó về pool
+        Server.tablePool.release(game);
+        System.out.println("Game session đã kết thúc và dọn dẹp.");
+    }
+    
+    private void handleNewGameRequest(int playerId) {
+        // Yêu cầu đến muộn (ví dụ của ghế tự chơi) không được cắt ngang ván đang chơi
+        if (game.getCurrentGameState() != Blackjack.GameState.GAME_OVER) return;
+        if (playerId == 0) player1WantsNewGame = true;
+        else player2WantsNewGame = true;
+
+        if (player1WantsNewGame && player2WantsNewGame) {
+            startNewGame();
+        } else if (playerId == 0) {
+            player2.sendObject("NEW_GAME_REQUESTED");
+        } else {
+            player1.sendObject("NEW_GAME_REQUESTED");
+        }
+    }
+
+    private void startNewGame() {
+        System.out.println("Cả hai người chơi đã đồng ý. Bắt đầu ván mới...");
+        resetNewGameRequests();
+        startHand();
+        broadcastGameState();
+    }
+
+    // Bắt đầu ván mới và mở bản ghi lịch sử cho ván đó
+    private void startHand() {
+        handNumber++;
+        refillBrokePlayers();
+        game.startGame();
+        if (Server.handJournal != null) {
+            currentHand = new HandRecord(game.getHandSeed(),
+                List.of(player1.getPlayerName(), player2.getPlayerName()), game.getPlayersMoneys());
+        }
+    }
+
+    // Nạp số dư đã lưu của hai người chơi; người chơi mới nhận tiền khởi tạo
+    private void loadBalances() {
+        if (Server.wallets == null) return;
+        for (int i = 0; i < 2; i++) {
+            game.setPlayerMoney(i, Server.wallets.getBalance(getPlayer(i).getPlayerName(), Blackjack.STARTING_MONEY));
+        }
+    }
+
+    // Người chơi đã hết tiền được cấp lại tiền khởi tạo để bàn không bị kẹt ở giai đoạn cược
+    private void refillBrokePlayers() {
+        for (int i = 0; i < 2; i++) {
+            if (game.getPlayersMoneys().get(i) <= 0) {
+                System.out.println("💸 " + getPlayer(i).getPlayerName() + " đã hết tiền, cấp lại " + Blackjack.STARTING_MONEY + "$");
+                game.setPlayerMoney(i, Blackjack.STARTING_MONEY);
+            }
+        }
+    }
+
+    // Ghi số dư hiện tại vào ví (tiền cược đang treo đã được trừ khỏi số dư)
+    private void saveBalances() {
+        if (Server.wallets == null) return;
+        Server.wallets.updateBalance(player1.getPlayerName(), game.getPlayersMoneys().get(0));
+        Server.wallets.updateBalance(player2.getPlayerName(), game.getPlayersMoneys().get(1));
+    }
+
+    // Ghi quyết định đã được chấp nhận, chốt bản ghi khi ván kết thúc
+    private void recordDecision(int playerId, String command) {
+        if (currentHand == null) return;
+        currentHand.addDecision(playerId, command);
+        if (game.getCurrentGameState() == Blackjack.GameState.GAME_OVER) {
+            currentHand.finish(game.getPlayersResults(), game.getPlayersMoneys());
+            Server.handJournal.append(currentHand);
+            currentHand = null;
+        }
+    }
+
+    private void resetNewGameRequests() {
+        player1WantsNewGame = false;
+        player2WantsNewGame = false;
+    }
+
+    /**
+     * Ghế của bàn vừa khôi phục từ snapshot, chưa có kết nối nào
+     * Được thay bằng ClientHandler khi người chơi resume; mọi message gửi tới ghế này bị bỏ qua
+     */
+    private static final class HeldSeat implements PlayerConnection {
+        private final String playerName;
+        private final String resumeToken;
+
+        HeldSeat(String playerName, String resumeToken) {
+            this.playerName = playerName;
+            this.resumeToken = resumeToken;
+        }
+
+        @Override
+        public String getPlayerName() { return playerName; }
+
+        @Override
+        public String getResumeToken() { return resumeToken; }
+
+        @Override
+        public String getClientIP() { return "-"; }
+
+        @Override
+        public boolean isConnected() { return false; }
+
+        @Override
+        public void sendObject(Serializable object) { }
+
+        @Override
+        public void setGameSession(GameSession session, int playerId) { }
+
+        @Override
+        public void startReading() { }
+
+        @Override
+        public void closeConnection() { }
+
+        @Override
+        public void releaseSeat() { }
+    }
+}
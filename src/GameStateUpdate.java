@@ -1,14 +1,18 @@
 // GameStateUpdate.java
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Class GameStateUpdate - Đối tượng chứa toàn bộ trạng thái game để gửi giữa Client và Server
  * Sử dụng để đồng bộ hóa dữ liệu game giữa tất cả người chơi qua mạng
+ *
+ * Bài, điểm, kết quả và cược được đánh số theo box (box = tay * số_người_chơi + ghế);
+ * box 0..n-1 là tay đầu tiên của từng ghế.
  */
 public class GameStateUpdate implements Serializable {
-    private static final long serialVersionUID = 4L; 
+    private static final long serialVersionUID = 5L;
 
     // Dữ liệu của nhiều người chơi
     public List<String> playersNames; 
@@ -18,7 +22,8 @@ public class GameStateUpdate implements Serializable {
     
     // THÊM: Dữ liệu cược tiền
     public List<Integer> playersMoneys; // Số tiền còn lại của mỗi người
-    public List<Integer> playersBets;   // Số tiền cược của mỗi người trong ván này
+    public List<Integer> playersBets;   // Số tiền cược của mỗi box trong ván này
+    public List<Integer> handsPerPlayer; // Số tay mỗi ghế chơi trong ván này (0 = chưa cược)
 
     // Dữ liệu nhà cái
     public ArrayList<Card> dealerHand;
@@ -27,6 +32,7 @@ public class GameStateUpdate implements Serializable {
     // Trạng thái chung của game
     public Blackjack.GameState gameState;
     public int currentPlayerTurn;
+    public int currentHandIndex; // Tay đang chơi của ghế currentPlayerTurn
     public int myPlayerId;
 
     /**
@@ -36,31 +42,65 @@ public class GameStateUpdate implements Serializable {
      * @param playersSums Danh sách điểm số của từng người chơi
      * @param playersResults Danh sách kết quả của từng người chơi
      * @param playersMoneys Danh sách số tiền còn lại của từng người chơi
-     * @param playersBets Danh sách số tiền cược của từng người chơi
+     * @param playersBets Danh sách số tiền cược của từng box
+     * @param handsPerPlayer Số tay của từng người chơi trong ván này
      * @param dealerHand Lá bài của dealer
      * @param dealerSum Điểm số của dealer
      * @param gameState Trạng thái hiện tại của game
      * @param currentPlayerTurn Lượt của người chơi nào
+     * @param currentHandIndex Tay đang chơi của người chơi đó
      * @param myPlayerId ID của người chơi hiện tại
      */
     public GameStateUpdate(List<String> playersNames, List<ArrayList<Card>> playersHands, 
                           List<Integer> playersSums, List<String> playersResults,
-                          List<Integer> playersMoneys, List<Integer> playersBets,
+                          List<Integer> playersMoneys, List<Integer> playersBets, List<Integer> handsPerPlayer,
                           ArrayList<Card> dealerHand, int dealerSum,
-                          Blackjack.GameState gameState, int currentPlayerTurn, int myPlayerId) {
+                          Blackjack.GameState gameState, int currentPlayerTurn, int currentHandIndex, int myPlayerId) {
         this.playersNames = playersNames;
         this.playersHands = playersHands;
         this.playersSums = playersSums;
         this.playersResults = playersResults;
         this.playersMoneys = playersMoneys;
         this.playersBets = playersBets;
+        this.handsPerPlayer = handsPerPlayer;
         this.dealerHand = dealerHand;
         this.dealerSum = dealerSum;
         this.gameState = gameState;
         this.currentPlayerTurn = currentPlayerTurn;
+        this.currentHandIndex = currentHandIndex;
         this.myPlayerId = myPlayerId;
     }
 
+    /**
+     * Constructor - Bản cập nhật rỗng của một góc nhìn, được GameSession điền lại trước mỗi lần gửi
+     * @param myPlayerId Ghế của góc nhìn (-1 là góc nhìn công khai của người xem)
+     */
+    GameStateUpdate(int myPlayerId) {
+        this(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), 0, Blackjack.GameState.WAITING_FOR_PLAYERS, 0, 0, myPlayerId);
+    }
+
+    /**
+     * Khóa các danh sách lại thành chỉ đọc - dùng ở client sau khi giải mã,
+     * trước khi chuyển bản cập nhật từ luồng mạng sang EDT
+     * @return Chính đối tượng này
+     */
+    public GameStateUpdate freeze() {
+        playersNames = unmodifiable(playersNames);
+        playersHands = unmodifiable(playersHands);
+        playersSums = unmodifiable(playersSums);
+        playersResults = unmodifiable(playersResults);
+        playersMoneys = unmodifiable(playersMoneys);
+        playersBets = unmodifiable(playersBets);
+        handsPerPlayer = unmodifiable(handsPerPlayer);
+        return this;
+    }
+
+    private static <T> List<T> unmodifiable(List<T> list) {
+        return list == null ? null : Collections.unmodifiableList(list);
+    }
+
     // --- GETTERS ---
 
     /** @return Danh sách tên người chơi */
@@ -93,6 +133,11 @@ public class GameStateUpdate implements Serializable {
         return playersBets;
     }
 
+    /** @return Số tay của từng người chơi trong ván này */
+    public List<Integer> getHandsPerPlayer() {
+        return handsPerPlayer;
+    }
+
     /** @return Lá bài của dealer */
     public ArrayList<Card> getDealerHand() {
         return dealerHand;
@@ -113,6 +158,11 @@ public class GameStateUpdate implements Serializable {
         return currentPlayerTurn;
     }
 
+    /** @return Tay đang chơi của người chơi đang tới lượt */
+    public int getCurrentHandIndex() {
+        return currentHandIndex;
+    }
+
     /** @return ID của người chơi hiện tại */
     public int getMyPlayerId() {
         return myPlayerId;
@@ -0,0 +1,52 @@
+// HandJournal.java
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class HandJournal - Ghi lịch sử ván bài ra file (mỗi ván một dòng)
+ * Được dùng chung bởi tất cả GameSession trên server, an toàn đa luồng
+ */
+public class HandJournal implements AutoCloseable {
+    private final Path path;
+    private final BufferedWriter writer;
+
+    private HandJournal(Path path, BufferedWriter writer) {
+        this.path = path;
+        this.writer = writer;
+    }
+
+    /**
+     * Mở journal ở chế độ ghi nối tiếp (tạo file nếu chưa có)
+     * @param path Đường dẫn file journal
+     * @return HandJournal đã sẵn sàng ghi
+     * @throws IOException nếu không mở được file
+     */
+    public static HandJournal open(Path path) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return new HandJournal(path, writer);
+    }
+
+    /**
+     * Ghi một ván bài đã kết thúc vào journal
+     * @param record Bản ghi ván bài
+     */
+    public synchronized void append(HandRecord record) {
+        try {
+            writer.write(record.toLine());
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Không thể ghi lịch sử ván bài vào " + path + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,179 @@
+// HandRecord.java
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class HandRecord - Bản ghi lịch sử của một ván bài
+ * Lưu seed xáo bài, số tiền trước ván, chuỗi quyết định (BET/HIT/STAND)
+ * và kết quả cuối cùng để có thể replay lại chính xác ván bài
+ *
+ * Định dạng một dòng trong journal:
+ * seed|tiền_trước|quyết_định|kết_quả|tiền_sau|tên
+ * Mỗi danh sách phân cách bằng dấu phẩy, chuỗi tự do được URL-encode
+ */
+public class HandRecord {
+    private static final String FIELD_SEPARATOR = "|";
+    private static final String ITEM_SEPARATOR = ",";
+
+    private final long seed;
+    private final List<String> playersNames;
+    private final List<Integer> moneysBefore;
+    private final List<String> decisions = new ArrayList<>();
+    private List<String> results = new ArrayList<>();
+    private List<Integer> moneysAfter = new ArrayList<>();
+
+    /**
+     * Constructor - Bắt đầu ghi một ván bài mới
+     * @param seed Seed xáo bài của ván
+     * @param playersNames Tên người chơi theo thứ tự ghế
+     * @param moneysBefore Số tiền của mỗi người trước khi đặt cược
+     */
+    public HandRecord(long seed, List<String> playersNames, List<Integer> moneysBefore) {
+        this.seed = seed;
+        this.playersNames = new ArrayList<>(playersNames);
+        this.moneysBefore = new ArrayList<>(moneysBefore);
+    }
+
+    /**
+     * Ghi lại một quyết định đã được engine chấp nhận
+     * @param playerId ID người chơi
+     * @param command Lệnh dạng "BET:10", "BETS:10,20", "HIT" hoặc "STAND"
+     */
+    public void addDecision(int playerId, String command) {
+        decisions.add(playerId + ":" + command);
+    }
+
+    /**
+     * Chốt kết quả khi ván bài kết thúc
+     * @param results Kết quả của từng người chơi
+     * @param moneysAfter Số tiền của từng người chơi sau ván
+     */
+    public void finish(List<String> results, List<Integer> moneysAfter) {
+        this.results = new ArrayList<>(results);
+        this.moneysAfter = new ArrayList<>(moneysAfter);
+    }
+
+    /**
+     * Chạy lại ván bài trên một engine mới từ seed và chuỗi quyết định đã ghi
+     * @return Engine sau khi đã áp dụng toàn bộ quyết định
+     * @throws IllegalStateException nếu một quyết định không khớp với trạng thái engine
+     */
+    public Blackjack replay() {
+        Blackjack game = new Blackjack(moneysBefore.size());
+        game.setQuiet(true);
+        for (int i = 0; i < moneysBefore.size(); i++) {
+            game.setPlayerMoney(i, moneysBefore.get(i));
+        }
+        game.startGame(seed);
+
+        for (String decision : decisions) {
+            int colon = decision.indexOf(':');
+            int playerId = Integer.parseInt(decision.substring(0, colon));
+            String command = decision.substring(colon + 1);
+
+            if (command.startsWith("BET:")) {
+                if (!game.placeBet(playerId, Integer.parseInt(command.substring(4)))) {
+                    throw new IllegalStateException("Cược bị từ chối khi replay: " + decision);
+                }
+            } else if (command.startsWith("BETS:")) {
+                String[] parts = command.substring(5).split(",");
+                int[] betAmounts = new int[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    betAmounts[i] = Integer.parseInt(parts[i]);
+                }
+                if (!game.placeBets(playerId, betAmounts)) {
+                    throw new IllegalStateException("Cược bị từ chối khi replay: " + decision);
+                }
+            } else {
+                if (game.getCurrentGameState() != Blackjack.GameState.PLAYER_TURN
+                        || game.getCurrentPlayerIndex() != playerId) {
+                    throw new IllegalStateException("Sai lượt khi replay: " + decision);
+                }
+                if (command.equals("HIT")) {
+                    game.playerHit();
+                } else if (command.equals("STAND")) {
+                    game.playerStand();
+                } else {
+                    throw new IllegalStateException("Lệnh không hợp lệ: " + decision);
+                }
+            }
+        }
+        return game;
+    }
+
+    /**
+     * Chuyển bản ghi thành một dòng journal
+     * @return Dòng văn bản không chứa ký tự xuống dòng
+     */
+    public String toLine() {
+        return seed + FIELD_SEPARATOR
+            + joinInts(moneysBefore) + FIELD_SEPARATOR
+            + joinStrings(decisions) + FIELD_SEPARATOR
+            + joinStrings(results) + FIELD_SEPARATOR
+            + joinInts(moneysAfter) + FIELD_SEPARATOR
+            + joinStrings(playersNames);
+    }
+
+    /**
+     * Đọc bản ghi từ một dòng journal
+     * @param line Dòng do toLine() tạo ra
+     * @return HandRecord tương ứng
+     * @throws IllegalArgumentException nếu dòng sai định dạng
+     */
+    public static HandRecord parse(String line) {
+        String[] fields = line.split("\\" + FIELD_SEPARATOR, -1);
+        if (fields.length != 6) {
+            throw new IllegalArgumentException("Dòng journal sai định dạng: " + line);
+        }
+        HandRecord record = new HandRecord(Long.parseLong(fields[0]), splitStrings(fields[5]), splitInts(fields[1]));
+        record.decisions.addAll(splitStrings(fields[2]));
+        record.finish(splitStrings(fields[3]), splitInts(fields[4]));
+        return record;
+    }
+
+    public long getSeed() { return seed; }
+    public List<String> getPlayersNames() { return playersNames; }
+    public List<Integer> getMoneysBefore() { return moneysBefore; }
+    public List<String> getDecisions() { return decisions; }
+    public List<String> getResults() { return results; }
+    public List<Integer> getMoneysAfter() { return moneysAfter; }
+
+    private static String joinInts(List<Integer> values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) sb.append(ITEM_SEPARATOR);
+            sb.append(values.get(i));
+        }
+        return sb.toString();
+    }
+
+    private static String joinStrings(List<String> values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) sb.append(ITEM_SEPARATOR);
+            sb.append(URLEncoder.encode(values.get(i), StandardCharsets.UTF_8));
+        }
+        return sb.toString();
+    }
+
+    private static List<Integer> splitInts(String field) {
+        List<Integer> values = new ArrayList<>();
+        if (field.isEmpty()) return values;
+        for (String item : field.split(ITEM_SEPARATOR, -1)) {
+            values.add(Integer.parseInt(item));
+        }
+        return values;
+    }
+
+    private static List<String> splitStrings(String field) {
+        List<String> values = new ArrayList<>();
+        if (field.isEmpty()) return values;
+        for (String item : field.split(ITEM_SEPARATOR, -1)) {
+            values.add(URLDecoder.decode(item, StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,129 @@
+// HandReplay.java
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Class HandReplay - Công cụ replay lịch sử ván bài
+ * Đọc journal do server ghi, chạy lại từng ván từ seed và chuỗi quyết định,
+ * kiểm tra kết quả và số tiền thắng/thua có khớp với bản ghi hay không.
+ * Các ván độc lập với nhau nên được replay song song trên tất cả các core.
+ *
+ * Cách dùng: java HandReplay [đường_dẫn_journal]
+ */
+public class HandReplay {
+    private static final int MAX_REPORTED_MISMATCHES = 20;
+
+    public static void main(String[] args) throws IOException {
+        Path journal = Paths.get(args.length > 0 ? args[0] : Server.HAND_JOURNAL_FILE);
+        if (!Files.exists(journal)) {
+            System.err.println("Không tìm thấy journal: " + journal);
+            return;
+        }
+
+        AtomicLong total = new AtomicLong();
+        AtomicLong mismatches = new AtomicLong();
+        long startTime = System.nanoTime();
+
+        try (Stream<String> lines = Files.lines(journal, StandardCharsets.UTF_8)) {
+            lines.parallel()
+                .filter(line -> !line.isBlank())
+                .forEach(line -> {
+                    total.incrementAndGet();
+                    String problem = verify(line);
+                    if (problem != null && mismatches.incrementAndGet() <= MAX_REPORTED_MISMATCHES) {
+                        System.out.println("❌ " + problem);
+                    }
+                });
+        }
+
+        long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+        System.out.println("==========================================");
+        System.out.println("Đã replay " + total.get() + " ván trong " + elapsedMs + " ms");
+        System.out.println("Khớp: " + (total.get() - mismatches.get()) + " | Lệch: " + mismatches.get());
+        System.out.println("==========================================");
+    }
+
+    /**
+     * Replay một dòng journal và so sánh với kết quả đã ghi
+     * @param line Dòng journal
+     * @return Mô tả sai lệch, hoặc null nếu ván bài khớp hoàn toàn
+     */
+    static String verify(String line) {
+        HandRecord record;
+        try {
+            record = HandRecord.parse(line);
+        } catch (RuntimeException e) {
+            return "Không đọc được dòng: " + e.getMessage();
+        }
+
+        Blackjack game;
+        try {
+            game = record.replay();
+        } catch (RuntimeException e) {
+            return "Seed " + record.getSeed() + ": " + e.getMessage();
+        }
+
+        if (game.getCurrentGameState() != Blackjack.GameState.GAME_OVER) {
+            return "Seed " + record.getSeed() + ": ván chưa kết thúc sau khi replay (" + game.getCurrentGameState() + ")";
+        }
+        if (!game.getPlayersResults().equals(record.getResults())) {
+            return "Seed " + record.getSeed() + ": kết quả " + game.getPlayersResults()
+                + " khác bản ghi " + record.getResults();
+        }
+
+        List<Integer> before = record.getMoneysBefore();
+        List<Integer> expected = record.getMoneysAfter();
+        List<Integer> actual = game.getPlayersMoneys();
+        for (int i = 0; i < before.size(); i++) {
+            int expectedDelta = expected.get(i) - before.get(i);
+            int actualDelta = actual.get(i) - before.get(i);
+            if (expectedDelta != actualDelta) {
+                return "Seed " + record.getSeed() + ": player " + i + " thay đổi tiền "
+                    + actualDelta + "$ khác bản ghi " + expectedDelta + "$";
+            }
+        }
+        String payoutProblem = checkPayouts(game, before);
+        if (payoutProblem != null) {
+            return "Seed " + record.getSeed() + ": " + payoutProblem;
+        }
+        return null;
+    }
+
+    /**
+     * Kiểm tra bảo toàn tiền: mọi tay đang chơi đều đã được thanh toán, và tiền của mỗi ghế
+     * thay đổi đúng bằng tổng tiền thắng/thua của các tay của ghế đó
+     * @param game Engine đã replay tới GAME_OVER
+     * @param moneysBefore Số tiền mỗi ghế trước khi đặt cược
+     * @return Mô tả sai lệch, hoặc null nếu khớp
+     */
+    static String checkPayouts(Blackjack game, List<Integer> moneysBefore) {
+        int seats = game.getNumberOfPlayers();
+        List<Integer> hands = game.getHandsPerPlayer();
+        for (int seat = 0; seat < seats; seat++) {
+            int expectedDelta = 0;
+            for (int hand = 0; hand < hands.get(seat); hand++) {
+                int box = hand * seats + seat;
+                int bet = game.getPlayersBets().get(box);
+                String result = game.getPlayersResults().get(box);
+                switch (result) {
+                    case "Blackjack!": expectedDelta += bet * 3 / 2; break;
+                    case "Thắng!": expectedDelta += bet; break;
+                    case "Hòa!": break;
+                    case "Thua!": expectedDelta -= bet; break;
+                    default: return "player " + seat + " tay " + hand + " chưa được thanh toán (kết quả \"" + result + "\")";
+                }
+            }
+            int actualDelta = game.getPlayersMoneys().get(seat) - moneysBefore.get(seat);
+            if (actualDelta != expectedDelta) {
+                return "player " + seat + " thay đổi tiền " + actualDelta + "$ nhưng các tay cộng lại " + expectedDelta + "$";
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,136 @@
+// HashedTimerWheel.java
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class HashedTimerWheel - Bộ hẹn giờ dùng chung cho tất cả các bàn chơi
+ * Một luồng duy nhất quay "bánh xe" gồm WHEEL_SIZE ô, mỗi ô ứng với một tick.
+ * Hẹn giờ được băm vào ô theo thời điểm hết hạn, nên thêm/hủy là O(1)
+ * và số luồng không tăng theo số bàn chơi.
+ *
+ * Độ chính xác bằng một tick - đủ cho deadline lượt chơi tính bằng giây.
+ * Tác vụ hết hạn chạy trên luồng của bánh xe, nên phải ngắn và không chặn.
+ */
+public class HashedTimerWheel {
+    private static final int WHEEL_SIZE = 512;
+
+    private final long tickNanos;
+    private final Queue<Timeout>[] wheel;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private final long startTime;
+    private long tick = 0;
+
+    /**
+     * Một hẹn giờ đã đăng ký - có thể hủy trước khi hết hạn
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadlineNanos;
+        private long remainingRounds;
+        private volatile boolean cancelled = false;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /** Hủy hẹn giờ; không có tác dụng nếu tác vụ đã chạy */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * Constructor - Tạo và khởi động bánh xe hẹn giờ
+     * @param tickDuration Độ dài một tick
+     * @param unit Đơn vị thời gian của tickDuration
+     * @param threadName Tên luồng quay bánh xe
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimerWheel(long tickDuration, TimeUnit unit, String threadName) {
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = (Queue<Timeout>[]) new Queue<?>[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Đăng ký tác vụ chạy sau một khoảng thời gian
+     * @param task Tác vụ cần chạy
+     * @param delay Thời gian chờ
+     * @param unit Đơn vị thời gian
+     * @return Timeout để có thể hủy
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + unit.toNanos(delay));
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            waitForNextTick();
+            transferPendingTimeouts();
+            expireBucket(wheel[(int) (tick % WHEEL_SIZE)]);
+            tick++;
+        }
+    }
+
+    private void waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+            if (sleepNanos <= 0) return;
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Chuyển hẹn giờ mới đăng ký vào ô tương ứng (chỉ luồng worker chạm vào wheel)
+    private void transferPendingTimeouts() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.cancelled) continue;
+            long expiryTick = Math.max(timeout.deadlineNanos / tickNanos, tick);
+            timeout.remainingRounds = (expiryTick - tick) / WHEEL_SIZE;
+            wheel[(int) (expiryTick % WHEEL_SIZE)].add(timeout);
+        }
+    }
+
+    private void expireBucket(Queue<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                iterator.remove();
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Lỗi trong tác vụ hẹn giờ: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+}
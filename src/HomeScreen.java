@@ -19,6 +19,7 @@ public class HomeScreen extends JFrame {
     private JSlider volumeSlider;
     private JLabel volumeLabel;
     private JButton startGameButton;
+    private JButton spectateButton;
     private JButton exitButton;
     private JTextField playerNameField;
     private JTextField serverIPField;
@@ -55,6 +56,7 @@ public class HomeScreen extends JFrame {
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
                 drawBackground(g);
+                StartupTimer.mark("Trang chủ vẽ frame đầu tiên");
             }
         };
         mainPanel.setLayout(new BorderLayout());
@@ -69,6 +71,7 @@ public class HomeScreen extends JFrame {
         mainPanel.add(bottomPanel, BorderLayout.SOUTH);
 
         add(mainPanel);
+        // Hiển thị sau cùng, khi cây component đã dựng xong, để chỉ layout và vẽ một lần
         setVisible(true);
     }
 
@@ -228,12 +231,20 @@ public class HomeScreen extends JFrame {
 
         // Buttons
         startGameButton = createStyledButton("🎮 BẮT ĐẦU CHƠI", new Color(50, 205, 50), Color.WHITE);
+        spectateButton = createStyledButton("👀 XEM BÀN CHƠI", new Color(30, 144, 255), Color.WHITE);
         exitButton = createStyledButton("🚪 THOÁT", new Color(220, 20, 60), Color.WHITE);
 
         startGameButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                startGame();
+                startGame(false);
+            }
+        });
+
+        spectateButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                startGame(true);
             }
         });
 
@@ -245,7 +256,9 @@ public class HomeScreen extends JFrame {
         });
 
         centerPanel.add(startGameButton);
-        centerPanel.add(Box.createVerticalStrut(20));
+        centerPanel.add(Box.createVerticalStrut(10));
+        centerPanel.add(spectateButton);
+        centerPanel.add(Box.createVerticalStrut(10));
         centerPanel.add(exitButton);
         centerPanel.add(Box.createVerticalStrut(20)); // Thêm space cuối
 
@@ -310,12 +323,16 @@ public class HomeScreen extends JFrame {
         return button;
     }
 
-    private void startGame() {
+    /**
+     * Kiểm tra thông tin đã nhập rồi mở bàn chơi
+     * @param spectate true để chỉ xem bàn nổi bật (không cần nhập tên)
+     */
+    private void startGame(boolean spectate) {
         playerName = playerNameField.getText().trim();
         String serverIP = serverIPField.getText().trim();
         String serverPort = serverPortField.getText().trim();
         
-        if (playerName.isEmpty()) {
+        if (playerName.isEmpty() && !spectate) {
             JOptionPane.showMessageDialog(this, 
                 "Vui lòng nhập tên của bạn!", 
                 "Thông báo", 
@@ -366,11 +383,12 @@ public class HomeScreen extends JFrame {
         
         // Tạo và hiển thị game client với IP và port đã nhập
         SwingUtilities.invokeLater(() -> {
-            new BlackjackClient(playerName, volumeSlider.getValue(), serverIP, port);
+            new BlackjackClient(playerName, volumeSlider.getValue(), serverIP, port, spectate);
         });
     }
 
     public static void main(String[] args) {
+        AssetWarmup.start();
         SwingUtilities.invokeLater(() -> {
             try {
                 UIManager.setLookAndFeel(UIManager.getLookAndFeel());
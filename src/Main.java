@@ -9,12 +9,17 @@ public class Main {
      * Phương thức main - Entry point của chương trình
      * Chức năng:
      * - Thiết lập Look and Feel cho giao diện Swing
+     * - Nạp trước tài nguyên ở nền (AssetWarmup)
      * - Khởi chạy HomeScreen trên Event Dispatch Thread
      * - Đảm bảo thread-safe cho Swing components
      * 
      * @param args Tham số dòng lệnh (không sử dụng)
      */
     public static void main(String[] args) {
+        StartupTimer.mark("Bắt đầu main");
+        // Nạp ảnh lá bài và âm thanh ở nền trong lúc dựng và hiển thị trang chủ
+        AssetWarmup.start();
+
         SwingUtilities.invokeLater(() -> {
             try {
                 // Đặt Look and Feel của hệ thống
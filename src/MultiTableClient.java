@@ -0,0 +1,123 @@
+// MultiTableClient.java
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * Class MultiTableClient - Client không giao diện chơi nhiều bàn trên một kết nối (cho bot và người chơi nhiều bàn)
+ * Mọi bàn dùng chung một socket, một luồng đọc và một cặp object stream:
+ * - Kênh 0 là bàn của handshake ban đầu; joinTable(k) mở thêm kênh k (1..7)
+ * - send(k, lệnh) gửi "@k:lệnh" (kênh 0 gửi lệnh nguyên văn như client thường)
+ * - Message nhận về được tách theo kênh (ChannelMessage) rồi giao cho listener trên luồng đọc
+ */
+public class MultiTableClient implements AutoCloseable {
+    public static final int MAX_CHANNELS = 8;
+
+    /**
+     * Nhận message của từng bàn - được gọi trên luồng đọc, không nên chặn lâu
+     */
+    public interface Listener {
+        void onMessage(int channel, Object message);
+
+        void onDisconnected();
+    }
+
+    private final Socket socket;
+    private final ObjectOutputStream out;
+    private final ObjectInputStream in;
+    private final Listener listener;
+    private final String[] resumeTokens = new String[MAX_CHANNELS];
+
+    private MultiTableClient(Socket socket, ObjectOutputStream out, ObjectInputStream in, Listener listener) {
+        this.socket = socket;
+        this.out = out;
+        this.in = in;
+        this.listener = listener;
+    }
+
+    /**
+     * Kết nối tới server và bắt đầu luồng đọc
+     * @param host Địa chỉ server (hoặc Router)
+     * @param port Cổng server
+     * @param playerName Tên người chơi; các kênh thêm có tên "tên#kênh"
+     * @param listener Nơi nhận message của mọi bàn
+     * @return Client đã kết nối
+     * @throws IOException nếu không kết nối được
+     */
+    public static MultiTableClient connect(String host, int port, String playerName, Listener listener) throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), 10000);
+        // Gửi handshake trước khi chờ header từ server (giống BlackjackClient, để đi qua được Router)
+        ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+        out.writeObject(playerName);
+        out.flush();
+        ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+
+        MultiTableClient client = new MultiTableClient(socket, out, in, listener);
+        Thread reader = new Thread(client::readLoop, "multi-table-reader");
+        reader.setDaemon(true);
+        reader.start();
+        return client;
+    }
+
+    /**
+     * Mở thêm một bàn; server chỉ nhận khi bàn ở kênh 0 đã bắt đầu
+     * @param channel Số kênh (1..MAX_CHANNELS-1)
+     */
+    public void joinTable(int channel) throws IOException {
+        if (channel < 1 || channel >= MAX_CHANNELS) {
+            throw new IllegalArgumentException("Kênh không hợp lệ: " + channel);
+        }
+        send(channel, "JOIN");
+    }
+
+    /**
+     * Gửi lệnh tới một bàn
+     * @param channel Số kênh của bàn
+     * @param command Lệnh (HIT, STAND, BET:10, ...)
+     */
+    public synchronized void send(int channel, String command) throws IOException {
+        out.writeObject(channel == 0 ? command : "@" + channel + ":" + command);
+        out.flush();
+    }
+
+    /** @return Resume token của ghế ở kênh đó, hoặc null nếu chưa nhận */
+    public String getResumeToken(int channel) {
+        synchronized (resumeTokens) {
+            return resumeTokens[channel];
+        }
+    }
+
+    private void readLoop() {
+        try {
+            while (true) {
+                Object message = in.readObject();
+                int channel = 0;
+                if (message instanceof ChannelMessage) {
+                    channel = ((ChannelMessage) message).getChannel();
+                    message = ((ChannelMessage) message).getPayload();
+                }
+                if (message instanceof String && ((String) message).startsWith("RESUME_TOKEN:")) {
+                    synchronized (resumeTokens) {
+                        resumeTokens[channel] = ((String) message).substring(13);
+                    }
+                    continue;
+                }
+                listener.onMessage(channel, message);
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            listener.onDisconnected();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Bỏ qua lỗi khi đóng kết nối
+        }
+    }
+}
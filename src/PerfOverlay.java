@@ -0,0 +1,246 @@
+// PerfOverlay.java
+import java.awt.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+/**
+ * Class PerfOverlay - Lớp phủ hiển thị số liệu hiệu năng của client (bật/tắt bằng F3)
+ * Giúp phân biệt bàn chơi bị giật do client vẽ chậm hay do server/mạng phản hồi chậm.
+ *
+ * Số liệu:
+ * - Thời gian vẽ một frame (p50/p95/p99 trên FRAME_WINDOW frame gần nhất)
+ * - Độ trễ hàng đợi EDT: thời gian từ lúc invokeLater tới lúc tác vụ được chạy
+ * - RTT: từ lúc gửi HIT/BET tới lúc luồng mạng nhận GameStateUpdate phản ánh chính lệnh đó
+ *   (tay của mình có thêm lá với HIT, tổng cược của mình tăng với BET). Cập nhật do đối thủ hành động
+ *   không dừng đồng hồ; lệnh bị server từ chối (BETTING_ERROR) hoặc bỏ qua quá RTT_TIMEOUT_NANOS thì không tính.
+ *
+ * Khi đang bật, mọi mẫu được ghi thêm vào LOG_FILE dạng CSV "thời_điểm_ms,loại,giá_trị_ms".
+ */
+public class PerfOverlay {
+    private static final String LOG_FILE = "perf_log.csv";
+    private static final int FRAME_WINDOW = 240;
+    private static final int SAMPLE_WINDOW = 64;
+    private static final long SAMPLE_INTERVAL_MS = 250;
+    // Lệnh sai lượt hoặc bị giới hạn tốc độ bị server bỏ qua mà không phản hồi
+    private static final long RTT_TIMEOUT_NANOS = 5_000_000_000L;
+    private static final Rectangle BOUNDS = new Rectangle(10, 10, 250, 96);
+    private static final Color BACKGROUND_COLOR = new Color(0, 0, 0, 170);
+    private static final Font OVERLAY_FONT = new Font("Monospaced", Font.BOLD, 12);
+
+    private final JComponent target;
+    private final long[] frameNanos = new long[FRAME_WINDOW];
+    private int frameCount = 0;
+    private final long[] edtDelayNanos = new long[SAMPLE_WINDOW];
+    private int edtDelayCount = 0;
+    private final long[] rttNanos = new long[SAMPLE_WINDOW];
+    private int rttCount = 0;
+    private long commandSentNanos = 0; // 0 = không có lệnh nào đang chờ phản hồi
+    private String pendingCommand;
+    private int cardsAtSend;   // Số lá/tổng cược của mình lúc gửi lệnh đang chờ
+    private int betAtSend;
+    private int myCards = 0;   // Số lá trên các tay của mình trong GameStateUpdate gần nhất
+    private int myBet = 0;     // Tổng cược các tay của mình trong GameStateUpdate gần nhất
+
+    private volatile boolean enabled = false;
+    private Thread sampler;
+    private BufferedWriter log;
+
+    /**
+     * Constructor - Tạo overlay cho một component
+     * @param target Component được vẽ overlay lên (dùng để yêu cầu vẽ lại vùng overlay)
+     */
+    public PerfOverlay(JComponent target) {
+        this.target = target;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Bật/tắt overlay - khi bật thì bắt đầu đo độ trễ EDT và ghi log
+     */
+    public synchronized void toggle() {
+        enabled = !enabled;
+        if (enabled) {
+            openLog();
+            sampler = new Thread(this::sampleLoop, "perf-sampler");
+            sampler.setDaemon(true);
+            sampler.start();
+        } else {
+            sampler.interrupt();
+            sampler = null;
+            closeLog();
+        }
+        System.out.println("📊 Overlay hiệu năng: " + (enabled ? "BẬT" : "TẮT"));
+        target.repaint(BOUNDS);
+    }
+
+    /** Ghi nhận thời gian vẽ một frame - gọi từ paintComponent */
+    public synchronized void recordFrame(long nanos) {
+        if (!enabled) return;
+        frameNanos[frameCount++ % FRAME_WINDOW] = nanos;
+    }
+
+    /** Ghi nhận lệnh vừa gửi lên server; chỉ HIT và BET được đo RTT */
+    public synchronized void commandSent(String command) {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        if (commandSentNanos != 0 && now - commandSentNanos < RTT_TIMEOUT_NANOS) return;
+        if (command.startsWith("HIT") || command.startsWith("BET")) {
+            commandSentNanos = now;
+            pendingCommand = command.startsWith("HIT") ? "HIT" : "BET";
+            cardsAtSend = myCards;
+            betAtSend = myBet;
+        } else {
+            commandSentNanos = 0;
+        }
+    }
+
+    /** Server từ chối lệnh đang chờ (ví dụ BETTING_ERROR) - bỏ mẫu RTT này - gọi từ luồng mạng */
+    public synchronized void commandRejected() {
+        commandSentNanos = 0;
+    }
+
+    /**
+     * Ghi nhận vừa nhận một GameStateUpdate - gọi từ luồng mạng
+     * Chỉ dừng đồng hồ RTT khi bản cập nhật phản ánh lệnh đang chờ của chính mình
+     * @param update Bản cập nhật vừa giải mã
+     */
+    public synchronized void updateReceived(GameStateUpdate update) {
+        List<String> names = update.getPlayersNames();
+        int seat = update.getMyPlayerId();
+        if (names == null || names.isEmpty() || seat < 0 || seat >= names.size()) return;
+        int cards = 0;
+        int bet = 0;
+        for (int box = seat; box < update.getPlayersHands().size(); box += names.size()) {
+            cards += update.getPlayersHands().get(box).size();
+            if (box < update.getPlayersBets().size()) bet += update.getPlayersBets().get(box);
+        }
+        myCards = cards;
+        myBet = bet;
+
+        if (commandSentNanos == 0) return;
+        long rtt = System.nanoTime() - commandSentNanos;
+        boolean reflected = pendingCommand.equals("HIT") ? cards > cardsAtSend : bet > betAtSend;
+        if (!reflected) {
+            if (rtt > RTT_TIMEOUT_NANOS) commandSentNanos = 0; // Lệnh đã bị bỏ qua
+            return;
+        }
+        commandSentNanos = 0;
+        if (!enabled) return;
+        rttNanos[rttCount++ % SAMPLE_WINDOW] = rtt;
+        writeSample("rtt_" + pendingCommand, rtt);
+    }
+
+    // Luồng nền: đo độ trễ EDT định kỳ và vẽ lại vùng overlay
+    private void sampleLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            long posted = System.nanoTime();
+            SwingUtilities.invokeLater(() -> {
+                recordEdtDelay(System.nanoTime() - posted);
+                target.repaint(BOUNDS);
+            });
+            try {
+                Thread.sleep(SAMPLE_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            writeFramePercentiles();
+        }
+    }
+
+    private synchronized void recordEdtDelay(long nanos) {
+        if (!enabled) return;
+        edtDelayNanos[edtDelayCount++ % SAMPLE_WINDOW] = nanos;
+        writeSample("edt_delay", nanos);
+    }
+
+    private synchronized void writeFramePercentiles() {
+        if (log == null) return;
+        if (frameCount > 0) {
+            writeSample("frame_p50", percentile(frameNanos, frameCount, 50));
+            writeSample("frame_p95", percentile(frameNanos, frameCount, 95));
+            writeSample("frame_p99", percentile(frameNanos, frameCount, 99));
+        }
+        try {
+            log.flush();
+        } catch (IOException e) {
+            System.err.println("Lỗi khi ghi " + LOG_FILE + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Vẽ overlay ở góc trên bên trái
+     * @param g Graphics của component đích
+     */
+    public synchronized void draw(Graphics2D g) {
+        if (!enabled) return;
+        g.setColor(BACKGROUND_COLOR);
+        g.fillRoundRect(BOUNDS.x, BOUNDS.y, BOUNDS.width, BOUNDS.height, 10, 10);
+        g.setColor(Color.GREEN);
+        g.setFont(OVERLAY_FONT);
+        int x = BOUNDS.x + 10;
+        int y = BOUNDS.y + 20;
+        g.drawString("Frame p50/p95/p99: " + ms(percentile(frameNanos, frameCount, 50)) + "/"
+            + ms(percentile(frameNanos, frameCount, 95)) + "/" + ms(percentile(frameNanos, frameCount, 99)), x, y);
+        g.drawString("Số frame đã vẽ: " + frameCount, x, y + 18);
+        g.drawString("EDT delay p50/max: " + ms(percentile(edtDelayNanos, edtDelayCount, 50)) + "/"
+            + ms(percentile(edtDelayNanos, edtDelayCount, 100)), x, y + 36);
+        g.drawString("RTT p50/max: " + ms(percentile(rttNanos, rttCount, 50)) + "/"
+            + ms(percentile(rttNanos, rttCount, 100)) + " (" + Math.min(rttCount, SAMPLE_WINDOW) + " mẫu)", x, y + 54);
+    }
+
+    // Percentile trên các mẫu hiện có trong ring buffer (tối đa độ dài buffer)
+    private static long percentile(long[] samples, int count, int percent) {
+        int size = Math.min(count, samples.length);
+        if (size == 0) return 0;
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percent / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+
+    private static String ms(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+
+    private void openLog() {
+        try {
+            log = Files.newBufferedWriter(Paths.get(LOG_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Không thể mở " + LOG_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private void closeLog() {
+        if (log == null) return;
+        try {
+            log.close();
+        } catch (IOException e) {
+            System.err.println("Lỗi khi đóng " + LOG_FILE + ": " + e.getMessage());
+        }
+        log = null;
+    }
+
+    private void writeSample(String metric, long nanos) {
+        if (log == null) return;
+        try {
+            log.write(System.currentTimeMillis() + "," + metric + "," + ms(nanos));
+            log.newLine();
+        } catch (IOException e) {
+            System.err.println("Lỗi khi ghi " + LOG_FILE + ": " + e.getMessage());
+            closeLog();
+        }
+    }
+}
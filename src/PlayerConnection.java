@@ -0,0 +1,39 @@
+// PlayerConnection.java
+import java.io.Serializable;
+
+/**
+ * Interface PlayerConnection - Một ghế người chơi mà GameSession trao đổi dữ liệu
+ * Có thể là cả một kết nối TCP (ClientHandler - kênh 0) hoặc một kênh bàn
+ * trong kết nối đa bàn (TableChannel - kênh 1 trở đi, dùng chung socket của ClientHandler).
+ */
+public interface PlayerConnection {
+    String getPlayerName();
+
+    String getResumeToken();
+
+    String getClientIP();
+
+    boolean isConnected();
+
+    /**
+     * Gửi message tới client của ghế này
+     * @param object Message (String hoặc GameStateUpdate)
+     */
+    void sendObject(Serializable object);
+
+    /**
+     * Gắn ghế vào bàn chơi; lệnh của ghế sẽ được chuyển tới session.handleCommand
+     * @param session Bàn chơi
+     * @param playerId Vị trí ghế trong bàn
+     */
+    void setGameSession(GameSession session, int playerId);
+
+    /** Bắt đầu nhận lệnh cho ghế (ClientHandler bật đọc trên luồng I/O dùng chung; kênh dùng đường đọc sẵn có của kết nối) */
+    void startReading();
+
+    /** Ngắt ghế ngay - dùng khi kết nối lỗi hoặc bị kết nối khác thay thế */
+    void closeConnection();
+
+    /** Bàn đã kết thúc: trả ghế; kết nối đa bàn vẫn được giữ cho các bàn khác */
+    void releaseSeat();
+}
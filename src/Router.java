@@ -0,0 +1,280 @@
+// Router.java
+import java.io.*;
+import java.net.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class Router - Gateway đứng trước nhiều server node chạy song song
+ * Client kết nối tới Router như kết nối tới Server thường; Router đọc handshake,
+ * chọn node theo tải rồi chuyển tiếp nguyên vẹn luồng byte giữa client và node.
+ * Trước các byte của client, Router gửi cho node một message "FORWARDED:<ip_client>" để node
+ * giới hạn tốc độ theo IP thật của client thay vì IP của Router (node chỉ tin message này từ Router).
+ *
+ * Các node báo sức khỏe qua cổng health (mỗi giây một dòng
+ * "HEALTH <nodeId> <port> <số_người_chơi> <số_người_đang_chờ>").
+ * Node không báo quá NODE_TIMEOUT_MS bị coi là chết và không nhận người chơi mới.
+ *
+ * Cách dùng: java Router [cổng_client] [cổng_health]
+ */
+public class Router {
+    private static final int DEFAULT_CLIENT_PORT = 12345;
+    static final int DEFAULT_HEALTH_PORT = 12400;
+    private static final long NODE_TIMEOUT_MS = 3000;
+    private static final int BUFFER_SIZE = 8192;
+    static final String FORWARDED_PREFIX = "FORWARDED:";
+    private static final int STREAM_HEADER_BYTES = 4; // STREAM_MAGIC + STREAM_VERSION
+
+    /**
+     * Thông tin của một server node do health report cung cấp
+     */
+    private static class NodeInfo {
+        final String nodeId;
+        final String host;
+        final int port;
+        volatile int players;
+        volatile int waiting;
+        volatile long lastSeen;
+        int assignedSinceReport; // Số người chơi Router đã chuyển tới kể từ báo cáo gần nhất
+
+        NodeInfo(String nodeId, String host, int port) {
+            this.nodeId = nodeId;
+            this.host = host;
+            this.port = port;
+        }
+
+        boolean isHealthy() {
+            return System.currentTimeMillis() - lastSeen < NODE_TIMEOUT_MS;
+        }
+
+        int load() {
+            return players + assignedSinceReport;
+        }
+    }
+
+    private static final Map<String, NodeInfo> nodes = new ConcurrentHashMap<>();
+    // Node vừa nhận một người chơi lẻ - người tiếp theo được ghép vào cùng node để đủ cặp
+    private static NodeInfo pendingPairNode;
+
+    public static void main(String[] args) throws IOException {
+        int clientPort = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CLIENT_PORT;
+        int healthPort = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_HEALTH_PORT;
+
+        ServerSocket healthSocket = new ServerSocket(healthPort);
+        Thread healthThread = new Thread(() -> acceptHealthReports(healthSocket), "router-health");
+        healthThread.setDaemon(true);
+        healthThread.start();
+
+        ServerSocket clientSocket = new ServerSocket(clientPort);
+        System.out.println("==========================================");
+        System.out.println("🔀 BLACKJACK ROUTER");
+        System.out.println("Cổng client: " + clientPort + " | Cổng health: " + healthPort);
+        System.out.println("==========================================");
+
+        while (true) {
+            Socket client = clientSocket.accept();
+            new Thread(() -> handleClient(client), "router-client").start();
+        }
+    }
+
+    private static void acceptHealthReports(ServerSocket healthSocket) {
+        while (true) {
+            try {
+                Socket nodeSocket = healthSocket.accept();
+                new Thread(() -> readHealthReports(nodeSocket), "router-health-node").start();
+            } catch (IOException e) {
+                System.err.println("Lỗi khi nhận kết nối health: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void readHealthReports(Socket nodeSocket) {
+        String host = nodeSocket.getInetAddress().getHostAddress();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(nodeSocket.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                if (parts.length != 5 || !parts[0].equals("HEALTH")) continue;
+                String nodeId = parts[1];
+                int port = Integer.parseInt(parts[2]);
+                NodeInfo node = nodes.computeIfAbsent(nodeId, id -> {
+                    System.out.println("✅ Node " + id + " (" + host + ":" + port + ") đã tham gia");
+                    return new NodeInfo(id, host, port);
+                });
+                synchronized (Router.class) {
+                    node.players = Integer.parseInt(parts[3]);
+                    node.waiting = Integer.parseInt(parts[4]);
+                    node.assignedSinceReport = 0;
+                    node.lastSeen = System.currentTimeMillis();
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Mất health report từ " + host + ": " + e.getMessage());
+        }
+    }
+
+    private static void handleClient(Socket client) {
+        Socket node = null;
+        try {
+            // Đọc handshake nhưng giữ lại nguyên văn các byte để gửi lại cho node
+            // Byte của client chưa được tin cậy: chỉ giải mã String, giới hạn độ dài như trên server node
+            RecordingInputStream recorder = new RecordingInputStream(client.getInputStream());
+            ObjectInputStream handshakeIn = new ObjectInputStream(
+                new CommandGuard.MessageLimit(recorder, CommandGuard.MAX_MESSAGE_BYTES));
+            handshakeIn.setObjectInputFilter(CommandGuard.STRING_ONLY_FILTER);
+            String handshake = (String) handshakeIn.readObject();
+            if (handshake.startsWith(FORWARDED_PREFIX)) {
+                throw new IOException("Client không được tự gửi " + FORWARDED_PREFIX);
+            }
+
+            NodeInfo target = chooseNode(handshake);
+            if (target == null) {
+                System.err.println("Không có node nào sẵn sàng, từ chối " + client.getInetAddress().getHostAddress());
+                client.close();
+                return;
+            }
+
+            node = new Socket(target.host, target.port);
+            OutputStream toNode = node.getOutputStream();
+            toNode.write(forwardedPreamble(client.getInetAddress().getHostAddress()));
+            byte[] recorded = recorder.getRecordedBytes();
+            toNode.write(recorded, STREAM_HEADER_BYTES, recorded.length - STREAM_HEADER_BYTES);
+            toNode.flush();
+
+            Socket nodeSocket = node;
+            Thread downstream = new Thread(() -> pipe(nodeSocket, client), "router-downstream");
+            downstream.start();
+            pipe(client, node);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            System.err.println("Lỗi khi chuyển tiếp client: " + e.getMessage());
+            closeQuietly(client);
+            closeQuietly(node);
+        }
+    }
+
+    /**
+     * Chọn node cho kết nối mới
+     * - Resume: quay về đúng node đã cấp token (token có tiền tố "nodeId.")
+     * - Người xem: node tải thấp nhất; không tính vào việc ghép cặp vì người xem không ngồi ghế nào
+     * - Người chơi mới: ghép vào node đang có người chờ lẻ, nếu không thì node tải thấp nhất
+     */
+    private static synchronized NodeInfo chooseNode(String handshake) {
+        if (handshake.startsWith("RESUME:")) {
+            String token = handshake.substring(7);
+            int dot = token.indexOf('.');
+            if (dot > 0) {
+                NodeInfo owner = nodes.get(token.substring(0, dot));
+                if (owner != null && owner.isHealthy()) {
+                    return owner;
+                }
+            }
+            return null;
+        }
+
+        if (handshake.equals("SPECTATE")) {
+            NodeInfo leastLoaded = null;
+            for (NodeInfo node : nodes.values()) {
+                if (node.isHealthy() && (leastLoaded == null || node.load() < leastLoaded.load())) {
+                    leastLoaded = node;
+                }
+            }
+            return leastLoaded;
+        }
+
+        NodeInfo chosen = null;
+        if (pendingPairNode != null && pendingPairNode.isHealthy()) {
+            chosen = pendingPairNode;
+            pendingPairNode = null;
+        } else {
+            pendingPairNode = null;
+            for (NodeInfo node : nodes.values()) {
+                if (!node.isHealthy()) continue;
+                if (node.waiting % 2 == 1 && node.assignedSinceReport == 0) {
+                    chosen = node; // Node đang có một người chờ ghép cặp
+                    break;
+                }
+                if (chosen == null || node.load() < chosen.load()) {
+                    chosen = node;
+                }
+            }
+            if (chosen != null && !(chosen.waiting % 2 == 1 && chosen.assignedSinceReport == 0)) {
+                pendingPairNode = chosen;
+            }
+        }
+        if (chosen != null) {
+            chosen.assignedSinceReport++;
+        }
+        return chosen;
+    }
+
+    /**
+     * Phần đầu luồng gửi cho node: header của object stream, message "FORWARDED:<ip>" rồi TC_RESET.
+     * Các byte của client được nối tiếp ngay sau (bỏ header của client); TC_RESET xóa bảng tham chiếu
+     * nên các message của client vẫn được node giải mã như khi client kết nối trực tiếp.
+     */
+    private static byte[] forwardedPreamble(String clientIP) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(FORWARDED_PREFIX + clientIP);
+            out.reset();
+        }
+        return bytes.toByteArray();
+    }
+
+    // Chép byte một chiều cho đến khi một bên đóng kết nối
+    private static void pipe(Socket from, Socket to) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Một phía đã đóng - đóng nốt phía còn lại
+        } finally {
+            closeQuietly(from);
+            closeQuietly(to);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket == null) return;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Bỏ qua lỗi khi đóng kết nối
+        }
+    }
+
+    /**
+     * InputStream ghi lại mọi byte đã đọc - dùng để đọc handshake mà không làm mất dữ liệu
+     */
+    private static class RecordingInputStream extends FilterInputStream {
+        private final ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+
+        RecordingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) recorded.write(b);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) recorded.write(b, off, n);
+            return n;
+        }
+
+        byte[] getRecordedBytes() {
+            return recorded.toByteArray();
+        }
+    }
+}
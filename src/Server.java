@@ -1,10 +1,20 @@
 // Server.java (Fixed disconnect logic)
 import java.io.*;
 import java.net.*;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class Server - Server chính của game Blackjack multiplayer
@@ -13,12 +23,70 @@ import java.util.concurrent.Executors;
  */
 public class Server {
     private static int PORT = 12345; // Cho phép thay đổi port
-    private static final ExecutorService pool = Executors.newFixedThreadPool(10);
-    private static final List<ClientHandler> waitingPlayers = new ArrayList<>();
+    // Mỗi bàn chơi được gắn cố định vào một event loop; mỗi lõi CPU một loop
+    static final EventLoops tableLoops = new EventLoops(Runtime.getRuntime().availableProcessors(), "table-loop");
+
+    // Theo dõi độ trễ của các loop và quyết định nhận/xếp hàng/từ chối người chơi mới
+    static final AdmissionController admission = new AdmissionController(tableLoops, Server::addWaitingPlayer);
+    private static final List<PlayerConnection> waitingPlayers = new ArrayList<>();
+
+    // Luồng I/O dùng chung đọc lệnh và ghi message cho mọi kết nối người chơi sau handshake (không có luồng riêng mỗi ghế)
+    static final ClientIO clientIO = new ClientIO(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), "client-io");
+
+    // Người xem bàn nổi bật: mỗi cập nhật mã hóa một lần, ghi ra socket trên luồng riêng
+    static final SpectatorHub spectators = new SpectatorHub();
+
+    // Thư mục chứa journal, ví và snapshot các bàn; mỗi node của cluster cần một thư mục riêng
+    private static Path dataDirectory;
+    // Khóa snapshot các bàn, giữ tới khi tiến trình thoát
+    private static DataLock tableSnapshotLock;
+
+    // Lịch sử ván bài dùng cho công cụ replay (HandReplay)
+    static final String HAND_JOURNAL_FILE = "hand_history.log";
+    static HandJournal handJournal;
+
+    // Ví người chơi lưu bền qua các phiên và các lần khởi động lại server
+    static final String WALLET_DIRECTORY = "wallets";
+    static WalletStore wallets;
+
+    // Tên của các ghế đang mở ví (đang chờ ghép bàn hoặc đang ngồi bàn): ví theo tên nên một tên chỉ
+    // được ngồi một ghế, nếu không hai ghế cùng tên sẽ ghi đè số dư của nhau
+    static final Set<String> namesInUse = ConcurrentHashMap.newKeySet();
+
+    // Resume token -> phiên chơi, dùng để gắn lại client sau khi mất kết nối
+    static final Map<String, GameSession> sessionsByToken = new ConcurrentHashMap<>();
+
+    // Một bánh xe hẹn giờ dùng chung cho deadline lượt chơi và thời gian giữ ghế của mọi bàn
+    static final HashedTimerWheel timers = new HashedTimerWheel(100, TimeUnit.MILLISECONDS, "table-timers");
+
+    // Engine của các bàn đã kết thúc được reset và dùng lại cho bàn mới
+    static final TablePool tablePool = new TablePool(2, 256);
+
+    // Engine của các bàn nghỉ lâu ở GAME_OVER được nén ra ngoài heap (tối đa 1 triệu bàn, 256 MB direct)
+    static final DormantTableStore dormantTables = new DormantTableStore(1 << 20);
+
+    // Chế độ cluster: node ID được gắn vào resume token để Router đưa client resume về đúng node
+    static String nodeId;
+    // Địa chỉ của Router: chỉ kết nối đến từ địa chỉ này mới được báo IP thật của client ("FORWARDED:<ip>")
+    private static InetAddress routerAddress;
+    private static final long HEALTH_REPORT_INTERVAL_MS = 1000;
+
+    // Handshake của kết nối mới chạy trên một pool có giới hạn thay vì trên luồng accept,
+    // để kết nối không gửi handshake không chặn việc nhận các kết nối khác (và admission control)
+    private static final int HANDSHAKE_THREADS = 16;
+    private static final int HANDSHAKE_QUEUE = 256;
+    private static final ThreadPoolExecutor handshakes = new ThreadPoolExecutor(
+        HANDSHAKE_THREADS, HANDSHAKE_THREADS, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(HANDSHAKE_QUEUE), r -> {
+            Thread thread = new Thread(r, "handshake");
+            thread.setDaemon(true);
+            return thread;
+        });
 
     /**
      * Phương thức main - Entry point của server
-     * @param args Tham số dòng lệnh (có thể chứa port number)
+     * @param args Tham số dòng lệnh: [port] [--router host:cổng_health] [--takeover pid_server_cũ] [--data-dir thư_mục]
+     * Thư mục dữ liệu mặc định là thư mục hiện tại, hoặc "node-<port>" khi chạy sau Router
      * Chức năng:
      * - Đọc port từ command line (nếu có)
      * - Tạo ServerSocket và lắng nghe kết nối
@@ -35,8 +103,61 @@ public class Server {
                 System.out.println("Port không hợp lệ, sử dụng port mặc định: " + PORT);
             }
         }
+
+        // Chạy như một node phía sau Router, hoặc tiếp quản các bàn của server cũ khi nâng cấp
+        long takeoverPid = -1;
+        for (int i = 1; i + 1 < args.length; i++) {
+            if (args[i].equals("--router")) {
+                String[] routerHostPort = args[i + 1].split(":");
+                nodeId = "n" + PORT;
+                try {
+                    routerAddress = InetAddress.getByName(routerHostPort[0]);
+                } catch (UnknownHostException e) {
+                    System.err.println("⚠️  Không phân giải được địa chỉ Router: " + e.getMessage());
+                }
+                startHealthReporter(routerHostPort[0], Integer.parseInt(routerHostPort[1]));
+            } else if (args[i].equals("--takeover")) {
+                takeoverPid = Long.parseLong(args[i + 1]);
+            } else if (args[i].equals("--data-dir")) {
+                dataDirectory = Paths.get(args[i + 1]);
+            }
+        }
+        if (dataDirectory == null) {
+            dataDirectory = Paths.get(nodeId != null ? "node-" + PORT : ".");
+        }
         
-        ServerSocket serverSocket = new ServerSocket(PORT);
+        ServerSocket serverSocket = openServerSocket(PORT);
+        if (takeoverPid > 0) {
+            // Bind trước rồi mới dừng server cũ: kết nối mới chờ trong backlog thay vì bị từ chối
+            if (!TableHandoff.takeOver(takeoverPid)) {
+                serverSocket.close();
+                System.exit(1); // Server cũ vẫn đang phục vụ - không chạy song song với nó
+            }
+        }
+
+        // Server khác đang dùng cùng thư mục dữ liệu thì dừng ngay: hai tiến trình sẽ ghi đè ví và bàn của nhau
+        Files.createDirectories(dataDirectory);
+        try {
+            tableSnapshotLock = TableHandoff.lock(dataDirectory.resolve(TableHandoff.SNAPSHOT_FILE));
+        } catch (DataLock.HeldException e) {
+            exitDataInUse(serverSocket, e);
+        }
+
+        try {
+            handJournal = HandJournal.open(dataDirectory.resolve(HAND_JOURNAL_FILE));
+        } catch (IOException e) {
+            System.err.println("⚠️  Không thể mở journal lịch sử ván bài: " + e.getMessage());
+        }
+
+        try {
+            wallets = WalletStore.open(dataDirectory.resolve(WALLET_DIRECTORY));
+        } catch (DataLock.HeldException e) {
+            exitDataInUse(serverSocket, e);
+        } catch (IOException e) {
+            System.err.println("⚠️  Không thể mở kho số dư, tiền sẽ không được lưu: " + e.getMessage());
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdown(serverSocket), "shutdown"));
+
         
         // Hiển thị thông tin server
         System.out.println("==========================================");
@@ -55,304 +176,223 @@ public class Server {
             System.out.println("⚠️  Không thể lấy IP address: " + e.getMessage());
         }
         
+        CommandGuard.startMaintenance();
+        admission.start();
+        spectators.start();
+
+        // Khôi phục các bàn do server trước chuyển giao lại (nếu có)
+        List<TableHandoff.TableSnapshot> handedOff = TableHandoff.load(dataDirectory.resolve(TableHandoff.SNAPSHOT_FILE));
+        for (TableHandoff.TableSnapshot snapshot : handedOff) {
+            new GameSession(snapshot).restore();
+        }
+        if (!handedOff.isEmpty()) {
+            System.out.println("🔁 Đã khôi phục " + handedOff.size() + " bàn, đang chờ người chơi kết nối lại...");
+        }
+
         System.out.println("==========================================");
         System.out.println("Đang chờ người chơi kết nối... (Cần 2 người)");
         System.out.println("==========================================\n");
 
         while (true) {
+            Socket clientSocket;
             try {
-                Socket clientSocket = serverSocket.accept();
-                ClientHandler clientHandler = new ClientHandler(clientSocket);
-
-                synchronized (waitingPlayers) {
-                    waitingPlayers.add(clientHandler);
-                    String clientIP = clientSocket.getInetAddress().getHostAddress();
-                    System.out.println("🎯 Player '" + clientHandler.getPlayerName() + 
-                                     "' từ " + clientIP + " đã kết nối và đang chờ...");
-                    System.out.println("Số người chơi đang chờ: " + waitingPlayers.size() + "/2");
-
-                    if (waitingPlayers.size() == 2) {
-                        ClientHandler player1 = waitingPlayers.remove(0);
-                        ClientHandler player2 = waitingPlayers.remove(0);
-                        String p1IP = player1.getClientIP();
-                        String p2IP = player2.getClientIP();
-                        System.out.println("\n==========================================");
-                        System.out.println("🎮 GAME SESSION STARTED!");
-                        System.out.println("Player 1: '" + player1.getPlayerName() + "' (" + p1IP + ")");
-                        System.out.println("Player 2: '" + player2.getPlayerName() + "' (" + p2IP + ")");
-                        System.out.println("==========================================\n");
-                        
-                        pool.execute(new GameSession(player1, player2));
-                    } else {
-                        System.out.println("Đang chờ thêm " + (2 - waitingPlayers.size()) + " người chơi...\n");
-                    }
+                clientSocket = serverSocket.accept();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) {
+                    return; // Server đang dừng (shutdown hook đã đóng socket lắng nghe)
                 }
-            } catch (IOException | ClassNotFoundException e) {
-                System.err.println("Lỗi khi thiết lập kết nối với client ban đầu: " + e.getMessage());
+                System.err.println("Lỗi khi nhận kết nối: " + e.getMessage());
+                continue;
             }
+            dispatchHandshake(clientSocket);
         }
     }
-}
 
-class GameSession implements Runnable {
-    private final ClientHandler player1;
-    private final ClientHandler player2;
-    private final Blackjack game;
-    private boolean player1WantsNewGame = false;
-    private boolean player2WantsNewGame = false;
-    
-    // Cờ để đảm bảo phiên chỉ kết thúc một lần
-    private volatile boolean sessionEnded = false;
-
-    GameSession(ClientHandler p1, ClientHandler p2) {
-        this.player1 = p1;
-        this.player2 = p2;
-        this.game = new Blackjack(2);
-    }
-    
-    @Override
-    public void run() {
-        
+    // Chuyển handshake sang pool; pool đã đầy thì đóng kết nối ngay
+    private static void dispatchHandshake(Socket clientSocket) {
         try {
-            player1.setGameSession(this, 0);
-            player2.setGameSession(this, 1);
-
-            new Thread(player1).start();
-            new Thread(player2).start();
-
-            game.startGame();
-            broadcastGameState();
-        } catch (Exception e) {
-            System.err.println("Lỗi nghiêm trọng trong game session: " + e.getMessage());
-            endSession();
+            handshakes.execute(() -> handshake(clientSocket));
+        } catch (RejectedExecutionException e) {
+            System.out.println("🚫 Quá nhiều kết nối đang handshake, từ chối " + clientSocket.getInetAddress().getHostAddress());
+            closeQuietly(clientSocket);
         }
     }
-    
-    public synchronized void handleCommand(String command, int playerId) {
-        if (sessionEnded) return; // Nếu phiên đã kết thúc, không xử lý gì thêm
 
-        // XỬ LÝ BETTING COMMANDS - THÊM
-        if (command.startsWith("BET:")) {
-            try {
-                int betAmount = Integer.parseInt(command.substring(4));
-                if (game.placeBet(playerId, betAmount)) {
-                    String playerName = (playerId == 0) ? player1.getPlayerName() : player2.getPlayerName();
-                    System.out.println("Player " + playerId + " (" + playerName + ") đặt cược " + betAmount + "$");
-                    broadcastGameState();
-                } else {
-                    // Gửi thông báo lỗi về client
-                    ClientHandler player = (playerId == 0) ? player1 : player2;
-                    player.sendObject("BETTING_ERROR:Không đủ tiền hoặc số cược không hợp lệ");
-                }
-            } catch (NumberFormatException e) {
-                System.err.println("Invalid bet amount: " + command);
-                ClientHandler player = (playerId == 0) ? player1 : player2;
-                player.sendObject("BETTING_ERROR:Số tiền không hợp lệ");
-            }
-            return;
-        }
+    // Đọc handshake (có timeout, xem ClientHandler) rồi đưa kết nối tới resume, người xem hoặc admission control
+    private static void handshake(Socket clientSocket) {
+        try {
+            ClientHandler clientHandler = new ClientHandler(clientSocket);
 
-        // Xử lý game commands (HIT/STAND)
-        if (command.equals("HIT") || command.equals("STAND")) {
-            if (game.getCurrentGameState() != Blackjack.GameState.PLAYER_TURN || 
-                game.getCurrentPlayerIndex() != playerId) {
+            if (clientHandler.isResumeRequest()) {
+                resumeSession(clientHandler);
                 return;
             }
-            if (command.equals("HIT")) {
-                game.playerHit();
-            } else {
-                game.playerStand();
-            }
-            
-            broadcastGameState();
-            return;
-        }
 
-        // Xử lý new game commands
-        switch(command) {
-            case "REQUEST_NEW_GAME":
-            case "ACCEPT_NEW_GAME":
-                handleNewGameRequest(playerId);
-                break;
-            case "DECLINE_NEW_GAME":
-                player1.sendObject("NEW_GAME_DECLINED");
-                player2.sendObject("NEW_GAME_DECLINED");
-                resetNewGameRequests();
-                break;
-        }
-    }
-    
-    public void broadcastGameState() {
-        if (sessionEnded) return;
-        player1.sendObject(createUpdateForPlayer(0));
-        player2.sendObject(createUpdateForPlayer(1));
-    }
-    
-    private GameStateUpdate createUpdateForPlayer(int playerId) {
-        // Tạo dealer hand để gửi (ẩn bài đầu nếu chưa kết thúc)
-        ArrayList<Card> dealerHandToSend = new ArrayList<>();
-        if (game.getCurrentGameState() == Blackjack.GameState.GAME_OVER || 
-            game.getCurrentGameState() == Blackjack.GameState.DEALER_TURN) {
-            // Hiển thị tất cả bài dealer khi game kết thúc hoặc đến lượt dealer
-            dealerHandToSend.addAll(game.getDealerHand());
-        } else {
-            // Ẩn bài đầu tiên của dealer
-            dealerHandToSend.add(new Card("BACK", ""));
-            if (game.getDealerHand() != null && game.getDealerHand().size() > 1) {
-                for (int i = 1; i < game.getDealerHand().size(); i++) {
-                    dealerHandToSend.add(game.getDealerHand().get(i));
-                }
-            }
-        }
-        
-        // Tính dealer sum để gửi
-        int dealerSumToSend = 0;
-        if (game.getCurrentGameState() == Blackjack.GameState.GAME_OVER || 
-            game.getCurrentGameState() == Blackjack.GameState.DEALER_TURN) {
-            dealerSumToSend = game.getDealerSum();
-        } else if (game.getDealerHand() != null && game.getDealerHand().size() > 1) {
-            // Chỉ tính điểm của các lá không bị ẩn
-            for (int i = 1; i < game.getDealerHand().size(); i++) {
-                dealerSumToSend += game.getDealerHand().get(i).getValue();
+            if (clientHandler.isSpectateRequest()) {
+                spectators.add(clientHandler);
+                return;
             }
-        }
-        
-        List<String> names = List.of(player1.getPlayerName(), player2.getPlayerName());
-
-        // SỬA: Đảm bảo không truyền null cho money và bet data
-        return new GameStateUpdate(
-            names,                                    // playersNames
-            game.getPlayersHands(),                  // playersHands
-            game.getPlayersSums(),                   // playersSums
-            game.getPlayersResults(),                // playersResults
-            game.getPlayersMoneys() != null ? game.getPlayersMoneys() : new ArrayList<>(), // playersMoneys - SỬA
-            game.getPlayersBets() != null ? game.getPlayersBets() : new ArrayList<>(),     // playersBets - SỬA
-            dealerHandToSend,                        // dealerHand
-            dealerSumToSend,                         // dealerSum
-            game.getCurrentGameState(),              // gameState
-            game.getCurrentPlayerIndex(),            // currentPlayerTurn
-            playerId                                 // myPlayerId
-        );
-    }
-    
-    // --- PHƯƠNG THỨC XỬ LÝ NGẮT KẾT NỐI ĐÃ SỬA LẠI ---
-    public synchronized void removePlayer(ClientHandler disconnectedPlayer) {
-        if (sessionEnded) {
-            return; // Nếu đã xử lý rồi thì không làm gì nữa
-        }
-        System.out.println("Xử lý ngắt kết nối từ: " + disconnectedPlayer.getPlayerName());
-        
-        ClientHandler remainingPlayer = (disconnectedPlayer == player1) ? player2 : player1;
-        if (remainingPlayer != null && remainingPlayer.isConnected()) {
-            remainingPlayer.sendObject("OPPONENT_DISCONNECTED");
-        }
-        
-        // Gọi hàm kết thúc phiên tập trung
-        endSession();
-    }
-    
-    // Hàm để kết thúc phiên và dọn dẹp
-    private void endSession() {
-        this.sessionEnded = true;
-        player1.closeConnection();
-        player2.closeConnection();
-        System.out.println("Game session đã kết thúc và dọn dẹp.");
-    }
-    
-    private void handleNewGameRequest(int playerId) {
-        if (playerId == 0) player1WantsNewGame = true;
-        else player2WantsNewGame = true;
-
-        if (player1WantsNewGame && player2WantsNewGame) {
-            startNewGame();
-        } else if (playerId == 0) {
-            player2.sendObject("NEW_GAME_REQUESTED");
-        } else {
-            player1.sendObject("NEW_GAME_REQUESTED");
-        }
-    }
 
-    private void startNewGame() {
-        System.out.println("Cả hai người chơi đã đồng ý. Bắt đầu ván mới...");
-        resetNewGameRequests();
-        game.startGame();
-        broadcastGameState();
+            // Khi quá tải, người chơi mới vào sảnh chờ hoặc bị từ chối thay vì mở thêm bàn
+            admission.admit(clientHandler);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            System.err.println("Lỗi khi thiết lập kết nối với client ban đầu: " + e.getMessage());
+        }
     }
 
-    private void resetNewGameRequests() {
-        player1WantsNewGame = false;
-        player2WantsNewGame = false;
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Bỏ qua lỗi khi đóng kết nối
+        }
     }
-}
 
-class ClientHandler implements Runnable {
-    private final Socket socket;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
-    private GameSession session;
-    private int playerId;
-    private String playerName;
-
-    ClientHandler(Socket socket) throws IOException, ClassNotFoundException {
-        this.socket = socket;
-        this.out = new ObjectOutputStream(socket.getOutputStream());
-        this.in = new ObjectInputStream(socket.getInputStream());
-        this.playerName = (String) in.readObject();
+    private static void exitDataInUse(ServerSocket serverSocket, DataLock.HeldException e) throws IOException {
+        System.err.println("❌ " + e.getMessage() + ". Mỗi server cần thư mục dữ liệu riêng (--data-dir)");
+        serverSocket.close();
+        System.exit(1);
     }
 
-    public void setGameSession(GameSession session, int playerId) {
-        this.session = session;
-        this.playerId = playerId;
+    /**
+     * Mở socket lắng nghe với SO_REUSEPORT (nếu hệ điều hành hỗ trợ),
+     * để server mới bind được cùng cổng khi server cũ vẫn đang chạy
+     * @param port Cổng lắng nghe
+     * @return Socket đã bind
+     */
+    private static ServerSocket openServerSocket(int port) throws IOException {
+        // Mở qua ServerSocketChannel để mỗi Socket nhận được có SocketChannel: người chơi vẫn dùng stream
+        // như cũ, còn SpectatorHub chuyển socket người xem sang ghi không chặn
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        if (channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+            channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+        }
+        channel.bind(new InetSocketAddress(port));
+        return channel.socket();
     }
 
-    public boolean isConnected() {
-        return socket != null && !socket.isClosed();
-    }
-    
-    public void closeConnection() {
+    /**
+     * Shutdown hook (SIGTERM): ngừng nhận kết nối, chuyển giao các bàn đang chơi cho server kế tiếp
+     * rồi mới đóng kho số dư (chụp bàn có thể ghi số dư lần cuối)
+     * @param serverSocket Socket lắng nghe
+     */
+    private static void shutdown(ServerSocket serverSocket) {
         try {
-            if (!socket.isClosed()) {
-                socket.close();
-            }
+            serverSocket.close();
         } catch (IOException e) {
-            // Bỏ qua lỗi khi đóng kết nối
+            // Bỏ qua lỗi khi đóng socket
+        }
+        TableHandoff.save(sessionsByToken.values(), dataDirectory.resolve(TableHandoff.SNAPSHOT_FILE));
+        if (wallets != null) {
+            try {
+                wallets.close();
+            } catch (IOException e) {
+                System.err.println("Lỗi khi đóng kho số dư: " + e.getMessage());
+            }
         }
     }
 
-    @Override
-    public void run() {
-        try {
-            while (isConnected()) {
-                String command = (String) in.readObject();
-                 if (session != null) {
-                    session.handleCommand(command, this.playerId);
+    /**
+     * Đưa người chơi đã được nhận vào hàng chờ và mở bàn khi đủ hai người
+     * @param clientHandler Người chơi mới (một kết nối, hoặc một kênh bàn của kết nối đa bàn)
+     */
+    private static void addWaitingPlayer(PlayerConnection clientHandler) {
+        synchronized (waitingPlayers) {
+            // Người chờ đã mất kết nối trả lại tên, để họ vào lại được bằng chính tên đó
+            for (Iterator<PlayerConnection> iterator = waitingPlayers.iterator(); iterator.hasNext(); ) {
+                PlayerConnection waiting = iterator.next();
+                if (!waiting.isConnected()) {
+                    iterator.remove();
+                    namesInUse.remove(waiting.getPlayerName());
                 }
             }
-        } catch (IOException | ClassNotFoundException e) {
-             if (session != null) {
-                // Chỉ gọi removePlayer nếu nó chưa được xử lý
-                session.removePlayer(this);
+            if (!namesInUse.add(clientHandler.getPlayerName())) {
+                System.out.println("🚫 Tên '" + clientHandler.getPlayerName() + "' đang ngồi ở một ghế khác, từ chối "
+                    + clientHandler.getClientIP());
+                clientHandler.sendObject("NAME_IN_USE");
+                clientHandler.closeConnection();
+                return;
+            }
+            waitingPlayers.add(clientHandler);
+            System.out.println("🎯 Player '" + clientHandler.getPlayerName() + 
+                             "' từ " + clientHandler.getClientIP() + " đã kết nối và đang chờ...");
+            System.out.println("Số người chơi đang chờ: " + waitingPlayers.size() + "/2");
+
+            if (waitingPlayers.size() == 2) {
+                PlayerConnection player1 = waitingPlayers.remove(0);
+                PlayerConnection player2 = waitingPlayers.remove(0);
+                String p1IP = player1.getClientIP();
+                String p2IP = player2.getClientIP();
+                System.out.println("\n==========================================");
+                System.out.println("🎮 GAME SESSION STARTED!");
+                System.out.println("Player 1: '" + player1.getPlayerName() + "' (" + p1IP + ")");
+                System.out.println("Player 2: '" + player2.getPlayerName() + "' (" + p2IP + ")");
+                System.out.println("==========================================\n");
+                
+                new GameSession(player1, player2).start();
+            } else {
+                System.out.println("Đang chờ thêm " + (2 - waitingPlayers.size()) + " người chơi...\n");
             }
         }
     }
-    
-    public String getPlayerName() { return this.playerName; }
-    
-    // Thêm phương thức để lấy IP của client
-    public String getClientIP() {
-        return socket.getInetAddress().getHostAddress();
+
+    /**
+     * @param address Địa chỉ của một kết nối đến
+     * @return true nếu kết nối đến từ Router của cluster
+     */
+    static boolean isRouter(InetAddress address) {
+        return routerAddress != null && routerAddress.equals(address);
     }
 
-    public void sendObject(Serializable object) {
-        if (!isConnected()) return;
-        try {
-            out.writeObject(object);
-            out.reset();
-            out.flush();
-        } catch (IOException e) {
-            if (session != null) {
-                session.removePlayer(this);
+    /**
+     * Gửi health report định kỳ cho Router (tự kết nối lại nếu Router khởi động lại)
+     * @param routerHost Địa chỉ Router
+     * @param healthPort Cổng health của Router
+     */
+    private static void startHealthReporter(String routerHost, int healthPort) {
+        Thread reporter = new Thread(() -> {
+            while (true) {
+                try (Socket socket = new Socket(routerHost, healthPort);
+                     PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()), true)) {
+                    System.out.println("🔗 Đã kết nối tới Router " + routerHost + ":" + healthPort + " với ID " + nodeId);
+                    while (!writer.checkError()) {
+                        int waiting;
+                        synchronized (waitingPlayers) {
+                            waiting = waitingPlayers.size();
+                        }
+                        int seated = sessionsByToken.size();
+                        writer.println("HEALTH " + nodeId + " " + PORT + " " + (seated + waiting) + " " + waiting);
+                        Thread.sleep(HEALTH_REPORT_INTERVAL_MS);
+                    }
+                } catch (IOException e) {
+                    // Router chưa sẵn sàng - thử lại sau
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    Thread.sleep(HEALTH_REPORT_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
             }
+        }, "health-reporter");
+        reporter.setDaemon(true);
+        reporter.start();
+    }
+
+    // Gắn client vừa kết nối lại vào ghế cũ trong phiên chơi của nó
+    private static void resumeSession(ClientHandler clientHandler) {
+        GameSession session = sessionsByToken.get(clientHandler.getResumeToken());
+        if (session != null) {
+            session.reattach(clientHandler); // Chạy trên event loop của bàn, tự báo lỗi nếu phiên đã kết thúc
+            return;
         }
+        rejectResume(clientHandler);
     }
-}
\ No newline at end of file
+
+    static void rejectResume(ClientHandler clientHandler) {
+        System.out.println("⚠️  Resume token không hợp lệ hoặc đã hết hạn từ " + clientHandler.getClientIP());
+        clientHandler.sendObject("RESUME_FAILED");
+        clientHandler.closeConnection();
+    }
+}
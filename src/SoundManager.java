@@ -1,23 +1,52 @@
 // SoundManager.java
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.sound.sampled.*;
 
 /**
  * Class SoundManager - Quản lý âm thanh và nhạc nền của game
  * Sử dụng Singleton pattern để đảm bảo chỉ có một instance duy nhất
  * Hỗ trợ phát nhạc nền và hiệu ứng âm thanh với điều khiển âm lượng
+ *
+ * Hiệu ứng âm thanh được giải mã một lần vào bộ nhớ (PCM theo định dạng của AudioMixer),
+ * còn nhạc nền được đọc dần từ file nên bộ nhớ không tăng theo độ dài bài nhạc.
+ * Nhạc nền và mọi hiệu ứng được trộn bằng phần mềm ra một line âm thanh duy nhất,
+ * nên phát chồng nhiều âm thanh không mở thêm line và không tạo thêm luồng.
  */
 public class SoundManager {
 
+    /** Các hiệu ứng âm thanh của game - được nạp sẵn khi khởi động */
+    public static final String[] SOUND_EFFECTS = {
+        "resource/sounds/chiabai.wav",
+        "resource/sounds/rutbai.wav",
+        "resource/sounds/click.wav",
+        "resource/sounds/win.wav",
+        "resource/sounds/lose.wav"
+    };
+
     private static SoundManager instance;
-    private Clip musicClip;
+    private final AudioMixer mixer = new AudioMixer();
+    private AudioMixer.Voice musicVoice;
     private float volume = 0.75f; // Âm lượng mặc định 75%
 
+    // PCM đã giải mã của từng hiệu ứng (mẫu stereo xen kẽ theo AudioMixer.FORMAT)
+    private final Map<String, short[]> effects = new ConcurrentHashMap<>();
+    private final ExecutorService audioExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "audio");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
      * Constructor private - Ngăn tạo instance từ bên ngoài (Singleton pattern)
      */
-    private SoundManager() {}
+    private SoundManager() {
+        mixer.setMasterGain(volume);
+    }
 
     /**
      * Lấy instance duy nhất của SoundManager (Singleton pattern)
@@ -35,32 +64,24 @@ public class SoundManager {
      * @param filePath Đường dẫn đến file âm thanh (WAV format)
      * Chức năng:
      * - Dừng nhạc cũ nếu đang phát
-     * - Load và phát file nhạc mới
+     * - Mở file nhạc mới và phát dạng stream (StreamingVoice)
      * - Lặp lại vô hạn (loop)
      * - Áp dụng mức âm lượng hiện tại
      */
-    public void playBackgroundMusic(String filePath) {
+    public synchronized void playBackgroundMusic(String filePath) {
         // Dừng nhạc cũ nếu đang phát
-        if (musicClip != null && musicClip.isRunning()) {
-            musicClip.stop();
+        stopBackgroundMusic();
+
+        if (!AssetBundle.getInstance().exists(filePath)) {
+            System.err.println("File âm thanh không tồn tại: " + filePath);
+            return;
         }
-        
         try {
-            File soundFile = new File(filePath);
-            if (!soundFile.exists()) {
-                System.err.println("File âm thanh không tồn tại: " + filePath);
-                return;
-            }
-            
-            AudioInputStream audioIn = AudioSystem.getAudioInputStream(soundFile);
-            musicClip = AudioSystem.getClip();
-            musicClip.open(audioIn);
-            setClipVolume(musicClip); // Đặt âm lượng ban đầu
-            musicClip.loop(Clip.LOOP_CONTINUOUSLY); // Lặp lại vô hạn
+            // Đọc từng đoạn nhỏ thay vì giải mã cả bài vào bộ nhớ
+            musicVoice = mixer.play(StreamingVoice.open(filePath, true)); // Lặp lại vô hạn
             System.out.println("Phát nhạc nền thành công: " + filePath);
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
+        } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
             System.err.println("Không thể phát nhạc nền: " + filePath + " - " + e.getMessage());
-            e.printStackTrace();
         }
     }
 
@@ -70,100 +91,112 @@ public class SoundManager {
     }
 
     // Dừng nhạc nền
-    public void stopBackgroundMusic() {
-        if (musicClip != null && musicClip.isRunning()) {
-            musicClip.stop();
-            musicClip.close();
+    public synchronized void stopBackgroundMusic() {
+        if (musicVoice != null) {
+            mixer.stop(musicVoice);
+            musicVoice = null;
         }
     }
 
-    // Phát hiệu ứng âm thanh (mỗi lần phát là một clip mới để có thể chồng lên nhau)
+    /**
+     * Giải mã sẵn các hiệu ứng âm thanh vào bộ nhớ
+     * Chạy ngay trên luồng gọi - nên gọi từ luồng nền (xem AssetWarmup)
+     * @param filePaths Đường dẫn các file WAV
+     */
+    public void preloadSoundEffects(String... filePaths) {
+        for (String filePath : filePaths) {
+            loadSoundEffect(filePath);
+        }
+    }
+
+    // Phát hiệu ứng âm thanh từ bộ nhớ - không chặn luồng gọi và có thể chồng lên nhau
     public void playSoundEffect(String filePath) {
-        new Thread(() -> {
-            try {
-                File soundFile = new File(filePath);
-                if (!soundFile.exists()) {
-                    System.err.println("File âm thanh không tồn tại: " + filePath);
-                    return;
-                }
-                
-                AudioInputStream audioIn = AudioSystem.getAudioInputStream(soundFile);
-                Clip effectClip = AudioSystem.getClip();
-                effectClip.open(audioIn);
-                setClipVolume(effectClip); // Đặt âm lượng
-                effectClip.start();
-                System.out.println("Phát hiệu ứng âm thanh: " + filePath);
-                
-                // Listener để giải phóng tài nguyên khi clip phát xong
-                effectClip.addLineListener(event -> {
-                    if (LineEvent.Type.STOP.equals(event.getType())) {
-                        effectClip.close();
-                        try {
-                            audioIn.close();
-                        } catch (IOException e) {
-                            System.err.println("Lỗi khi đóng AudioInputStream: " + e.getMessage());
-                        }
-                    }
-                });
-                
-                // Đợi cho đến khi clip phát xong
-                while (effectClip.isRunning()) {
-                    Thread.sleep(10);
-                }
-                
-            } catch (Exception e) {
-                System.err.println("Không thể phát hiệu ứng âm thanh: " + filePath + " - " + e.getMessage());
-                e.printStackTrace();
+        short[] cached = effects.get(filePath);
+        if (cached != null) {
+            mixer.play(new AudioMixer.PcmVoice(cached, false));
+            return;
+        }
+        // Chưa nạp xong - giải mã trên luồng âm thanh rồi phát
+        audioExecutor.execute(() -> {
+            short[] samples = loadSoundEffect(filePath);
+            if (samples != null) {
+                mixer.play(new AudioMixer.PcmVoice(samples, false));
             }
-        }).start();
+        });
     }
 
-    // Đặt âm lượng (từ 0.0f đến 1.0f)
-    public void setVolume(float volume) {
-        this.volume = Math.max(0.0f, Math.min(1.0f, volume)); // Đảm bảo âm lượng trong khoảng 0-1
-        System.out.println("Đặt âm lượng: " + (this.volume * 100) + "%");
-        
-        // Cập nhật âm lượng của nhạc nền đang phát
-        if (musicClip != null) {
-            setClipVolume(musicClip);
+    // Đọc và giải mã file WAV một lần; các lần sau lấy từ bộ nhớ
+    private short[] loadSoundEffect(String filePath) {
+        short[] cached = effects.get(filePath);
+        if (cached != null) return cached;
+
+        short[] samples = decodeFile(filePath);
+        if (samples != null) {
+            effects.put(filePath, samples);
         }
+        return samples;
     }
 
-    // Hàm nội bộ để đặt gain (âm lượng) cho một Clip
-    private void setClipVolume(Clip clip) {
-        try {
-            if (clip.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
-                FloatControl gainControl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
-                
-                // In thông tin về range của gainControl
-                float min = gainControl.getMinimum();
-                float max = gainControl.getMaximum();
-                System.out.println("Volume range: " + min + " to " + max + " dB");
-                
-                // Chuyển đổi âm lượng tuyến tính (0-1) sang thang đo decibel (dB)
-                if (volume == 0.0f) {
-                    gainControl.setValue(min);
-                } else {
-                    // Cải thiện công thức chuyển đổi
-                    float dB = (float) (Math.log10(volume) * 20.0);
-                    // Đảm bảo giá trị trong phạm vi hợp lệ
-                    dB = Math.max(min, Math.min(max, dB));
-                    gainControl.setValue(dB);
-                    System.out.println("Đặt gain: " + dB + " dB cho volume " + (volume * 100) + "%");
-                }
-            } else {
-                System.out.println("MASTER_GAIN không được hỗ trợ, thử VOLUME control");
-                if (clip.isControlSupported(FloatControl.Type.VOLUME)) {
-                    FloatControl volumeControl = (FloatControl) clip.getControl(FloatControl.Type.VOLUME);
-                    volumeControl.setValue(volume * volumeControl.getMaximum());
-                }
+    /**
+     * Giải mã file WAV thành PCM theo định dạng của bộ trộn
+     * (16-bit, stereo, tần số mẫu của AudioMixer.FORMAT)
+     * @return Mẫu stereo xen kẽ, hoặc null nếu không đọc được
+     */
+    private static short[] decodeFile(String filePath) {
+        InputStream in = AssetBundle.getInstance().open(filePath);
+        if (in == null) {
+            System.err.println("File âm thanh không tồn tại: " + filePath);
+            return null;
+        }
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(in)) {
+            AudioFormat sourceFormat = source.getFormat();
+            AudioFormat pcmFormat = new AudioFormat(sourceFormat.getSampleRate(), 16,
+                sourceFormat.getChannels(), true, false);
+            try (AudioInputStream pcm = AudioSystem.getAudioInputStream(pcmFormat, source)) {
+                byte[] bytes = pcm.readAllBytes();
+                return toMixerFormat(bytes, pcmFormat.getChannels(), pcmFormat.getSampleRate());
+            }
+        } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
+            System.err.println("Không thể nạp âm thanh: " + filePath + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Chuyển PCM 16-bit little-endian sang stereo ở tần số của bộ trộn (nội suy tuyến tính)
+    private static short[] toMixerFormat(byte[] bytes, int channels, float sampleRate) {
+        int sourceFrames = bytes.length / (2 * channels);
+        if (sourceFrames == 0) return new short[0];
+        double step = sampleRate / AudioMixer.FORMAT.getSampleRate();
+        int targetFrames = (int) (sourceFrames / step);
+        short[] samples = new short[targetFrames * 2];
+
+        for (int frame = 0; frame < targetFrames; frame++) {
+            double position = frame * step;
+            int index = (int) position;
+            double fraction = position - index;
+            int nextIndex = Math.min(index + 1, sourceFrames - 1);
+            for (int channel = 0; channel < 2; channel++) {
+                int sourceChannel = Math.min(channel, channels - 1); // Mono: nhân đôi sang cả hai kênh
+                int a = readSample(bytes, index, sourceChannel, channels);
+                int b = readSample(bytes, nextIndex, sourceChannel, channels);
+                samples[frame * 2 + channel] = (short) Math.round(a + (b - a) * fraction);
             }
-        } catch (Exception e) {
-            System.err.println("Lỗi khi đặt âm lượng: " + e.getMessage());
-            e.printStackTrace();
         }
+        return samples;
     }
-    
+
+    private static int readSample(byte[] bytes, int frame, int channel, int channels) {
+        int offset = (frame * channels + channel) * 2;
+        return (short) ((bytes[offset] & 0xFF) | (bytes[offset + 1] << 8));
+    }
+
+    // Đặt âm lượng (từ 0.0f đến 1.0f) - áp dụng ngay cho nhạc nền và hiệu ứng đang phát
+    public void setVolume(float volume) {
+        this.volume = Math.max(0.0f, Math.min(1.0f, volume)); // Đảm bảo âm lượng trong khoảng 0-1
+        System.out.println("Đặt âm lượng: " + (this.volume * 100) + "%");
+        mixer.setMasterGain(this.volume);
+    }
+
     // Thêm method để kiểm tra trạng thái
     public void checkAudioSystem() {
         System.out.println("=== THÔNG TIN HỆ THỐNG ÂM THANH ===");
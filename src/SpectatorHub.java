@@ -0,0 +1,298 @@
+// SpectatorHub.java
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class SpectatorHub - Phát trạng thái của bàn nổi bật (featured) tới nhiều người xem
+ * Người xem kết nối bằng handshake "SPECTATE" và chỉ nhận, không gửi lệnh.
+ *
+ * Để một bàn đông người xem không làm chậm người chơi:
+ * - Mỗi cập nhật được mã hóa đúng một lần thành một khung byte[] dùng chung cho mọi socket
+ *   (khung bắt đầu bằng TC_RESET nên ObjectInputStream phía client đọc được như writeObject thường)
+ * - Event loop của bàn chỉ mã hóa và đổi khung mới nhất; việc ghi ra socket do một luồng ghi dùng Selector làm
+ * - Socket người xem được chuyển sang chế độ không chặn: socket có buffer gửi đầy chỉ được đăng ký OP_WRITE
+ *   và bị bỏ qua cho tới khi ghi được tiếp, nên một người xem kẹt không làm chậm những người xem khác
+ * - Mỗi người xem chỉ giữ khung đã gửi gần nhất: người xem chậm bỏ qua các khung trung gian
+ *   và nhảy thẳng tới trạng thái mới nhất thay vì xếp hàng
+ * - Người xem không nhận hết một khung trong STALL_TIMEOUT_MS bị ngắt
+ */
+public class SpectatorHub {
+    private static final int MAX_SPECTATORS = 5000;
+    private static final long SELECT_TIMEOUT_MS = 1000;
+    private static final long STALL_TIMEOUT_MS = 10_000;
+    private static final long MAINTENANCE_INTERVAL_SECONDS = 1;
+    private static final int STATS_INTERVAL_TICKS = 60;
+
+    /**
+     * Một khung đã mã hóa; số thứ tự dùng để đếm số khung người xem chậm đã bỏ qua
+     */
+    private static final class Frame {
+        final long sequence;
+        final byte[] bytes;
+
+        Frame(long sequence, byte[] bytes) {
+            this.sequence = sequence;
+            this.bytes = bytes;
+        }
+    }
+
+    private final Set<Spectator> spectators = ConcurrentHashMap.newKeySet();
+    private final Selector selector;
+    private final ConcurrentLinkedQueue<Spectator> pendingRegistrations = new ConcurrentLinkedQueue<>();
+    private Thread writer;
+    private final AtomicBoolean fanOutScheduled = new AtomicBoolean(false);
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicLong skippedFrames = new AtomicLong();
+    private volatile Frame latestFrame;
+    private volatile GameSession featured;
+    private int tick = 0;
+
+    public SpectatorHub() {
+        try {
+            this.selector = Selector.open();
+        } catch (IOException e) {
+            throw new IllegalStateException("Không mở được Selector cho người xem", e);
+        }
+        this.latestFrame = new Frame(nextSequence.getAndIncrement(), ClientHandler.encodeFrame("SPECTATE_WAITING"));
+    }
+
+    /** Mở luồng ghi và bắt đầu kiểm tra định kỳ người xem bị kẹt */
+    public synchronized void start() {
+        if (writer == null) {
+            writer = new Thread(this::writeLoop, "spectator-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+        scheduleMaintenance();
+    }
+
+    private void scheduleMaintenance() {
+        Server.timers.schedule(this::maintain, MAINTENANCE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Nhận một kết nối người xem vừa hoàn tất handshake
+     * @param handler Kết nối có handshake "SPECTATE"
+     */
+    public void add(ClientHandler handler) {
+        if (spectators.size() >= MAX_SPECTATORS || Server.admission.getLevel() == AdmissionController.Level.SHEDDING) {
+            System.out.println("🚫 Từ chối người xem từ " + handler.getClientIP() + " (server bận hoặc đủ người xem)");
+            handler.sendObject("SERVER_BUSY");
+            handler.closeConnection();
+            return;
+        }
+        Spectator spectator;
+        try {
+            spectator = new Spectator(handler.getSocket());
+        } catch (IOException e) {
+            handler.closeConnection();
+            return;
+        }
+        spectators.add(spectator);
+        System.out.println("👀 Người xem mới từ " + handler.getClientIP() + " (" + spectators.size() + " người xem)");
+        // Luồng ghi đăng ký socket với Selector rồi gửi ngay trạng thái hiện tại
+        pendingRegistrations.add(spectator);
+        selector.wakeup();
+    }
+
+    /**
+     * Bàn mới bắt đầu - trở thành bàn nổi bật nếu hiện chưa có bàn nào
+     * @param session Bàn vừa mở
+     */
+    public synchronized void offer(GameSession session) {
+        if (featured == null) {
+            featured = session;
+            System.out.println("⭐ Bàn mới được chọn làm bàn nổi bật cho người xem");
+        }
+    }
+
+    /**
+     * @param session Bàn cần kiểm tra
+     * @return true nếu bàn đang được phát cho người xem (đọc volatile, không khóa)
+     */
+    public boolean isFeatured(GameSession session) {
+        return featured == session;
+    }
+
+    /**
+     * Bàn đã kết thúc - chuyển người xem sang một bàn khác đang chơi, hoặc báo chờ nếu không còn bàn nào
+     * Gọi sau khi bàn đã gỡ các resume token của nó khỏi Server.sessionsByToken
+     * @param session Bàn vừa kết thúc
+     */
+    public void tableEnded(GameSession session) {
+        GameSession next = null;
+        synchronized (this) {
+            if (featured != session) return;
+            for (GameSession candidate : Server.sessionsByToken.values()) {
+                if (candidate != session) {
+                    next = candidate;
+                    break;
+                }
+            }
+            featured = next;
+        }
+        if (next != null) {
+            System.out.println("⭐ Bàn nổi bật đã kết thúc, chuyển người xem sang bàn khác");
+            next.refreshSpectators();
+        } else {
+            publish("SPECTATE_WAITING");
+        }
+    }
+
+    /**
+     * Mã hóa message một lần và đưa tới mọi người xem
+     * Gọi trên event loop của bàn nổi bật: message phải được mã hóa ngay vì có thể tham chiếu dữ liệu của bàn
+     * @param message GameStateUpdate (góc nhìn công khai) hoặc thông báo dạng String
+     */
+    public void publish(Serializable message) {
+        latestFrame = new Frame(nextSequence.getAndIncrement(), ClientHandler.encodeFrame(message));
+        if (spectators.isEmpty()) return;
+        // Việc duyệt qua từng người xem chạy trên luồng ghi, không chiếm thời gian của bàn
+        if (fanOutScheduled.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    public int getSpectatorCount() {
+        return spectators.size();
+    }
+
+    // Luồng ghi: chỉ ghi khi socket nhận được, không bao giờ chặn trên một người xem
+    private void writeLoop() {
+        while (true) {
+            try {
+                selector.select(SELECT_TIMEOUT_MS);
+            } catch (IOException e) {
+                System.err.println("Lỗi Selector của người xem, ngừng phát: " + e.getMessage());
+                return;
+            }
+            Spectator added;
+            while ((added = pendingRegistrations.poll()) != null) {
+                added.register();
+            }
+            for (SelectionKey key : selector.selectedKeys()) {
+                ((Spectator) key.attachment()).drain();
+            }
+            selector.selectedKeys().clear();
+            if (fanOutScheduled.compareAndSet(true, false)) {
+                for (Spectator spectator : spectators) {
+                    spectator.drain();
+                }
+            }
+        }
+    }
+
+    // Ngắt người xem không nhận hết khung quá lâu
+    private void maintain() {
+        try {
+            long now = System.nanoTime();
+            for (Spectator spectator : spectators) {
+                long started = spectator.writeStartedNanos;
+                if (started != 0 && now - started > TimeUnit.MILLISECONDS.toNanos(STALL_TIMEOUT_MS)) {
+                    System.out.println("🐢 Ngắt người xem " + spectator.ip + ": không nhận dữ liệu quá "
+                        + (STALL_TIMEOUT_MS / 1000) + " giây");
+                    remove(spectator);
+                }
+            }
+            if (++tick % STATS_INTERVAL_TICKS == 0) {
+                long skipped = skippedFrames.getAndSet(0);
+                if (skipped > 0) {
+                    System.out.println("👀 " + spectators.size() + " người xem; đã bỏ qua " + skipped
+                        + " khung cho người xem chậm trong " + STATS_INTERVAL_TICKS + " giây qua");
+                }
+            }
+        } finally {
+            scheduleMaintenance();
+        }
+    }
+
+    private void remove(Spectator spectator) {
+        if (spectators.remove(spectator)) {
+            System.out.println("👋 Người xem " + spectator.ip + " đã rời đi (" + spectators.size() + " người xem)");
+        }
+        try {
+            spectator.socket.close();
+        } catch (IOException e) {
+            // Bỏ qua lỗi khi đóng kết nối
+        }
+    }
+
+    /**
+     * Một kết nối người xem; chỉ luồng ghi đọc/ghi trạng thái gửi của nó
+     */
+    private final class Spectator {
+        final Socket socket;
+        final SocketChannel channel;
+        final String ip;
+        volatile long writeStartedNanos = 0; // 0 = không có khung đang gửi dở
+        private SelectionKey key;            // null cho tới khi luồng ghi đăng ký socket
+        private Frame lastSent;
+        private Frame sending;
+        private ByteBuffer pending;          // Phần còn lại của khung đang gửi, null nếu không có
+
+        Spectator(Socket socket) throws IOException {
+            this.socket = socket;
+            this.channel = socket.getChannel();
+            if (channel == null) {
+                throw new IOException("Socket người xem không có SocketChannel");
+            }
+            channel.configureBlocking(false); // Handshake đã đọc xong, không còn ai đọc socket này
+            this.ip = socket.getInetAddress().getHostAddress();
+        }
+
+        void register() {
+            try {
+                key = channel.register(selector, 0, this);
+            } catch (IOException e) {
+                remove(this);
+                return;
+            }
+            drain();
+        }
+
+        // Ghi khung mới nhất cho tới khi bắt kịp hoặc buffer gửi đầy; khung đang gửi dở luôn được gửi hết
+        // trước khi nhảy tới khung mới nhất, để client không nhận nửa khung
+        void drain() {
+            if (key == null) return;
+            try {
+                while (true) {
+                    if (pending == null) {
+                        Frame frame = latestFrame;
+                        if (frame == lastSent) {
+                            key.interestOps(0);
+                            return;
+                        }
+                        if (lastSent != null) {
+                            skippedFrames.addAndGet(frame.sequence - lastSent.sequence - 1);
+                        }
+                        sending = frame;
+                        pending = ByteBuffer.wrap(frame.bytes);
+                        writeStartedNanos = System.nanoTime();
+                    }
+                    channel.write(pending);
+                    if (pending.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_WRITE); // Buffer gửi đầy - chờ socket nhận tiếp
+                        return;
+                    }
+                    lastSent = sending;
+                    pending = null;
+                    writeStartedNanos = 0;
+                }
+            } catch (IOException | CancelledKeyException e) {
+                remove(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+// StartupTimer.java
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class StartupTimer - Đo thời gian các mốc khởi động của client
+ * Mỗi mốc được in kèm số mili giây kể từ lúc JVM khởi động, để so sánh trước/sau khi tối ưu.
+ */
+public class StartupTimer {
+    private static final long JVM_START_MS = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private static final Set<String> reached = ConcurrentHashMap.newKeySet();
+
+    private StartupTimer() {}
+
+    /**
+     * Ghi nhận một mốc khởi động (chỉ in lần đầu tiên, các lần sau bị bỏ qua)
+     * @param milestone Tên mốc
+     */
+    public static void mark(String milestone) {
+        if (reached.add(milestone)) {
+            long elapsed = System.currentTimeMillis() - JVM_START_MS;
+            System.out.println("⏱️ [" + elapsed + " ms] " + milestone + " (" + Thread.currentThread().getName() + ")");
+        }
+    }
+}
@@ -0,0 +1,163 @@
+// StreamingVoice.java
+import java.io.IOException;
+import java.io.InputStream;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Class StreamingVoice - Voice phát file WAV bằng cách đọc từng đoạn nhỏ
+ * Dùng cho nhạc nền: bộ nhớ heap chỉ gồm một buffer CHUNK_FRAMES frame dùng lại mãi,
+ * không phụ thuộc vào độ dài bài nhạc. Khi hết file và đang lặp thì mở lại file từ đầu.
+ *
+ * Dữ liệu được chuyển sang định dạng của AudioMixer ngay khi đọc
+ * (mono nhân đôi thành stereo, tần số mẫu nội suy tuyến tính).
+ */
+public class StreamingVoice extends AudioMixer.Voice {
+    private static final int CHUNK_FRAMES = 4096; // ~93 ms ở 44.1 kHz
+
+    private final String filePath;
+    private final boolean loop;
+    private AudioInputStream stream;
+    private int channels;
+    private double step; // Số frame nguồn ứng với một frame đầu ra
+
+    private byte[] chunk;
+    // Frame nguồn đã chuyển sang stereo; giữ lại frame cuối của đoạn trước để nội suy liền mạch
+    private final short[] frames = new short[(CHUNK_FRAMES + 1) * 2];
+    private int available = 0;
+    private double position = 0;
+    private boolean closed = false;
+
+    private StreamingVoice(String filePath, boolean loop) {
+        this.filePath = filePath;
+        this.loop = loop;
+    }
+
+    /**
+     * Mở file để phát dạng stream
+     * @param filePath Đường dẫn file WAV
+     * @param loop Có lặp lại khi hết file không
+     * @return Voice sẵn sàng đưa vào AudioMixer
+     * @throws IOException nếu không đọc được file
+     * @throws UnsupportedAudioFileException nếu định dạng không được hỗ trợ
+     */
+    public static StreamingVoice open(String filePath, boolean loop) throws IOException, UnsupportedAudioFileException {
+        StreamingVoice voice = new StreamingVoice(filePath, loop);
+        voice.openStream();
+        return voice;
+    }
+
+    private void openStream() throws IOException, UnsupportedAudioFileException {
+        InputStream in = AssetBundle.getInstance().open(filePath);
+        if (in == null) {
+            throw new IOException("Không tìm thấy " + filePath);
+        }
+        AudioInputStream source = AudioSystem.getAudioInputStream(in);
+        AudioFormat sourceFormat = source.getFormat();
+        AudioFormat pcmFormat = new AudioFormat(sourceFormat.getSampleRate(), 16,
+            sourceFormat.getChannels(), true, false);
+        stream = AudioSystem.getAudioInputStream(pcmFormat, source);
+        channels = pcmFormat.getChannels();
+        step = pcmFormat.getSampleRate() / AudioMixer.FORMAT.getSampleRate();
+        if (chunk == null || chunk.length != CHUNK_FRAMES * 2 * channels) {
+            chunk = new byte[CHUNK_FRAMES * 2 * channels];
+        }
+    }
+
+    @Override
+    protected boolean isLooping() {
+        return loop;
+    }
+
+    @Override
+    protected synchronized int read(short[] buffer, int count) {
+        for (int i = 0; i < count; i++) {
+            if ((int) position + 1 >= available && !fill()) {
+                return i;
+            }
+            int index = (int) position;
+            double fraction = position - index;
+            for (int channel = 0; channel < 2; channel++) {
+                int a = frames[index * 2 + channel];
+                int b = frames[(index + 1) * 2 + channel];
+                buffer[i * 2 + channel] = (short) (a + (b - a) * fraction);
+            }
+            position += step;
+        }
+        return count;
+    }
+
+    /**
+     * Đọc thêm đoạn mới cho đến khi đủ hai frame quanh vị trí hiện tại
+     * @return false nếu đã hết file (và không lặp) hoặc gặp lỗi
+     */
+    private boolean fill() {
+        boolean reopened = false;
+        while ((int) position + 1 >= available) {
+            int keepFrom = Math.min((int) position, available);
+            int keep = available - keepFrom;
+            System.arraycopy(frames, keepFrom * 2, frames, 0, keep * 2);
+            position -= keepFrom;
+            available = keep;
+
+            int bytes = readChunk();
+            if (bytes <= 0) {
+                // Hết file: mở lại từ đầu nếu lặp (một lần mỗi lượt để file rỗng không lặp vô hạn)
+                if (!loop || reopened || !reopen()) return false;
+                reopened = true;
+                continue;
+            }
+            int newFrames = bytes / (2 * channels);
+            for (int frame = 0; frame < newFrames; frame++) {
+                for (int channel = 0; channel < 2; channel++) {
+                    int sourceChannel = Math.min(channel, channels - 1); // Mono: nhân đôi sang cả hai kênh
+                    int offset = (frame * channels + sourceChannel) * 2;
+                    frames[(available + frame) * 2 + channel] =
+                        (short) ((chunk[offset] & 0xFF) | (chunk[offset + 1] << 8));
+                }
+            }
+            available += newFrames;
+        }
+        return true;
+    }
+
+    private int readChunk() {
+        if (closed) return -1;
+        try {
+            int total = 0;
+            while (total < chunk.length) {
+                int n = stream.read(chunk, total, chunk.length - total);
+                if (n < 0) break;
+                total += n;
+            }
+            return total;
+        } catch (IOException e) {
+            System.err.println("Lỗi khi đọc nhạc nền: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private boolean reopen() {
+        try {
+            stream.close();
+            openStream();
+            return true;
+        } catch (IOException | UnsupportedAudioFileException e) {
+            System.err.println("Không thể mở lại nhạc nền: " + filePath + " - " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    protected synchronized void release() {
+        if (closed) return;
+        closed = true;
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // Bỏ qua lỗi khi đóng file
+        }
+    }
+}
@@ -0,0 +1,132 @@
+// TableChannel.java
+import java.io.Serializable;
+
+/**
+ * Class TableChannel - Một kênh bàn trong kết nối đa bàn
+ * Client gửi lệnh dạng "@<kênh>:<lệnh>" trên cùng một socket; "@<kênh>:JOIN" mở kênh mới và
+ * đưa kênh vào hàng chờ ghép bàn như một người chơi mới. Mọi kênh dùng chung socket,
+ * hàng đợi gửi và đường đọc của ClientHandler cha; message của server cho kênh được bọc trong ChannelMessage.
+ *
+ * Mỗi kênh có resume token và CommandGuard riêng (bucket theo địa chỉ IP vẫn dùng chung).
+ * Kênh chỉ mở được khi kết nối đã bắt đầu đọc lệnh, tức là sau khi kênh 0 đã vào bàn.
+ */
+class TableChannel implements PlayerConnection {
+    static final int MAX_CHANNELS = 8; // Kênh 0 là chính kết nối, kênh 1..7 mở bằng JOIN
+
+    private final ClientHandler parent;
+    private final int channel;
+    private final String resumeToken;
+    private final CommandGuard guard;
+    private int playerId;
+    private volatile GameSession session; // Ghi trên luồng ghép bàn, đọc trên luồng I/O của kết nối cha
+    private volatile boolean closed = false;
+
+    TableChannel(ClientHandler parent, int channel, String resumeToken) {
+        this.parent = parent;
+        this.channel = channel;
+        this.resumeToken = resumeToken;
+        this.guard = new CommandGuard(parent.getRateLimitIP());
+    }
+
+    /**
+     * Tách số kênh từ lệnh dạng "@<kênh>:<lệnh>"
+     * @param command Lệnh nguyên văn đọc từ socket
+     * @return Số kênh (1..MAX_CHANNELS-1), 0 nếu lệnh không có tiền tố, -1 nếu tiền tố không hợp lệ
+     */
+    static int parseChannel(String command) {
+        if (!command.startsWith("@")) return 0;
+        int colon = command.indexOf(':');
+        if (colon < 2 || colon > 3) return -1;
+        int channel = 0;
+        for (int i = 1; i < colon; i++) {
+            char c = command.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            channel = channel * 10 + (c - '0');
+        }
+        return (channel >= 1 && channel < MAX_CHANNELS) ? channel : -1;
+    }
+
+    /** @return Phần lệnh sau tiền tố "@<kênh>:" */
+    static String stripChannel(String command) {
+        return command.substring(command.indexOf(':') + 1);
+    }
+
+    int getChannel() {
+        return channel;
+    }
+
+    CommandGuard getGuard() {
+        return guard;
+    }
+
+    /** Chuyển lệnh đã qua kiểm tra vào bàn của kênh (gọi trên luồng I/O của kết nối cha) */
+    void dispatch(String command) {
+        GameSession current = session;
+        if (current != null) {
+            current.handleCommand(command, playerId);
+        }
+    }
+
+    /** Socket của kết nối cha đã đóng - bàn giữ ghế như với người chơi mất kết nối */
+    void connectionLost() {
+        guard.close();
+        GameSession current = session;
+        if (current != null) {
+            current.removePlayer(this);
+        }
+    }
+
+    // Mỗi kênh là một ghế riêng với ví riêng "tên#kênh", để các bàn không ghi đè số dư của nhau
+    @Override
+    public String getPlayerName() {
+        return parent.getPlayerName() + "#" + channel;
+    }
+
+    @Override
+    public String getResumeToken() {
+        return resumeToken;
+    }
+
+    @Override
+    public String getClientIP() {
+        return parent.getClientIP();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return !closed && parent.isConnected();
+    }
+
+    @Override
+    public void sendObject(Serializable object) {
+        if (closed) return;
+        parent.sendObject(new ChannelMessage(channel, object));
+    }
+
+    @Override
+    public void setGameSession(GameSession session, int playerId) {
+        this.playerId = playerId;
+        this.session = session;
+    }
+
+    @Override
+    public void startReading() {
+        // Kết nối cha đã đọc lệnh và tự chuyển lệnh tới kênh
+    }
+
+    // Đóng riêng kênh này; socket và các kênh khác vẫn hoạt động
+    @Override
+    public void closeConnection() {
+        if (closed) return;
+        closed = true;
+        guard.close();
+        session = null;
+        parent.removeChannel(this);
+        parent.sendObject(new ChannelMessage(channel, "CHANNEL_CLOSED"));
+    }
+
+    @Override
+    public void releaseSeat() {
+        closeConnection();
+    }
+}
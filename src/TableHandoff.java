@@ -0,0 +1,280 @@
+// TableHandoff.java
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Class TableHandoff - Chuyển các bàn đang chơi sang tiến trình server mới khi khởi động lại
+ *
+ * Trình tự một lần hot restart:
+ * - Server mới chạy với "--takeover <pid>": bind cùng cổng nhờ SO_REUSEPORT (kết nối mới chờ trong
+ *   backlog của socket mới), rồi gửi SIGTERM cho server cũ và chờ nó thoát
+ * - Server cũ (shutdown hook): đóng socket lắng nghe, chụp trạng thái từng bàn trên event loop của bàn,
+ *   ghi tất cả vào SNAPSHOT_FILE (ghi file tạm, fsync rồi đổi tên nên không bao giờ đọc phải file dở)
+ * - Server mới đọc snapshot, dựng lại các bàn với cả hai ghế đang được giữ và mới bắt đầu accept;
+ *   client tự kết nối lại bằng resume token như khi mất mạng, ván đang chơi tiếp tục nguyên vẹn
+ *
+ * Java không chuyển được file descriptor giữa hai tiến trình, nên kết nối của client không được
+ * chuyển giao mà được mở lại qua cơ chế resume; chỉ cổng lắng nghe được dùng chung qua SO_REUSEPORT.
+ *
+ * Snapshot là định dạng nhị phân tường minh, không dùng Java serialization, vì hai tiến trình
+ * thường là hai bản build khác nhau:
+ * - Đầu file: SNAPSHOT_MAGIC, SNAPSHOT_VERSION, số bàn
+ * - Mỗi bàn: tên và token hai ghế, số ván, dòng journal dở (hoặc không có), cờ chờ ván mới,
+ *   rồi engine dạng Blackjack.writeCompact (độ dài + các byte)
+ * Đổi định dạng này hoặc định dạng writeCompact thì phải tăng SNAPSHOT_VERSION; server mới gặp
+ * phiên bản khác sẽ bỏ qua snapshot (số dư đã được lưu vào ví trước khi chụp nên không bị mất).
+ *
+ * Mỗi tiến trình giữ khóa độc quyền trên "<snapshot>.lock" suốt thời gian chạy (lock()), nên hai server
+ * không bao giờ cùng khôi phục hoặc cùng ghi một snapshot; server mới chỉ lấy khóa sau khi server cũ đã thoát.
+ */
+public class TableHandoff {
+    static final String SNAPSHOT_FILE = "tables.snapshot";
+    private static final long SNAPSHOT_TIMEOUT_MS = 5000;
+    private static final long TAKEOVER_TIMEOUT_SECONDS = 30;
+    private static final int SNAPSHOT_MAGIC = 0x424A5448; // "BJTH"
+    static final int SNAPSHOT_VERSION = 1;
+    private static final int MAX_ENGINE_BYTES = 4096;     // Engine nén của một bàn hai ghế chỉ vài trăm byte
+    private static final int MAX_STRING_BYTES = 64 * 1024;
+
+    /**
+     * Trạng thái của một bàn tại thời điểm chuyển giao
+     */
+    static final class TableSnapshot {
+        final String[] playersNames;
+        final String[] seatTokens;
+        final Blackjack game;          // Toàn bộ engine: bài trên tay, bộ bài còn lại, cược, lượt hiện tại
+        final int handNumber;
+        final String currentHandLine;  // Bản ghi dở của ván đang chơi (dạng dòng journal), hoặc null
+        final boolean[] wantsNewGame;
+
+        TableSnapshot(String[] playersNames, String[] seatTokens, Blackjack game, int handNumber,
+                      String currentHandLine, boolean[] wantsNewGame) {
+            this.playersNames = playersNames;
+            this.seatTokens = seatTokens;
+            this.game = game;
+            this.handNumber = handNumber;
+            this.currentHandLine = currentHandLine;
+            this.wantsNewGame = wantsNewGame;
+        }
+    }
+
+    /**
+     * Lấy khóa độc quyền của snapshot; giữ tới khi tiến trình thoát
+     * @param file Đường dẫn snapshot
+     * @return Khóa đang giữ
+     * @throws DataLock.HeldException nếu một server khác đang dùng cùng snapshot
+     * @throws IOException nếu không mở được file khóa
+     */
+    static DataLock lock(Path file) throws IOException {
+        return DataLock.acquire(file.resolveSibling(file.getFileName() + ".lock"));
+    }
+
+    /**
+     * Chụp trạng thái mọi bàn đang chơi và ghi ra snapshot
+     * Gọi trong shutdown hook, sau khi đã đóng socket lắng nghe
+     * @param sessions Các bàn đang chơi (có thể lặp lại - mỗi bàn chỉ được chụp một lần)
+     * @param file Đường dẫn snapshot
+     */
+    static void save(Collection<GameSession> sessions, Path file) {
+        List<CompletableFuture<TableSnapshot>> pending = new ArrayList<>();
+        for (GameSession session : sessions.stream().distinct().toList()) {
+            pending.add(session.handOff());
+        }
+        if (pending.isEmpty()) return;
+
+        List<TableSnapshot> snapshots = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SNAPSHOT_TIMEOUT_MS);
+        for (CompletableFuture<TableSnapshot> future : pending) {
+            try {
+                TableSnapshot snapshot = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (snapshot != null) snapshots.add(snapshot);
+            } catch (ExecutionException | TimeoutException e) {
+                System.err.println("⚠️  Không chụp được trạng thái một bàn: " + e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        try {
+            writeFile(snapshots, file);
+            System.out.println("💾 Đã chuyển giao " + snapshots.size() + " bàn vào " + file
+                + " (" + Files.size(file) + " byte)");
+        } catch (IOException e) {
+            System.err.println("Lỗi khi ghi snapshot các bàn: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ghi snapshot: ghi file tạm, fsync rồi đổi tên, nên file đích luôn là một snapshot đầy đủ
+     * @param snapshots Trạng thái các bàn
+     * @param file Đường dẫn snapshot
+     */
+    static void writeFile(List<TableSnapshot> snapshots, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            write(out, snapshots);
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void write(DataOutputStream out, List<TableSnapshot> snapshots) throws IOException {
+        ByteBuffer engine = ByteBuffer.allocate(MAX_ENGINE_BYTES);
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(snapshots.size());
+        for (TableSnapshot snapshot : snapshots) {
+            for (int seat = 0; seat < 2; seat++) {
+                writeString(out, snapshot.playersNames[seat]);
+                writeString(out, snapshot.seatTokens[seat]);
+            }
+            out.writeInt(snapshot.handNumber);
+            writeString(out, snapshot.currentHandLine);
+            out.writeBoolean(snapshot.wantsNewGame[0]);
+            out.writeBoolean(snapshot.wantsNewGame[1]);
+
+            engine.clear();
+            snapshot.game.writeCompact(engine);
+            engine.flip();
+            out.writeInt(engine.limit());
+            out.write(engine.array(), 0, engine.limit());
+        }
+    }
+
+    /**
+     * Đọc snapshot do tiến trình trước để lại rồi xóa nó, để không bàn nào được khôi phục hai lần
+     * Engine của mỗi bàn được lấy từ Server.tablePool và nạp bằng Blackjack.readCompact
+     * @param file Đường dẫn snapshot
+     * @return Các bàn cần khôi phục (rỗng nếu không có snapshot, snapshot hỏng hoặc khác phiên bản)
+     */
+    static List<TableSnapshot> load(Path file) {
+        List<TableSnapshot> snapshots = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("không phải file snapshot các bàn");
+            }
+            int version = in.readInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException("phiên bản " + version + ", server này đọc phiên bản " + SNAPSHOT_VERSION);
+            }
+            int tables = in.readInt();
+            for (int t = 0; t < tables; t++) {
+                snapshots.add(readTable(in));
+            }
+            return snapshots;
+        } catch (NoSuchFileException e) {
+            return snapshots;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️  Không đọc được snapshot các bàn, bỏ qua: " + e);
+            for (TableSnapshot snapshot : snapshots) {
+                Server.tablePool.release(snapshot.game);
+            }
+            return new ArrayList<>();
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("⚠️  Không xóa được snapshot các bàn: " + e.getMessage());
+            }
+        }
+    }
+
+    private static TableSnapshot readTable(DataInputStream in) throws IOException {
+        String[] names = new String[2];
+        String[] tokens = new String[2];
+        for (int seat = 0; seat < 2; seat++) {
+            names[seat] = readString(in);
+            tokens[seat] = readString(in);
+        }
+        int handNumber = in.readInt();
+        String currentHandLine = readString(in);
+        boolean[] wantsNewGame = { in.readBoolean(), in.readBoolean() };
+
+        int length = in.readInt();
+        if (length < 0 || length > MAX_ENGINE_BYTES) {
+            throw new IOException("engine nén dài " + length + " byte");
+        }
+        byte[] engine = new byte[length];
+        in.readFully(engine);
+        Blackjack game = Server.tablePool.acquire();
+        try {
+            game.readCompact(ByteBuffer.wrap(engine));
+        } catch (RuntimeException e) {
+            Server.tablePool.release(game);
+            throw e;
+        }
+        return new TableSnapshot(names, tokens, game, handNumber, currentHandLine, wantsNewGame);
+    }
+
+    // Chuỗi UTF-8 có độ dài đứng trước; độ dài -1 là null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) return null;
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IOException("chuỗi dài " + length + " byte");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Yêu cầu server cũ dừng (SIGTERM - shutdown hook của nó sẽ ghi snapshot) và chờ nó thoát
+     * Server cũ còn sống sau TAKEOVER_TIMEOUT_SECONDS thì việc tiếp quản bị hủy: nếu chạy tiếp,
+     * hai tiến trình cùng nhận kết nối trên một cổng và cùng giữ các bàn, còn snapshot có thể
+     * được ghi sau khi server mới đã đọc (và bỏ lỡ) nó.
+     * @param pid PID của server cũ
+     * @return true nếu server cũ đã dừng (hoặc không còn chạy), false nếu phải hủy tiếp quản
+     */
+    static boolean takeOver(long pid) {
+        ProcessHandle old = ProcessHandle.of(pid).orElse(null);
+        if (old == null) {
+            System.out.println("⚠️  Không tìm thấy server cũ với PID " + pid);
+            return true;
+        }
+        System.out.println("🔁 Tiếp quản từ server cũ (PID " + pid + ")...");
+        old.destroy();
+        try {
+            old.onExit().get(TAKEOVER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            System.out.println("🔁 Server cũ đã dừng");
+            return true;
+        } catch (TimeoutException | ExecutionException e) {
+            System.err.println("❌ Server cũ chưa dừng sau " + TAKEOVER_TIMEOUT_SECONDS + " giây, hủy tiếp quản");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+// TablePool.java
+import java.lang.ref.Cleaner;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class TablePool - Dùng lại engine Blackjack giữa các bàn chơi
+ * Mỗi engine giữ nhiều danh sách song song và một bộ bài; khi có hàng nghìn bàn ngắn mỗi phút,
+ * việc tạo mới rồi bỏ đi chúng chiếm phần lớn rác của young-gen.
+ * Bàn kết thúc trả engine về pool (đã reset); bàn mới lấy engine từ pool trước khi tạo mới.
+ *
+ * Chỉ engine được dùng lại, không dùng lại GameSession: các hẹn giờ còn treo của bàn cũ
+ * vẫn tham chiếu tới session đó và dựa vào cờ sessionEnded để tự bỏ qua.
+ *
+ * Phát hiện rò rỉ giống BufferPool: mỗi engine do pool tạo được đăng ký với Cleaner đúng một lần.
+ * Engine bị thu hồi khi vẫn đang được mượn (bàn bị bỏ mà không release) thì báo rò rỉ.
+ * Trạng thái mượn nằm trong một WeakHashMap theo engine (Blackjack không định nghĩa lại equals/hashCode),
+ * nên engine không phải biết tới pool; trả cùng một engine hai lần chỉ được tính một lần.
+ */
+public class TablePool {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int seats;
+    private final int maxIdle;
+    private final ConcurrentLinkedQueue<Blackjack> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicLong leaks = new AtomicLong();
+    private final Map<Blackjack, Lease> leases = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Constructor
+     * @param seats Số ghế của mỗi bàn
+     * @param maxIdle Số engine rảnh tối đa được giữ lại
+     */
+    public TablePool(int seats, int maxIdle) {
+        this.seats = seats;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Lấy một engine sạch cho bàn mới
+     * @return Engine ở trạng thái WAITING_FOR_PLAYERS, tiền mỗi ghế bằng STARTING_MONEY
+     */
+    public Blackjack acquire() {
+        Blackjack game = idle.poll();
+        Lease lease;
+        if (game == null) {
+            game = new Blackjack(seats);
+            lease = new Lease(leaks);
+            CLEANER.register(game, lease);
+            leases.put(game, lease);
+        } else {
+            idleCount.decrementAndGet();
+            lease = leases.get(game);
+        }
+        lease.leased = true;
+        return game;
+    }
+
+    /**
+     * Trả engine của bàn vừa kết thúc; gọi trên event loop của bàn sau khi bàn không còn dùng nó
+     * @param game Engine của bàn
+     */
+    public void release(Blackjack game) {
+        Lease lease = leases.get(game);
+        if (lease == null || !lease.leased) return; // Không do pool này tạo, hoặc đã trả rồi
+        lease.leased = false;
+        if (idleCount.incrementAndGet() > maxIdle) {
+            idleCount.decrementAndGet();
+            return; // Bỏ đi; Cleaner sẽ không báo rò rỉ vì engine không còn được mượn
+        }
+        game.reset();
+        idle.offer(game);
+    }
+
+    /** @return Số engine bị bỏ rơi mà không được trả về pool */
+    public long getLeakCount() {
+        return leaks.get();
+    }
+
+    /**
+     * Trạng thái mượn của một engine, tách riêng để hành động của Cleaner không giữ engine sống
+     */
+    private static final class Lease implements Runnable {
+        private final AtomicLong leaks;
+        volatile boolean leased = false;
+
+        Lease(AtomicLong leaks) {
+            this.leaks = leaks;
+        }
+
+        @Override
+        public void run() {
+            if (leased) {
+                leaks.incrementAndGet();
+                System.err.println("⚠️  Rò rỉ engine của TablePool: bàn bị thu hồi khi chưa trả engine về pool");
+            }
+        }
+    }
+}
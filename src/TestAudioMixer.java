@@ -0,0 +1,74 @@
+// TestAudioMixer.java
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class TestAudioMixer - Tự kiểm tra bộ trộn âm thanh không cần thiết bị âm thanh
+ * Chạy AudioMixer trên AudioSink.Null (vẫn giữ nhịp thời gian thực) và kiểm tra:
+ * - Nhạc nền (voice lặp) không bị bỏ khi hiệu ứng dồn dập làm bộ trộn đầy
+ * - Khi bộ trộn đầy, voice không lặp cũ nhất bị bỏ
+ * - Mẫu của nhạc nền vẫn có mặt trong đầu ra sau loạt hiệu ứng
+ *
+ * Chạy: java TestAudioMixer
+ */
+public class TestAudioMixer {
+    private static final short MUSIC_LEVEL = 1000;
+    private static final int EFFECTS = 40; // Nhiều hơn MAX_VOICES của bộ trộn
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("🎯 Testing AudioMixer...");
+        int failures = 0;
+
+        // Giữ lại mẫu cuối cùng bộ trộn ghi ra
+        short[] lastSample = new short[1];
+        AudioSink sink = new AudioSink.Null(AudioMixer.FORMAT) {
+            @Override
+            public void write(byte[] buffer, int offset, int length) {
+                lastSample[0] = (short) ((buffer[offset] & 0xFF) | (buffer[offset + 1] << 8));
+                super.write(buffer, offset, length);
+            }
+        };
+
+        try (AudioMixer mixer = new AudioMixer(sink)) {
+            // Nhạc nền: mức không đổi, lặp vô hạn
+            short[] music = new short[4410 * 2];
+            Arrays.fill(music, MUSIC_LEVEL);
+            AudioMixer.Voice musicVoice = mixer.play(new AudioMixer.PcmVoice(music, true));
+
+            // Hiệu ứng: im lặng, dài 10 giây để vẫn còn phát khi bộ trộn đầy
+            short[] silence = new short[44100 * 2 * 10];
+            List<AudioMixer.Voice> effects = new ArrayList<>();
+            for (int i = 0; i < EFFECTS; i++) {
+                effects.add(mixer.play(new AudioMixer.PcmVoice(silence, false)));
+            }
+
+            if (mixer.isPlaying(musicVoice)) {
+                System.out.println("✅ Nhạc nền vẫn phát sau " + EFFECTS + " hiệu ứng");
+            } else {
+                System.out.println("❌ Nhạc nền bị bỏ khi bộ trộn đầy");
+                failures++;
+            }
+            if (!mixer.isPlaying(effects.get(0)) && mixer.isPlaying(effects.get(EFFECTS - 1))) {
+                System.out.println("✅ Hiệu ứng cũ nhất bị bỏ, hiệu ứng mới nhất được giữ");
+            } else {
+                System.out.println("❌ Bộ trộn không bỏ đúng hiệu ứng cũ nhất");
+                failures++;
+            }
+
+            Thread.sleep(200); // Chờ vài chu kỳ trộn
+            if (lastSample[0] == MUSIC_LEVEL) {
+                System.out.println("✅ Đầu ra chứa nhạc nền (mẫu = " + lastSample[0] + ")");
+            } else {
+                System.out.println("❌ Mẫu đầu ra là " + lastSample[0] + ", mong đợi " + MUSIC_LEVEL);
+                failures++;
+            }
+        }
+
+        if (failures > 0) {
+            System.out.println("❌ " + failures + " kiểm tra thất bại");
+            System.exit(1);
+        }
+        System.out.println("🚀 AudioMixer OK");
+    }
+}
@@ -0,0 +1,124 @@
+// TestCommandGuard.java
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Class TestCommandGuard - Tự kiểm tra lớp bảo vệ lệnh ở tầng I/O
+ * - Ngữ pháp lệnh: lệnh hợp lệ được nhận, lệnh sai dạng bị đánh dấu INVALID mà không tốn token
+ * - Bucket của kết nối: nhận tối đa CONNECTION_BURST lệnh liền nhau rồi giới hạn, được nạp lại theo thời gian
+ * - Bucket của IP dùng chung cho mọi kết nối cùng IP; kết nối không rõ IP (sau Router) chỉ dùng bucket riêng
+ * - MessageLimit cắt message quá MAX_MESSAGE_BYTES byte; tên người chơi không được chứa '#'
+ *
+ * Chạy: java TestCommandGuard
+ */
+public class TestCommandGuard {
+    private static final int CONNECTION_BURST = 20;
+    private static final int IP_BURST = 80;
+    private static int failures = 0;
+
+    private static final String[] VALID = {
+        "HIT", "STAND", "LEAVE", "REQUEST_NEW_GAME", "ACCEPT_NEW_GAME", "DECLINE_NEW_GAME", "JOIN", "AUTOPLAY:OFF",
+        "BET:10", "BET:9999999", "BETS:10,20,30,40,50", "AUTOPLAY:10:17", "HIT:0", "STAND:4"
+    };
+    private static final String[] INVALID = {
+        "", "hit", "BET:", "BET:-5", "BET:12345678", "BET:1e3", "BET:10 ", "BETS:1,2,3,4,5,6", "BETS:10,",
+        "AUTOPLAY:10", "AUTOPLAY:10:123", "AUTOPLAY::17", "HIT:5", "HIT:01", "STAND:a", "BET:1" + "0".repeat(48)
+    };
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        System.out.println("🎯 Testing CommandGuard...");
+
+        CommandGuard grammar = new CommandGuard(null);
+        int accepted = 0;
+        for (String command : VALID) {
+            if (grammar.check(command) == CommandGuard.Verdict.ACCEPTED) {
+                accepted++;
+            } else {
+                System.out.println("   lệnh hợp lệ bị từ chối: " + command);
+            }
+        }
+        check(accepted == VALID.length, "Nhận " + accepted + "/" + VALID.length + " lệnh hợp lệ");
+        int rejected = 0;
+        for (String command : INVALID) {
+            if (grammar.check(command) == CommandGuard.Verdict.INVALID) {
+                rejected++;
+            } else {
+                System.out.println("   lệnh sai dạng được nhận: \"" + command + "\"");
+            }
+        }
+        check(rejected == INVALID.length, "Từ chối " + rejected + "/" + INVALID.length + " lệnh sai dạng");
+
+        CommandGuard connection = new CommandGuard(null);
+        check(acceptedInARow(connection, CONNECTION_BURST * 2) == CONNECTION_BURST,
+            "Một kết nối nhận " + CONNECTION_BURST + " lệnh liền nhau rồi bị giới hạn");
+        check(connection.check("BET:abc") == CommandGuard.Verdict.INVALID, "Lệnh sai dạng vẫn là INVALID khi hết token");
+        Thread.sleep(300);
+        check(connection.check("HIT") == CommandGuard.Verdict.ACCEPTED, "Token được nạp lại sau một lúc");
+        connection.close();
+
+        // Nhiều kết nối cùng IP: mỗi kết nối còn đủ token riêng nhưng bucket của IP cạn sau IP_BURST lệnh
+        CommandGuard[] sameIp = new CommandGuard[IP_BURST / CONNECTION_BURST + 1];
+        int total = 0;
+        for (int i = 0; i < sameIp.length; i++) {
+            sameIp[i] = new CommandGuard("203.0.113.7");
+            total += acceptedInARow(sameIp[i], CONNECTION_BURST);
+        }
+        check(total == IP_BURST, "Các kết nối cùng IP dùng chung " + IP_BURST + " token của IP (nhận " + total + ")");
+        CommandGuard otherIp = new CommandGuard("203.0.113.8");
+        check(acceptedInARow(otherIp, CONNECTION_BURST) == CONNECTION_BURST, "IP khác không bị ảnh hưởng");
+        for (CommandGuard guard : sameIp) {
+            guard.close();
+        }
+        otherIp.close();
+
+        check(readLimited("x".repeat(CommandGuard.MAX_MESSAGE_BYTES / 2)), "Message ngắn đọc được qua MessageLimit");
+        check(!readLimited("x".repeat(CommandGuard.MAX_MESSAGE_BYTES)), "Message quá " + CommandGuard.MAX_MESSAGE_BYTES + " byte bị cắt");
+
+        check(CommandGuard.isValidName("Đức Anh") && !CommandGuard.isValidName("An#1") && !CommandGuard.isValidName("  ")
+            && !CommandGuard.isValidName("x".repeat(CommandGuard.MAX_NAME_LENGTH + 1)), "Kiểm tra tên người chơi");
+
+        if (failures > 0) {
+            System.out.println("❌ " + failures + " kiểm tra thất bại");
+            System.exit(1);
+        }
+        System.out.println("🚀 CommandGuard OK");
+    }
+
+    // Số lệnh được nhận trong một loạt gửi liền nhau, tới khi lệnh đầu tiên bị giới hạn
+    private static int acceptedInARow(CommandGuard guard, int attempts) {
+        int accepted = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (guard.check("HIT") != CommandGuard.Verdict.ACCEPTED) break;
+            accepted++;
+        }
+        return accepted;
+    }
+
+    // Đọc một String qua MessageLimit như handshake của server; false nếu bị cắt
+    private static boolean readLimited(String message) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(message);
+        }
+        CommandGuard.MessageLimit limit = new CommandGuard.MessageLimit(
+            new ByteArrayInputStream(bytes.toByteArray()), CommandGuard.MAX_MESSAGE_BYTES);
+        try (ObjectInputStream in = new ObjectInputStream(limit)) {
+            in.setObjectInputFilter(CommandGuard.STRING_ONLY_FILTER);
+            return message.equals(in.readObject());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        if (condition) {
+            System.out.println("✅ " + description);
+        } else {
+            System.out.println("❌ " + description);
+            failures++;
+        }
+    }
+}
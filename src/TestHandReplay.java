@@ -0,0 +1,123 @@
+// TestHandReplay.java
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class TestHandReplay - Tự kiểm tra journal và công cụ replay ván bài
+ * Chơi nhiều ván với seed ngẫu nhiên (có cả ván nhiều tay), ghi vào journal như GameSession rồi kiểm tra:
+ * - Mọi dòng journal replay khớp kết quả và tiền thắng/thua (HandReplay.verify)
+ * - Dòng bị sửa tiền, thiếu quyết định cuối, có quyết định sai lượt hoặc sai định dạng đều bị phát hiện
+ *
+ * Chạy: java TestHandReplay
+ */
+public class TestHandReplay {
+    private static final int HANDS = 500;
+    private static final int MAX_REPORTED_MISMATCHES = 5;
+    private static final List<String> NAMES = List.of("An", "Bình|Chi,");  // Tên chứa ký tự phân cách
+    private static int failures = 0;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("🎯 Testing HandReplay...");
+        Path file = Files.createTempFile("hand-journal", ".log");
+        try {
+            try (HandJournal journal = HandJournal.open(file)) {
+                playHands(journal, new Random(2024));
+            }
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            check(lines.size() == HANDS, "Journal có " + lines.size() + "/" + HANDS + " ván");
+
+            int matched = 0;
+            for (String line : lines) {
+                String problem = HandReplay.verify(line);
+                if (problem == null) {
+                    matched++;
+                } else if (lines.size() - matched <= MAX_REPORTED_MISMATCHES) {
+                    System.out.println("   " + problem);
+                }
+            }
+            check(matched == lines.size(), "Replay khớp " + matched + "/" + lines.size() + " ván");
+            check(HandRecord.parse(lines.get(0)).getPlayersNames().equals(NAMES), "Tên chứa ký tự phân cách được giữ nguyên");
+
+            String line = lines.get(0);
+            String[] fields = line.split("\\|", -1);
+            String[] moneysAfter = fields[4].split(",");
+            moneysAfter[0] = String.valueOf(Integer.parseInt(moneysAfter[0]) + 1);
+            fields[4] = String.join(",", moneysAfter);
+            check(HandReplay.verify(String.join("|", fields)) != null, "Phát hiện dòng bị sửa số tiền sau ván");
+
+            HandRecord truncated = HandRecord.parse(line);
+            List<String> decisions = truncated.getDecisions();
+            decisions.remove(decisions.size() - 1);
+            check(HandReplay.verify(truncated.toLine()) != null, "Phát hiện dòng thiếu quyết định kết thúc ván");
+
+            HandRecord outOfTurn = HandRecord.parse(line);
+            outOfTurn.getDecisions().add(0, "1:HIT");
+            check(HandReplay.verify(outOfTurn.toLine()) != null, "Phát hiện quyết định sai lượt");
+
+            check(HandReplay.verify("không phải dòng journal") != null, "Phát hiện dòng sai định dạng");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        if (failures > 0) {
+            System.out.println("❌ " + failures + " kiểm tra thất bại");
+            System.exit(1);
+        }
+        System.out.println("🚀 HandReplay OK");
+    }
+
+    // Chơi HANDS ván trên một engine như một bàn hai ghế; số dư chuyển tiếp giữa các ván
+    private static void playHands(HandJournal journal, Random random) {
+        Blackjack game = new Blackjack(NAMES.size());
+        game.setQuiet(true);
+        for (int hand = 0; hand < HANDS; hand++) {
+            for (int seat = 0; seat < NAMES.size(); seat++) {
+                if (game.getPlayersMoneys().get(seat) < 100) {
+                    game.setPlayerMoney(seat, Blackjack.STARTING_MONEY); // Như refillBrokePlayers
+                }
+            }
+            game.startGame(random.nextLong());
+            HandRecord record = new HandRecord(game.getHandSeed(), NAMES, game.getPlayersMoneys());
+
+            for (int seat = 0; seat < NAMES.size(); seat++) {
+                int hands = 1 + random.nextInt(3);
+                StringBuilder command = new StringBuilder(hands == 1 ? "BET:" : "BETS:");
+                int[] bets = new int[hands];
+                for (int h = 0; h < hands; h++) {
+                    bets[h] = 5 + random.nextInt(30);
+                    command.append(h > 0 ? "," : "").append(bets[h]);
+                }
+                if (!game.placeBets(seat, bets)) {
+                    throw new IllegalStateException("Cược bị từ chối: " + command);
+                }
+                record.addDecision(seat, command.toString());
+            }
+            while (game.getCurrentGameState() == Blackjack.GameState.PLAYER_TURN) {
+                int seat = game.getCurrentPlayerIndex();
+                // Lúc hit lúc stand ngẫu nhiên quanh ngưỡng 17 để có đủ loại kết quả
+                if (game.getCurrentHandSum() < 12 + random.nextInt(7)) {
+                    game.playerHit();
+                    record.addDecision(seat, "HIT");
+                } else {
+                    game.playerStand();
+                    record.addDecision(seat, "STAND");
+                }
+            }
+            record.finish(game.getPlayersResults(), game.getPlayersMoneys());
+            journal.append(record);
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        if (condition) {
+            System.out.println("✅ " + description);
+        } else {
+            System.out.println("❌ " + description);
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+// TestHashedTimerWheel.java
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Class TestHashedTimerWheel - Tự kiểm tra bánh xe hẹn giờ dùng cho deadline lượt chơi
+ * - Hẹn giờ đăng ký lộn xộn chạy theo đúng thứ tự hết hạn
+ * - Không hẹn giờ nào chạy trước thời điểm hết hạn, kể cả hẹn giờ dài hơn một vòng bánh xe
+ * - Hẹn giờ đã hủy không chạy
+ * - Tác vụ ném lỗi không làm dừng bánh xe
+ *
+ * Chạy: java TestHashedTimerWheel
+ */
+public class TestHashedTimerWheel {
+    private static final long TICK_MS = 1;              // Một vòng bánh xe = 512 ms
+    private static final long[] DELAYS_MS = { 90, 30, 150, 0, 60, 120 };
+    private static final long BEYOND_ONE_ROUND_MS = 700;
+    private static int failures = 0;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("🎯 Testing HashedTimerWheel...");
+        HashedTimerWheel timers = new HashedTimerWheel(TICK_MS, TimeUnit.MILLISECONDS, "test-timers");
+
+        List<Long> fired = new ArrayList<>(); // Ghi trên luồng của bánh xe, đọc sau khi mọi hẹn giờ đã chạy
+        ConcurrentHashMap<Long, Long> earlyNanos = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(DELAYS_MS.length + 1);
+        for (long delay : DELAYS_MS) {
+            schedule(timers, delay, fired, earlyNanos, done);
+        }
+        schedule(timers, BEYOND_ONE_ROUND_MS, fired, earlyNanos, done);
+
+        AtomicBoolean cancelledRan = new AtomicBoolean(false);
+        timers.schedule(() -> cancelledRan.set(true), 40, TimeUnit.MILLISECONDS).cancel();
+        timers.schedule(() -> {
+            throw new IllegalStateException("lỗi cố ý trong tác vụ hẹn giờ");
+        }, 10, TimeUnit.MILLISECONDS);
+
+        boolean completed = done.await(5, TimeUnit.SECONDS);
+        check(completed, "Mọi hẹn giờ đều chạy (kể cả sau một tác vụ ném lỗi)");
+
+        List<Long> expected = new ArrayList<>();
+        for (long delay : DELAYS_MS) {
+            expected.add(delay);
+        }
+        expected.add(BEYOND_ONE_ROUND_MS);
+        expected.sort(null);
+        synchronized (fired) {
+            check(fired.equals(expected), "Hẹn giờ chạy theo thứ tự hết hạn " + fired);
+        }
+        check(earlyNanos.isEmpty(), "Không hẹn giờ nào chạy sớm (kể cả hẹn giờ " + BEYOND_ONE_ROUND_MS
+            + " ms, dài hơn một vòng bánh xe)" + (earlyNanos.isEmpty() ? "" : " - chạy sớm: " + earlyNanos));
+        check(!cancelledRan.get(), "Hẹn giờ đã hủy không chạy");
+
+        if (failures > 0) {
+            System.out.println("❌ " + failures + " kiểm tra thất bại");
+            System.exit(1);
+        }
+        System.out.println("🚀 HashedTimerWheel OK");
+    }
+
+    private static void schedule(HashedTimerWheel timers, long delayMs, List<Long> fired,
+                                 ConcurrentHashMap<Long, Long> earlyNanos, CountDownLatch done) {
+        long scheduledAt = System.nanoTime();
+        timers.schedule(() -> {
+            long elapsed = System.nanoTime() - scheduledAt;
+            if (elapsed < TimeUnit.MILLISECONDS.toNanos(delayMs)) {
+                earlyNanos.put(delayMs, elapsed);
+            }
+            synchronized (fired) {
+                fired.add(delayMs);
+            }
+            done.countDown();
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static void check(boolean condition, String description) {
+        if (condition) {
+            System.out.println("✅ " + description);
+        } else {
+            System.out.println("❌ " + description);
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+// TestSettlement.java
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class TestSettlement - Tự kiểm tra việc thanh toán riêng từng tay (box) khi một ghế chơi nhiều tay
+ * Bộ bài được xếp sẵn để biết trước từng lá; hai ghế: ghế 0 cược hai tay [10, 20], ghế 1 cược một tay [30]
+ * - Blackjack tự nhiên của một tay được trả 3:2 ngay khi chia bài, các tay khác của cùng ghế vẫn chơi tiếp
+ * - Tay quá 21 hòa khi dealer cũng quá 21
+ * - Dealer có Blackjack tự nhiên thì mọi tay được thanh toán ngay
+ * - Tiền mỗi ghế thay đổi đúng bằng tổng các tay (HandReplay.checkPayouts)
+ *
+ * Chạy: java TestSettlement
+ */
+public class TestSettlement {
+    private static int failures = 0;
+
+    public static void main(String[] args) {
+        System.out.println("🎯 Testing per-box settlement...");
+
+        // Thứ tự chia: box 0 (ghế 0 tay 0), box 1 (ghế 1), box 2 (ghế 0 tay 1), lá ẩn của dealer, rồi vòng thứ hai
+        Blackjack natural = newGame("A", "K", "10", "10", "K", "Q", "6", "7");
+        List<Integer> before = new ArrayList<>(natural.getPlayersMoneys());
+        bet(natural);
+        check(natural.getPlayersResults().get(0).equals("Blackjack!") && natural.getPlayersMoneys().get(0) == 995,
+            "Blackjack tự nhiên của box 0 được trả 3:2 ngay khi chia bài");
+        check(natural.getCurrentGameState() == Blackjack.GameState.PLAYER_TURN
+            && natural.getCurrentPlayerIndex() == 0 && natural.getCurrentHandIndex() == 1,
+            "Tay thứ hai của ghế 0 vẫn được chơi tiếp");
+        natural.playerStand();
+        natural.playerStand();
+        checkSettled(natural, before, new String[] { "Blackjack!", "Thắng!", "Thua!" }, 995, 1030,
+            "Dealer 17: tay 16 thua, tay 20 thắng, box Blackjack giữ nguyên");
+
+        // Box 0 rút K thành 22; dealer 16 rút 10 thành 26
+        Blackjack bothBust = newGame("10", "K", "9", "10", "2", "Q", "9", "6", "K", "10");
+        before = new ArrayList<>(bothBust.getPlayersMoneys());
+        bet(bothBust);
+        bothBust.playerHit();
+        check(bothBust.getPlayersResults().get(0).equals("Thua!") && bothBust.getCurrentHandIndex() == 1,
+            "Box 0 quá 21 thì chuyển sang tay tiếp theo của ghế");
+        bothBust.playerStand();
+        bothBust.playerStand();
+        checkSettled(bothBust, before, new String[] { "Hòa!", "Thắng!", "Thắng!" }, 1020, 1030,
+            "Dealer quá 21: tay đã quá 21 hòa, các tay còn lại thắng");
+
+        // Dealer A + K: box 0 cũng có Blackjack nên hòa, các tay khác thua
+        Blackjack dealerNatural = newGame("A", "9", "5", "A", "K", "9", "5", "K");
+        before = new ArrayList<>(dealerNatural.getPlayersMoneys());
+        bet(dealerNatural);
+        checkSettled(dealerNatural, before, new String[] { "Hòa!", "Thua!", "Thua!" }, 980, 970,
+            "Dealer có Blackjack tự nhiên: mọi tay được thanh toán ngay khi chia bài");
+
+        if (failures > 0) {
+            System.out.println("❌ " + failures + " kiểm tra thất bại");
+            System.exit(1);
+        }
+        System.out.println("🚀 Settlement OK");
+    }
+
+    // Ván mới với các lá được rút lần lượt theo thứ tự cho trước (bộ bài rút từ cuối danh sách)
+    private static Blackjack newGame(String... draws) {
+        Blackjack game = new Blackjack(2);
+        game.setQuiet(true);
+        game.startGame(1);
+        for (int i = draws.length - 1; i >= 0; i--) {
+            game.deck.add(Card.fromOrdinal(new Card(draws[i], "S").ordinal()));
+        }
+        return game;
+    }
+
+    private static void bet(Blackjack game) {
+        game.placeBets(0, new int[] { 10, 20 });
+        game.placeBet(1, 30);
+    }
+
+    private static void checkSettled(Blackjack game, List<Integer> before, String[] results,
+                                     int seat0Money, int seat1Money, String description) {
+        List<String> actual = game.getPlayersResults().subList(0, results.length);
+        boolean settled = game.getCurrentGameState() == Blackjack.GameState.GAME_OVER
+            && actual.equals(List.of(results))
+            && game.getPlayersMoneys().equals(List.of(seat0Money, seat1Money));
+        check(settled, description + (settled ? "" : " - " + actual + " " + game.getPlayersMoneys()));
+        String problem = HandReplay.checkPayouts(game, before);
+        check(problem == null, "Tiền mỗi ghế khớp tổng các tay" + (problem == null ? "" : " - " + problem));
+    }
+
+    private static void check(boolean condition, String description) {
+        if (condition) {
+            System.out.println("✅ " + description);
+        } else {
+            System.out.println("❌ " + description);
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+// TestTableCodec.java
+import java.nio.ByteBuffer;
+
+/**
+ * Class TestTableCodec - Tự kiểm tra định dạng nén của engine (Blackjack.writeCompact/readCompact)
+ * và kho ngoài heap của bàn nghỉ (DormantTableStore)
+ * - Nén rồi nạp lại vào một engine khác (đã dùng cho ván khác) cho ra đúng trạng thái ở mọi giai đoạn của ván:
+ *   đang cược dở, đang tới lượt người chơi với nhiều tay, đã kết thúc; kết quả ngoài bảng mã vẫn giữ nguyên văn
+ * - Engine nạp lại chơi tiếp giống hệt engine gốc (bộ bài giữ đúng thứ tự)
+ * - Dữ liệu của bàn có số người chơi khác bị từ chối
+ * - park/unpark trả về đúng trạng thái, ô được dùng lại, kho đầy thì park trả về -1
+ *
+ * Chạy: java TestTableCodec
+ */
+public class TestTableCodec {
+    private static final int PLAYERS = 2;
+    private static int failures = 0;
+
+    public static void main(String[] args) {
+        System.out.println("🎯 Testing Blackjack compact codec...");
+
+        // Đang cược dở: ghế 0 đã cược ba tay, ghế 1 chưa cược
+        Blackjack betting = newGame(7);
+        betting.placeBets(0, new int[] { 10, 20, 30 });
+        checkRoundTrip(betting, "Ván đang cược dở (ghế 0 ba tay)");
+
+        // Đang tới lượt người chơi; tìm seed không có Blackjack tự nhiên của dealer
+        Blackjack playing = null;
+        for (long seed = 1; playing == null; seed++) {
+            Blackjack candidate = newGame(seed);
+            candidate.placeBets(0, new int[] { 10, 20 });
+            candidate.placeBet(1, 50);
+            if (candidate.getCurrentGameState() == Blackjack.GameState.PLAYER_TURN) {
+                playing = candidate;
+            }
+        }
+        Blackjack restored = checkRoundTrip(playing, "Ván đang tới lượt người chơi (ghế 0 hai tay)");
+        while (playing.getCurrentGameState() == Blackjack.GameState.PLAYER_TURN) {
+            if (playing.getCurrentHandSum() < 15) {
+                playing.playerHit();
+                restored.playerHit();
+            } else {
+                playing.playerStand();
+                restored.playerStand();
+            }
+        }
+        check(fingerprint(playing).equals(fingerprint(restored)), "Engine nạp lại chơi tiếp giống hệt engine gốc");
+
+        // Đã kết thúc, với một kết quả không có trong bảng mã
+        playing.getPlayersResults().set(0, "Kết quả tùy ý ✓");
+        checkRoundTrip(playing, "Ván đã kết thúc (kết quả ngoài bảng mã)");
+
+        boolean rejected;
+        try {
+            new Blackjack(PLAYERS + 1).readCompact(encode(playing));
+            rejected = false;
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        check(rejected, "Trạng thái của bàn " + PLAYERS + " người không nạp được vào engine " + (PLAYERS + 1) + " người");
+
+        System.out.println("🎯 Testing DormantTableStore...");
+        DormantTableStore store = new DormantTableStore(1);
+        String expected = fingerprint(playing);
+        int slot = store.park(playing);
+        check(slot >= 0 && store.getParkedCount() == 1, "Bàn được cất vào một ô");
+        check(store.park(betting) == -1, "Kho đầy thì park trả về -1 (bàn giữ engine trên heap)");
+        Blackjack unparked = pooledEngine();
+        store.unpark(slot, unparked);
+        check(fingerprint(unparked).equals(expected), "unpark nạp đúng trạng thái đã cất");
+        check(store.getParkedCount() == 0 && store.park(betting) == slot, "Ô đã unpark được dùng lại");
+
+        if (failures > 0) {
+            System.out.println("❌ " + failures + " kiểm tra thất bại");
+            System.exit(1);
+        }
+        System.out.println("🚀 Table codec OK");
+    }
+
+    private static Blackjack newGame(long seed) {
+        Blackjack game = new Blackjack(PLAYERS);
+        game.setQuiet(true);
+        game.startGame(seed);
+        return game;
+    }
+
+    // Engine vừa được dùng cho một ván khác rồi reset, như engine lấy từ TablePool
+    private static Blackjack pooledEngine() {
+        Blackjack game = newGame(99);
+        game.placeBets(0, new int[] { 5, 5, 5, 5, 5 });
+        game.placeBet(1, 5);
+        game.reset();
+        game.setQuiet(true);
+        return game;
+    }
+
+    private static ByteBuffer encode(Blackjack game) {
+        ByteBuffer buffer = ByteBuffer.allocate(DormantTableStore.SLOT_SIZE);
+        game.writeCompact(buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static Blackjack checkRoundTrip(Blackjack original, String description) {
+        ByteBuffer encoded = encode(original);
+        int length = encoded.remaining();
+        Blackjack restored = pooledEngine();
+        restored.readCompact(encoded);
+        check(fingerprint(restored).equals(fingerprint(original)) && !encoded.hasRemaining(),
+            description + " - " + length + " byte");
+        return restored;
+    }
+
+    // Mọi trạng thái mà writeCompact ghi, dưới dạng chuỗi để so sánh (TestTableHandoff dùng lại)
+    static String fingerprint(Blackjack game) {
+        return game.getCurrentGameState() + "|" + game.getHandSeed()
+            + "|" + game.getCurrentPlayerIndex() + "/" + game.getCurrentHandIndex()
+            + "|" + game.deck + "|" + game.getDealerHand() + "|" + game.dealerSum + "/" + game.dealerAceCount
+            + "|" + game.getPlayersMoneys() + "|" + game.getHandsPerPlayer()
+            + "|" + game.getPlayersHands() + "|" + game.playersSums + "|" + game.playersAceCounts
+            + "|" + game.getPlayersBets() + "|" + game.getPlayersResults();
+    }
+
+    private static void check(boolean condition, String description) {
+        if (condition) {
+            System.out.println("✅ " + description);
+        } else {
+            System.out.println("❌ " + description);
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+// TestTableHandoff.java
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Class TestTableHandoff - Tự kiểm tra snapshot chuyển giao bàn khi hot restart (TableHandoff)
+ * - Ghi rồi đọc lại cho ra đúng tên, token, số ván, dòng journal dở (kể cả null), cờ chờ ván mới và engine
+ * - Snapshot bị xóa sau khi đọc để không bàn nào được khôi phục hai lần; không còn file tạm sau khi ghi
+ * - Snapshot khác phiên bản, sai magic hoặc bị cắt cụt bị bỏ qua (không khôi phục bàn nào)
+ * - Hai tiến trình không cùng giữ được khóa của một snapshot
+ *
+ * Chạy: java TestTableHandoff
+ */
+public class TestTableHandoff {
+    private static final int VERSION_OFFSET = 4; // Sau SNAPSHOT_MAGIC
+    private static int failures = 0;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("🎯 Testing TableHandoff...");
+        Path directory = Files.createTempDirectory("handoff-test");
+        Path file = directory.resolve(TableHandoff.SNAPSHOT_FILE);
+        try {
+            List<TableHandoff.TableSnapshot> tables = List.of(
+                table(11, new String[] { "An", "Đức Anh" }, 3, "3\t11\tAn:BET:10", new boolean[] { false, true }),
+                table(12, new String[] { "Binh", "Chi" }, 1, null, new boolean[] { true, false }));
+
+            TableHandoff.writeFile(tables, file);
+            check(!Files.exists(directory.resolve(TableHandoff.SNAPSHOT_FILE + ".tmp")), "Không còn file tạm sau khi ghi");
+            List<TableHandoff.TableSnapshot> loaded = TableHandoff.load(file);
+            check(loaded.size() == tables.size(), "Đọc lại đủ " + tables.size() + " bàn");
+            boolean same = loaded.size() == tables.size();
+            for (int i = 0; same && i < tables.size(); i++) {
+                same = sameTable(tables.get(i), loaded.get(i));
+            }
+            check(same, "Tên, token, số ván, dòng journal dở, cờ ván mới và engine giữ nguyên");
+            check(!Files.exists(file), "Snapshot bị xóa sau khi đọc");
+            check(TableHandoff.load(file).isEmpty(), "Không có snapshot thì không khôi phục bàn nào");
+
+            TableHandoff.writeFile(tables, file);
+            byte[] bytes = Files.readAllBytes(file);
+            ByteBuffer.wrap(bytes).putInt(VERSION_OFFSET, TableHandoff.SNAPSHOT_VERSION + 1);
+            Files.write(file, bytes);
+            check(TableHandoff.load(file).isEmpty() && !Files.exists(file), "Snapshot khác phiên bản bị bỏ qua và xóa");
+
+            TableHandoff.writeFile(tables, file);
+            bytes = Files.readAllBytes(file);
+            bytes[0] ^= 0x01;
+            Files.write(file, bytes);
+            check(TableHandoff.load(file).isEmpty(), "Snapshot sai magic bị bỏ qua");
+
+            TableHandoff.writeFile(tables, file);
+            bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+            check(TableHandoff.load(file).isEmpty(), "Snapshot bị cắt cụt bị bỏ qua (kể cả bàn đầu đã đọc được)");
+
+            DataLock lock = TableHandoff.lock(file);
+            boolean held;
+            try {
+                TableHandoff.lock(file).close();
+                held = false;
+            } catch (DataLock.HeldException e) {
+                held = true;
+            } finally {
+                lock.close();
+            }
+            check(held, "Snapshot đang bị khóa không khóa thêm được lần nữa");
+            boolean relocked;
+            try {
+                TableHandoff.lock(file).close();
+                relocked = true;
+            } catch (DataLock.HeldException e) {
+                relocked = false;
+            }
+            check(relocked, "Khóa lại được sau khi tiến trình trước nhả khóa");
+        } finally {
+            for (String name : new String[] { TableHandoff.SNAPSHOT_FILE, TableHandoff.SNAPSHOT_FILE + ".lock" }) {
+                Files.deleteIfExists(directory.resolve(name));
+            }
+            Files.delete(directory);
+        }
+
+        if (failures > 0) {
+            System.out.println("❌ " + failures + " kiểm tra thất bại");
+            System.exit(1);
+        }
+        System.out.println("🚀 TableHandoff OK");
+    }
+
+    // Một bàn đang giữa ván: hai ghế đã cược, đang tới lượt người chơi hoặc đã kết thúc tùy seed
+    private static TableHandoff.TableSnapshot table(long seed, String[] names, int handNumber,
+                                                    String currentHandLine, boolean[] wantsNewGame) {
+        Blackjack game = new Blackjack(2);
+        game.setQuiet(true);
+        game.startGame(seed);
+        game.placeBets(0, new int[] { 10, 20 });
+        game.placeBet(1, 30);
+        String[] tokens = { "node1." + names[0] + "-token", "node1." + names[1] + "-token" };
+        return new TableHandoff.TableSnapshot(names, tokens, game, handNumber, currentHandLine, wantsNewGame);
+    }
+
+    private static boolean sameTable(TableHandoff.TableSnapshot expected, TableHandoff.TableSnapshot actual) {
+        return Arrays.equals(expected.playersNames, actual.playersNames)
+            && Arrays.equals(expected.seatTokens, actual.seatTokens)
+            && expected.handNumber == actual.handNumber
+            && Objects.equals(expected.currentHandLine, actual.currentHandLine)
+            && Arrays.equals(expected.wantsNewGame, actual.wantsNewGame)
+            && TestTableCodec.fingerprint(expected.game).equals(TestTableCodec.fingerprint(actual.game));
+    }
+
+    private static void check(boolean condition, String description) {
+        if (condition) {
+            System.out.println("✅ " + description);
+        } else {
+            System.out.println("❌ " + description);
+            failures++;
+        }
+    }
+}
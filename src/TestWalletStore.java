@@ -0,0 +1,106 @@
+// TestWalletStore.java
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Class TestWalletStore - Tự kiểm tra kho số dư (snapshot + WAL) trên một thư mục tạm
+ * - Số dư (kể cả tên có dấu và ký tự đặc biệt) còn nguyên sau khi đóng và mở lại
+ * - Bản ghi cuối bị ghi dở (thiếu xuống dòng) bị bỏ và WAL được cắt tại bản ghi hợp lệ cuối cùng,
+ *   nên bản ghi mới không bị nối vào dòng dở
+ * - Bản ghi sai CRC không được nạp; dòng cũ chưa có CRC vẫn được chấp nhận
+ * - Thư mục đang mở không mở thêm được lần nữa (DataLock)
+ *
+ * Chạy: java TestWalletStore
+ */
+public class TestWalletStore {
+    private static final int DEFAULT_BALANCE = 1000;
+    private static int failures = 0;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("🎯 Testing WalletStore...");
+        Path directory = Files.createTempDirectory("wallet-test");
+        Path walFile = directory.resolve("wallets.wal");
+        try {
+            try (WalletStore store = WalletStore.open(directory)) {
+                store.updateBalance("An", 1500);
+                store.updateBalance("Đức Anh", 700);
+                store.updateBalance("tab\tname", 42);
+                store.updateBalance("An", 1600);
+            }
+            try (WalletStore store = WalletStore.open(directory)) {
+                check(store.getBalance("An", DEFAULT_BALANCE) == 1600, "Bản ghi cuối của mỗi tên là số dư sau khi mở lại");
+                check(store.getBalance("Đức Anh", DEFAULT_BALANCE) == 700
+                    && store.getBalance("tab\tname", DEFAULT_BALANCE) == 42, "Tên có dấu và ký tự đặc biệt được mã hóa đúng");
+                check(store.getBalance("Chưa có", DEFAULT_BALANCE) == DEFAULT_BALANCE, "Người chơi chưa có ví nhận số dư mặc định");
+            }
+
+            // Server dừng giữa lúc ghi: dòng cuối thiếu xuống dòng
+            long validLength = Files.size(walFile);
+            append(walFile, "Cuong\t900");
+            try (WalletStore store = WalletStore.open(directory)) {
+                check(store.getBalance("Cuong", DEFAULT_BALANCE) == DEFAULT_BALANCE, "Bản ghi dở ở cuối WAL bị bỏ");
+                check(Files.size(walFile) == validLength, "WAL được cắt tại bản ghi hợp lệ cuối cùng");
+                store.updateBalance("Cuong", 950);
+            }
+            try (WalletStore store = WalletStore.open(directory)) {
+                check(store.getBalance("Cuong", DEFAULT_BALANCE) == 950
+                    && store.getBalance("An", DEFAULT_BALANCE) == 1600, "Bản ghi mới sau khi cắt đuôi được nạp đúng");
+            }
+
+            // Bản ghi bị ghi đè một phần: CRC không khớp
+            append(walFile, "Dung\t5\t00000000\n");
+            try (WalletStore store = WalletStore.open(directory)) {
+                check(store.getBalance("Dung", DEFAULT_BALANCE) == DEFAULT_BALANCE, "Bản ghi sai CRC không được nạp");
+            }
+
+            // WAL của phiên bản cũ: "tên\tsố_dư" không có CRC
+            append(walFile, "Em\t321\n");
+            try (WalletStore store = WalletStore.open(directory)) {
+                check(store.getBalance("Em", DEFAULT_BALANCE) == 321, "Dòng cũ chưa có CRC vẫn được chấp nhận");
+
+                boolean held;
+                try {
+                    WalletStore.open(directory).close();
+                    held = false;
+                } catch (DataLock.HeldException e) {
+                    held = true;
+                }
+                check(held, "Thư mục đang mở không mở thêm được lần nữa (wallets.lock)");
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+
+        if (failures > 0) {
+            System.out.println("❌ " + failures + " kiểm tra thất bại");
+            System.exit(1);
+        }
+        System.out.println("🚀 WalletStore OK");
+    }
+
+    private static void check(boolean condition, String description) {
+        if (condition) {
+            System.out.println("✅ " + description);
+        } else {
+            System.out.println("❌ " + description);
+            failures++;
+        }
+    }
+
+    private static void append(Path file, String text) throws IOException {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
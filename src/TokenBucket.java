@@ -0,0 +1,52 @@
+// TokenBucket.java
+
+/**
+ * Class TokenBucket - Bộ giới hạn tốc độ kiểu token bucket
+ * Token được nạp lại liên tục với tốc độ cố định, tối đa bằng capacity (cho phép bùng nổ ngắn).
+ * Mỗi lần tryAcquire() lấy một token; hết token thì yêu cầu bị từ chối ngay, không chờ.
+ */
+public class TokenBucket {
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * Constructor - Tạo bucket đầy token
+     * @param tokensPerSecond Tốc độ nạp lại token mỗi giây
+     * @param capacity Số token tối đa (độ bùng nổ cho phép)
+     */
+    public TokenBucket(double tokensPerSecond, int capacity) {
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000.0;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Thử lấy một token
+     * @return true nếu còn token, false nếu đã vượt giới hạn
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * @return true nếu bucket đã đầy trở lại (không có hoạt động gần đây) - dùng để dọn bộ nhớ
+     */
+    public synchronized boolean isIdle() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+}
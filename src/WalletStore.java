@@ -0,0 +1,252 @@
+// WalletStore.java
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Class WalletStore - Lưu số dư của người chơi (theo tên) qua nhiều phiên và nhiều lần khởi động server
+ *
+ * Cơ chế lưu trữ:
+ * - Mọi thay đổi số dư được ghi nối tiếp vào write-ahead log (wallets.wal), mỗi dòng "tên\tsố_dư\tcrc32"
+ *   (CRC32 của phần "tên\tsố_dư"), nên bản ghi bị cắt dở hoặc bị ghi đè một phần không bao giờ được nạp
+ * - Một luồng nền gom các thay đổi và fsync theo lô mỗi FSYNC_INTERVAL_MS,
+ *   nên lệnh đặt cược không phải chờ đĩa
+ * - Khi WAL đủ dài, toàn bộ số dư được ghi gọn thành snapshot (wallets.snapshot) và WAL được làm rỗng
+ * - Khi mở: đọc snapshot rồi áp dụng WAL lên trên (bản ghi cuối cùng của mỗi tên là số dư hiện tại);
+ *   WAL được cắt tại bản ghi hợp lệ cuối cùng để các bản ghi mới không bị nối vào một dòng dở
+ * - Mỗi tiến trình giữ số dư trong bộ nhớ và tự nén WAL, nên chỉ một tiến trình được mở một thư mục:
+ *   kho giữ khóa độc quyền trên wallets.lock tới khi đóng (DataLock)
+ */
+public class WalletStore implements AutoCloseable {
+    private static final String SNAPSHOT_FILE = "wallets.snapshot";
+    private static final String WAL_FILE = "wallets.wal";
+    private static final String LOCK_FILE = "wallets.lock";
+    private static final long FSYNC_INTERVAL_MS = 50;
+    private static final int COMPACT_THRESHOLD = 10_000; // Số bản ghi WAL trước khi nén thành snapshot
+
+    private final Path directory;
+    private final DataLock lock;
+    private final Map<String, Integer> balances = new ConcurrentHashMap<>();
+    private final Object walLock = new Object();
+    private FileChannel wal;
+    private int walRecords = 0;
+    private boolean dirty = false;
+    private volatile boolean closed = false;
+    private final Thread flusher;
+
+    private WalletStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        // Khóa trước khi đọc: WAL có thể bị cắt đuôi ngay khi nạp
+        this.lock = DataLock.acquire(directory.resolve(LOCK_FILE));
+        try {
+            loadFile(directory.resolve(SNAPSHOT_FILE), false);
+            walRecords = loadFile(directory.resolve(WAL_FILE), true);
+            this.wal = FileChannel.open(directory.resolve(WAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            lock.close();
+            throw e;
+        }
+
+        this.flusher = new Thread(this::flushLoop, "wallet-fsync");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Mở (hoặc tạo mới) kho số dư trong thư mục chỉ định
+     * @param directory Thư mục chứa snapshot và WAL
+     * @return WalletStore đã nạp đầy đủ số dư
+     * @throws DataLock.HeldException nếu một tiến trình khác đang mở cùng thư mục
+     * @throws IOException nếu không đọc/ghi được thư mục
+     */
+    public static WalletStore open(Path directory) throws IOException {
+        return new WalletStore(directory);
+    }
+
+    /**
+     * Lấy số dư của người chơi
+     * @param playerName Tên người chơi
+     * @param defaultBalance Số dư trả về nếu người chơi chưa có ví
+     * @return Số dư hiện tại
+     */
+    public int getBalance(String playerName, int defaultBalance) {
+        return balances.getOrDefault(playerName, defaultBalance);
+    }
+
+    /**
+     * Cập nhật số dư của người chơi và ghi vào WAL
+     * Thay đổi được fsync theo lô bởi luồng nền, hàm này không chờ đĩa
+     * @param playerName Tên người chơi
+     * @param balance Số dư mới
+     */
+    public void updateBalance(String playerName, int balance) {
+        if (closed) return;
+        byte[] record = encode(playerName, balance).getBytes(StandardCharsets.UTF_8);
+        synchronized (walLock) {
+            // Cập nhật bộ nhớ và WAL dưới cùng một khóa để thứ tự bản ghi khớp với thứ tự thay đổi
+            Integer previous = balances.put(playerName, balance);
+            if (previous != null && previous == balance) {
+                return; // Không thay đổi, không cần ghi log
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(record);
+                while (buffer.hasRemaining()) {
+                    wal.write(buffer);
+                }
+                walRecords++;
+                dirty = true;
+            } catch (IOException e) {
+                System.err.println("Lỗi khi ghi WAL số dư cho " + playerName + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Luồng nền: fsync theo lô và nén WAL khi cần
+    private void flushLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(FSYNC_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            synchronized (walLock) {
+                try {
+                    if (dirty) {
+                        wal.force(false);
+                        dirty = false;
+                    }
+                    if (walRecords >= COMPACT_THRESHOLD) {
+                        compact();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Lỗi khi fsync WAL số dư: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Ghi toàn bộ số dư thành snapshot mới rồi làm rỗng WAL
+     * Phải được gọi khi đang giữ walLock để không có bản ghi nào chen vào giữa
+     */
+    private void compact() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        Map<String, Integer> copy = new HashMap<>(balances);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Integer> entry : copy.entrySet()) {
+                writer.write(encode(entry.getKey(), entry.getValue()));
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        wal.truncate(0);
+        wal.force(true);
+        walRecords = 0;
+        System.out.println("💾 Đã nén số dư của " + copy.size() + " người chơi vào snapshot");
+    }
+
+    /**
+     * Đọc file snapshot/WAL vào bộ nhớ, dừng ở bản ghi đầu tiên không hợp lệ
+     * (thiếu xuống dòng, sai CRC hoặc không đọc được - tức là phần bị ghi dở khi server dừng đột ngột)
+     * @param file Đường dẫn file
+     * @param truncateInvalidTail true với WAL: cắt bỏ phần không hợp lệ để lần ghi sau bắt đầu ở dòng mới
+     * @return Số bản ghi hợp lệ
+     */
+    private int loadFile(Path file, boolean truncateInvalidTail) throws IOException {
+        if (!Files.exists(file)) return 0;
+        byte[] bytes = Files.readAllBytes(file);
+        int records = 0;
+        int validEnd = 0;
+        while (validEnd < bytes.length) {
+            int newline = indexOf(bytes, (byte) '\n', validEnd);
+            if (newline < 0 || !applyRecord(new String(bytes, validEnd, newline - validEnd, StandardCharsets.UTF_8))) {
+                break;
+            }
+            records++;
+            validEnd = newline + 1;
+        }
+
+        if (validEnd < bytes.length) {
+            System.err.println("⚠️  " + file.getFileName() + ": bỏ " + (bytes.length - validEnd)
+                + " byte không hợp lệ sau bản ghi thứ " + records);
+            if (truncateInvalidTail) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(validEnd);
+                    channel.force(true);
+                }
+            }
+        }
+        return records;
+    }
+
+    // Áp dụng một dòng "tên\tsố_dư\tcrc32"; dòng "tên\tsố_dư" của phiên bản cũ (chưa có CRC) vẫn được chấp nhận
+    private boolean applyRecord(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 2 && fields.length != 3) return false;
+        if (fields.length == 3 && !fields[2].equals(checksum(fields[0] + "\t" + fields[1]))) return false;
+        try {
+            String name = URLDecoder.decode(fields[0], StandardCharsets.UTF_8);
+            if (name.isEmpty()) return false;
+            balances.put(name, Integer.parseInt(fields[1]));
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte value, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == value) return i;
+        }
+        return -1;
+    }
+
+    private static String encode(String playerName, int balance) {
+        String record = URLEncoder.encode(playerName, StandardCharsets.UTF_8) + "\t" + balance;
+        return record + "\t" + checksum(record) + "\n";
+    }
+
+    private static String checksum(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue());
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        // Không interrupt luồng fsync: FileChannel sẽ tự đóng nếu bị interrupt giữa lúc force()
+        try {
+            flusher.join(FSYNC_INTERVAL_MS * 4);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (walLock) {
+            try {
+                wal.force(false);
+                wal.close();
+            } finally {
+                lock.close();
+            }
+        }
+    }
+}
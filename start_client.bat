@@ -14,6 +14,8 @@ echo Dang khoi dong client...
 echo.
 
 cd src
-java Main
+rem Dong goi tai nguyen thanh mot file neu chua co (xoa assets.pak de dong goi lai)
+if not exist ..\resource\assets.pak java AssetPacker ..\resource
+java -cp .;..\resource Main
 
 pause
@@ -0,0 +1,17 @@
+@echo off
+echo ==========================================
+echo    BLACKJACK CLUSTER (ROUTER + 2 NODE)
+echo ==========================================
+echo.
+echo Router nhan client o cong 12345, cac node bao suc khoe qua cong 12400
+echo Hai node chay tren cung may o cong 12346 va 12347
+echo Client ket noi toi Router nhu ket noi toi server thuong
+echo Moi node luu vi, lich su van bai va snapshot ban trong thu muc rieng (node1, node2)
+echo.
+
+cd src
+start "Router" java Router 12345 12400
+start "Node 1" java Server 12346 --router localhost:12400 --data-dir node1
+start "Node 2" java Server 12347 --router localhost:12400 --data-dir node2
+
+pause